@@ -0,0 +1,41 @@
+package com.easy.simple.rpc.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 服务接口或方法的降级链（方法上的优先，容错策略为 failBack 时生效）
+ * 调用失败后按顺序执行各步骤，每个步骤有独立的时间预算，第一个成功的步骤的结果作为返回值；
+ * 未标注时使用配置 failBackSteps / failBackStepTimeout
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RpcFallback {
+
+    /**
+     * 降级步骤，见 FallbackStepEnum（failOver 其他节点、backup 备用服务、lastGood 最近成功结果、default 本地降级实现）
+     */
+    String[] steps() default {"failOver", "backup", "lastGood", "default"};
+
+    /**
+     * 每个远程步骤的时间预算（毫秒，独立于调用的截止时间）
+     */
+    long stepTimeout() default 1000;
+
+    /**
+     * 备用服务名，为空时使用 服务名.backup
+     */
+    String backupService() default "";
+
+    /**
+     * 最近成功结果的有效期（毫秒），结果按参数的 equals / hashCode（数组按内容）区分
+     */
+    long lastGoodTtl() default 60000;
+
+    /**
+     * 本地降级实现（实现服务接口，需要无参构造器），default 步骤调用其同名方法
+     */
+    Class<?> fallback() default void.class;
+}
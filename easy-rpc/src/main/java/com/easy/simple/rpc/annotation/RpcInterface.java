@@ -0,0 +1,16 @@
+package com.easy.simple.rpc.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 服务接口注解（编译期生成客户端存根和服务端分发器）
+ * 标注的接口在编译时由 RpcStubProcessor 生成 XxxService_RpcStub 和 XxxService_RpcDispatcher，
+ * 运行时优先使用生成的类，不存在时回退到动态代理和反射调用
+ */
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.CLASS)
+public @interface RpcInterface {
+}
@@ -0,0 +1,16 @@
+package com.easy.simple.rpc.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 数据对象注解（编译期生成二进制编解码器）
+ * 标注的类在编译时由 SchemaProcessor 生成 Xxx_RpcSchema，schema 序列化器按声明顺序逐个字段读写，不经过反射；
+ * 新增字段只能追加在末尾，新旧两端可以互相读取（旧端跳过不认识的字段，新端缺少的字段保持默认值）
+ */
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.CLASS)
+public @interface RpcSchema {
+}
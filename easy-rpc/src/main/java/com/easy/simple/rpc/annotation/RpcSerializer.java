@@ -0,0 +1,21 @@
+package com.easy.simple.rpc.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 指定服务接口或方法使用的序列化器（方法上的优先）
+ * 消费者把选中的序列化器写在请求帧头中，提供者按帧头解码并用同一序列化器回复，提供者无需配置；
+ * 提供者不支持时使用连接协商的序列化器
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RpcSerializer {
+
+    /**
+     * 序列化器类型，见 SerializerType（如 protobuf、kryo、json）
+     */
+    String value();
+}
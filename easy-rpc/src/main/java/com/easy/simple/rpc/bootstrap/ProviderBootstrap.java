@@ -2,6 +2,7 @@ package com.easy.simple.rpc.bootstrap;
 
 
 
+import cn.hutool.core.net.NetUtil;
 import com.easy.simple.rpc.RpcApplication;
 import com.easy.simple.rpc.config.RegistryConfig;
 import com.easy.simple.rpc.config.RpcConfig;
@@ -11,6 +12,9 @@ import com.easy.simple.rpc.registry.RegistryFactory;
 import com.easy.simple.rpc.registry.impl.LocalRegistry;
 import com.easy.simple.rpc.server.WebServer;
 import com.easy.simple.rpc.server.ServerFactory;
+import com.easy.simple.rpc.server.ServerType;
+import com.easy.simple.rpc.server.impl.ShmServer;
+import com.easy.simple.rpc.server.impl.VertxUdsServer;
 
 import java.util.List;
 
@@ -41,6 +45,13 @@ public class ProviderBootstrap {
             serviceMetaInfo.setServiceName(serviceName);
             serviceMetaInfo.setServiceHost(rpcConfig.getServiceHost());
             serviceMetaInfo.setServicePort(rpcConfig.getServerPort());
+            serviceMetaInfo.setServiceHostName(NetUtil.getLocalHostName());
+            // 以 uds / shm 方式启动时发布本机通道地址，同机消费者优先使用
+            if (ServerType.UDS.getType().equals(rpcConfig.getServerType())) {
+                serviceMetaInfo.setServiceSocketPath(VertxUdsServer.getSocketPath(rpcConfig));
+            } else if (ServerType.SHM.getType().equals(rpcConfig.getServerType())) {
+                serviceMetaInfo.setServiceShmPath(ShmServer.getShmDir(rpcConfig));
+            }
             try {
                 registry.register(serviceMetaInfo);
             } catch (Exception e) {
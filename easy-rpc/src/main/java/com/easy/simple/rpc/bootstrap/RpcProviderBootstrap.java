@@ -1,5 +1,6 @@
 package com.easy.simple.rpc.bootstrap;
 
+import cn.hutool.core.net.NetUtil;
 import com.easy.simple.rpc.annotation.RpcService;
 import com.easy.simple.rpc.RpcApplication;
 import com.easy.simple.rpc.config.RegistryConfig;
@@ -8,6 +9,9 @@ import com.easy.simple.rpc.enity.ServiceMetaInfo;
 import com.easy.simple.rpc.registry.Registry;
 import com.easy.simple.rpc.registry.RegistryFactory;
 import com.easy.simple.rpc.registry.impl.LocalRegistry;
+import com.easy.simple.rpc.server.ServerType;
+import com.easy.simple.rpc.server.impl.ShmServer;
+import com.easy.simple.rpc.server.impl.VertxUdsServer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.BeanPostProcessor;
@@ -55,6 +59,13 @@ public class RpcProviderBootstrap implements BeanPostProcessor {
             serviceMetaInfo.setServiceVersion(serviceVersion);
             serviceMetaInfo.setServiceHost(rpcConfig.getServiceHost());
             serviceMetaInfo.setServicePort(rpcConfig.getServerPort());
+            serviceMetaInfo.setServiceHostName(NetUtil.getLocalHostName());
+            // 以 uds / shm 方式启动时发布本机通道地址，同机消费者优先使用
+            if (ServerType.UDS.getType().equals(rpcConfig.getServerType())) {
+                serviceMetaInfo.setServiceSocketPath(VertxUdsServer.getSocketPath(rpcConfig));
+            } else if (ServerType.SHM.getType().equals(rpcConfig.getServerType())) {
+                serviceMetaInfo.setServiceShmPath(ShmServer.getShmDir(rpcConfig));
+            }
             try {
                 registry.register(serviceMetaInfo);
             } catch (Exception e) {
@@ -0,0 +1,250 @@
+package com.easy.simple.rpc.buffer;
+
+import com.easy.simple.rpc.RpcApplication;
+import com.easy.simple.rpc.config.RpcConfig;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 编解码共用的缓冲区池
+ * 容量按 2 的幂分级（256B ~ 4MB，更大的不入池），每个线程先用本线程的缓存，再用共享队列；
+ * 缓冲区是不释放的 Netty ByteBuf，由 PooledBuffer 持有并在用完后归还；
+ * 编码帧的初始容量按消息种类（方法、返回值类型）记录的近期最大帧长预估，避免扩容拷贝；
+ * 开启泄漏检测后记录每次分配的位置，报告未归还就被回收和重复归还的缓冲区
+ */
+public class BufferArena {
+
+    /**
+     * 最小和最大的池化容量（2 的幂的指数）
+     */
+    private static final int MIN_SHIFT = 8;
+
+    private static final int MAX_SHIFT = 22;
+
+    private static final int SIZE_CLASSES = MAX_SHIFT - MIN_SHIFT + 1;
+
+    /**
+     * 每级共享队列和线程缓存占用的内存上限
+     */
+    private static final int SHARED_BYTES_PER_CLASS = 4 << 20;
+
+    private static final int THREAD_BYTES_PER_CLASS = 256 << 10;
+
+    /**
+     * 预估帧长记录的消息种类上限
+     */
+    private static final int MAX_SIZE_HINTS = 4096;
+
+    /**
+     * 堆外缓冲区分配器：使用带 Cleaner 的 DirectByteBuffer，丢弃的缓冲区由 GC 回收，不依赖引用计数
+     */
+    private static final ByteBufAllocator DIRECT_ALLOCATOR = new UnpooledByteBufAllocator(true, true, false);
+
+    private static volatile BufferArena instance;
+
+    private final boolean direct;
+
+    private final boolean leakDetection;
+
+    /**
+     * 每级的共享队列
+     */
+    private final ArrayBlockingQueue<ByteBuf>[] shared;
+
+    /**
+     * 每个线程每级的缓存
+     */
+    private final ThreadLocal<ArrayDeque<ByteBuf>[]> threadCaches;
+
+    /**
+     * 消息种类 => 近期最大帧长
+     */
+    private final Map<Object, Integer> sizeHints = new ConcurrentHashMap<>();
+
+    /**
+     * 泄漏检测：未归还的缓冲区
+     */
+    private final Set<LeakReference> liveBuffers = ConcurrentHashMap.newKeySet();
+
+    private final ReferenceQueue<PooledBuffer> collectedBuffers = new ReferenceQueue<>();
+
+    @SuppressWarnings("unchecked")
+    public BufferArena(boolean direct, boolean leakDetection) {
+        this.direct = direct;
+        this.leakDetection = leakDetection;
+        this.shared = new ArrayBlockingQueue[SIZE_CLASSES];
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            shared[i] = new ArrayBlockingQueue<>(Math.max(1, Math.min(64, SHARED_BYTES_PER_CLASS >> (MIN_SHIFT + i))));
+        }
+        this.threadCaches = ThreadLocal.withInitial(() -> new ArrayDeque[SIZE_CLASSES]);
+    }
+
+    /**
+     * 按配置创建的全局缓冲区池
+     */
+    public static BufferArena get() {
+        BufferArena arena = instance;
+        if (arena == null) {
+            synchronized (BufferArena.class) {
+                arena = instance;
+                if (arena == null) {
+                    RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+                    arena = new BufferArena(rpcConfig.isBufferArenaDirect(), rpcConfig.isBufferLeakDetection());
+                    instance = arena;
+                }
+            }
+        }
+        return arena;
+    }
+
+    /**
+     * 分配缓冲区，用完后调用 PooledBuffer.release 归还
+     *
+     * @param minCapacity 最小容量，写入超过容量时自动扩容（扩容后的缓冲区不再入池）
+     * @return 缓冲区
+     */
+    public PooledBuffer allocate(int minCapacity) {
+        if (leakDetection) {
+            reportLeaks();
+        }
+        int sizeClass = sizeClass(minCapacity);
+        ByteBuf byteBuf = null;
+        if (sizeClass < SIZE_CLASSES) {
+            ArrayDeque<ByteBuf> cache = threadCache(sizeClass);
+            byteBuf = cache.pollLast();
+            if (byteBuf == null) {
+                byteBuf = shared[sizeClass].poll();
+            }
+        }
+        if (byteBuf == null) {
+            byteBuf = newByteBuf(sizeClass < SIZE_CLASSES ? 1 << (MIN_SHIFT + sizeClass) : minCapacity);
+        }
+        byteBuf.clear();
+        PooledBuffer pooledBuffer = new PooledBuffer(this, byteBuf, sizeClass);
+        if (leakDetection) {
+            LeakReference leakReference = new LeakReference(pooledBuffer, collectedBuffers);
+            pooledBuffer.setLeakReference(leakReference);
+            liveBuffers.add(leakReference);
+        }
+        return pooledBuffer;
+    }
+
+    /**
+     * 按消息种类预估的帧长分配缓冲区
+     *
+     * @param sizeKey 消息种类，为 null 时使用最小容量
+     * @return 缓冲区
+     */
+    public PooledBuffer allocateFor(Object sizeKey) {
+        Integer hint = sizeKey == null ? null : sizeHints.get(sizeKey);
+        return allocate(hint == null ? 1 << MIN_SHIFT : hint);
+    }
+
+    /**
+     * 记录消息种类的实际帧长：更大时立即采用，更小时缓慢回落
+     *
+     * @param sizeKey 消息种类
+     * @param size    帧长
+     */
+    public void recordSize(Object sizeKey, int size) {
+        if (sizeKey == null) {
+            return;
+        }
+        Integer hint = sizeHints.get(sizeKey);
+        if (hint == null) {
+            if (sizeHints.size() < MAX_SIZE_HINTS) {
+                sizeHints.put(sizeKey, size);
+            }
+        } else if (size > hint) {
+            sizeHints.put(sizeKey, size);
+        } else if (size < hint) {
+            sizeHints.put(sizeKey, hint - ((hint - size) >> 4));
+        }
+    }
+
+    /**
+     * 归还缓冲区（由 PooledBuffer.release 调用）
+     */
+    void recycle(PooledBuffer pooledBuffer) {
+        if (pooledBuffer.getLeakReference() != null) {
+            liveBuffers.remove(pooledBuffer.getLeakReference());
+            pooledBuffer.getLeakReference().clear();
+        }
+        int sizeClass = pooledBuffer.getSizeClass();
+        ByteBuf byteBuf = pooledBuffer.getByteBuf();
+        // 扩容过的缓冲区容量不再属于原来的级别，交给 GC
+        if (sizeClass >= SIZE_CLASSES || byteBuf.capacity() != 1 << (MIN_SHIFT + sizeClass)) {
+            return;
+        }
+        ArrayDeque<ByteBuf> cache = threadCache(sizeClass);
+        if (cache.size() < Math.max(1, Math.min(16, THREAD_BYTES_PER_CLASS >> (MIN_SHIFT + sizeClass)))) {
+            cache.addLast(byteBuf);
+        } else {
+            shared[sizeClass].offer(byteBuf);
+        }
+    }
+
+    boolean isLeakDetection() {
+        return leakDetection;
+    }
+
+    private ArrayDeque<ByteBuf> threadCache(int sizeClass) {
+        ArrayDeque<ByteBuf>[] caches = threadCaches.get();
+        ArrayDeque<ByteBuf> cache = caches[sizeClass];
+        if (cache == null) {
+            cache = new ArrayDeque<>();
+            caches[sizeClass] = cache;
+        }
+        return cache;
+    }
+
+    private ByteBuf newByteBuf(int capacity) {
+        return direct ? DIRECT_ALLOCATOR.directBuffer(capacity) : Unpooled.buffer(capacity);
+    }
+
+    private static int sizeClass(int capacity) {
+        if (capacity <= 1 << MIN_SHIFT) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MIN_SHIFT;
+    }
+
+    /**
+     * 报告未归还就被回收的缓冲区
+     */
+    private void reportLeaks() {
+        LeakReference leakReference;
+        while ((leakReference = (LeakReference) collectedBuffers.poll()) != null) {
+            if (liveBuffers.remove(leakReference)) {
+                System.err.println("缓冲区泄漏：未归还就被回收，分配位置如下");
+                leakReference.allocationSite.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 泄漏检测引用，记录分配位置
+     */
+    static class LeakReference extends PhantomReference<PooledBuffer> {
+
+        private final Throwable allocationSite = new Throwable("缓冲区分配位置");
+
+        LeakReference(PooledBuffer referent, ReferenceQueue<PooledBuffer> queue) {
+            super(referent, queue);
+        }
+
+        Throwable getAllocationSite() {
+            return allocationSite;
+        }
+    }
+}
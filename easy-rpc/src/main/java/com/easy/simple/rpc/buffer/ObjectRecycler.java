@@ -0,0 +1,62 @@
+package com.easy.simple.rpc.buffer;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 对象回收池
+ * 每个线程先用本线程的缓存，缓存满了或空了再用共享队列，在其他线程回收的对象经共享队列回到分配线程；
+ * 回收时清空对象的字段，回收后调用方不能再使用该对象
+ */
+public class ObjectRecycler<T> {
+
+    /**
+     * 每个线程缓存的对象个数上限
+     */
+    private static final int THREAD_CACHE_SIZE = 64;
+
+    private final Supplier<T> factory;
+
+    private final Consumer<T> reset;
+
+    private final ArrayBlockingQueue<T> shared;
+
+    private final ThreadLocal<ArrayDeque<T>> threadCache = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * @param factory        创建新对象
+     * @param reset          回收时清空对象的字段
+     * @param sharedCapacity 共享队列容量
+     */
+    public ObjectRecycler(Supplier<T> factory, Consumer<T> reset, int sharedCapacity) {
+        this.factory = factory;
+        this.reset = reset;
+        this.shared = new ArrayBlockingQueue<>(sharedCapacity);
+    }
+
+    /**
+     * 取一个回收的对象，没有时创建
+     */
+    public T get() {
+        T object = threadCache.get().pollLast();
+        if (object == null) {
+            object = shared.poll();
+        }
+        return object == null ? factory.get() : object;
+    }
+
+    /**
+     * 回收对象
+     */
+    public void recycle(T object) {
+        reset.accept(object);
+        ArrayDeque<T> cache = threadCache.get();
+        if (cache.size() < THREAD_CACHE_SIZE) {
+            cache.addLast(object);
+        } else {
+            shared.offer(object);
+        }
+    }
+}
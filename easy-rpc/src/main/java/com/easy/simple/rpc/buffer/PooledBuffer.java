@@ -0,0 +1,91 @@
+package com.easy.simple.rpc.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.buffer.impl.BufferImpl;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 从 BufferArena 分配的缓冲区（每次分配一个实例）
+ * 归还后底层内存会分配给其他使用者，因此归还前必须确认 buffer() 返回的 Buffer 及其切片不再被读写；
+ * 重复归还不会把同一块内存放回池中两次
+ */
+public class PooledBuffer {
+
+    private final BufferArena arena;
+
+    private final ByteBuf byteBuf;
+
+    private final int sizeClass;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    /**
+     * Vert.x 缓冲区视图，与 byteBuf 共享内存
+     */
+    private Buffer buffer;
+
+    /**
+     * 泄漏检测引用，未开启时为 null
+     */
+    private BufferArena.LeakReference leakReference;
+
+    /**
+     * 首次归还的位置（泄漏检测开启时记录，用于报告重复归还）
+     */
+    private Throwable releaseSite;
+
+    PooledBuffer(BufferArena arena, ByteBuf byteBuf, int sizeClass) {
+        this.arena = arena;
+        this.byteBuf = byteBuf;
+        this.sizeClass = sizeClass;
+    }
+
+    /**
+     * Vert.x 缓冲区视图，写入超过容量时自动扩容
+     */
+    public Buffer buffer() {
+        if (buffer == null) {
+            buffer = BufferImpl.buffer(byteBuf);
+        }
+        return buffer;
+    }
+
+    /**
+     * 归还到缓冲区池
+     */
+    public void release() {
+        if (!released.compareAndSet(false, true)) {
+            System.err.println("缓冲区重复归还");
+            if (leakReference != null) {
+                leakReference.getAllocationSite().printStackTrace();
+                if (releaseSite != null) {
+                    releaseSite.printStackTrace();
+                }
+                new Throwable("重复归还位置").printStackTrace();
+            }
+            return;
+        }
+        if (arena.isLeakDetection()) {
+            releaseSite = new Throwable("首次归还位置");
+        }
+        arena.recycle(this);
+    }
+
+    ByteBuf getByteBuf() {
+        return byteBuf;
+    }
+
+    int getSizeClass() {
+        return sizeClass;
+    }
+
+    BufferArena.LeakReference getLeakReference() {
+        return leakReference;
+    }
+
+    void setLeakReference(BufferArena.LeakReference leakReference) {
+        this.leakReference = leakReference;
+    }
+}
@@ -0,0 +1,62 @@
+package com.easy.simple.rpc.buffer;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.OutputStream;
+
+/**
+ * 基于 BufferArena 的输出流，替代序列化器中的 ByteArrayOutputStream
+ * 写入的数据在池化缓冲区中累积，只在 toByteArray 时拷贝一次；
+ * 包装流（ObjectOutputStream、JsonGenerator 等）关闭时会关闭本流，因此 close 不归还缓冲区，用完后调用 release
+ */
+public class PooledOutputStream extends OutputStream {
+
+    private PooledBuffer pooledBuffer;
+
+    private final ByteBuf byteBuf;
+
+    public PooledOutputStream() {
+        this(BufferArena.get().allocate(0));
+    }
+
+    public PooledOutputStream(PooledBuffer pooledBuffer) {
+        this.pooledBuffer = pooledBuffer;
+        this.byteBuf = pooledBuffer.getByteBuf();
+    }
+
+    @Override
+    public void write(int b) {
+        byteBuf.writeByte(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        byteBuf.writeBytes(b, off, len);
+    }
+
+    /**
+     * 已写入的字节数
+     */
+    public int size() {
+        return byteBuf.readableBytes();
+    }
+
+    /**
+     * 拷贝已写入的数据
+     */
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[byteBuf.readableBytes()];
+        byteBuf.getBytes(byteBuf.readerIndex(), bytes);
+        return bytes;
+    }
+
+    /**
+     * 归还缓冲区，之后不能再读写
+     */
+    public void release() {
+        if (pooledBuffer != null) {
+            pooledBuffer.release();
+            pooledBuffer = null;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.easy.simple.rpc.fault.tolerant.TolerantStrategyType;
 import com.easy.simple.rpc.loadbalance.LoadBalancerType;
 import com.easy.simple.rpc.serializer.SerializerType;
 import com.easy.simple.rpc.server.ServerType;
+import com.easy.simple.rpc.shm.ShmWaitStrategy;
 import lombok.Data;
 
 /**
@@ -44,6 +45,108 @@ public class RpcConfig {
     // 连接超时时间（单位毫秒）
     private int connectionTimeout = 5000;
 
+    // Unix 域套接字路径（serverType 为 uds 时生效，为空则使用 /tmp/easy-rpc-{serverPort}.sock）
+    private String unixSocketPath;
+
+    // 共享内存根目录（serverType 为 shm 时生效）
+    private String shmDir = "/dev/shm";
+
+    // 共享内存环形缓冲区容量（字节，需为 2 的幂）
+    private int shmRingCapacity = 1 << 20;
+
+    // 共享内存等待策略（busySpin / park）
+    private String shmWaitStrategy = ShmWaitStrategy.PARK;
+
+    // 流式调用的额度窗口（消费者最多缓冲的元素个数）
+    private int streamWindowSize = 64;
+
+    // 客户端流式上传时每帧携带的元素个数
+    private int streamChunkSize = 16;
+
+    // 大消息分片大小（字节），超过该大小的帧拆分后与其他请求的帧交错发送，0 表示不分片
+    private int fragmentSize = 64 * 1024;
+
+    // 请求只携带方法编号和参数，提供者按编号查表（只对握手协商了方法编号的 TCP 连接生效，HTTP / 共享内存始终携带完整信息）；关闭后请求携带完整的服务名、方法名和参数类型
+    private boolean methodIdEnabled = true;
+
+    // 连接级字符串字典容量（条目数），重复出现的字符串只发送一次，之后发送槽位引用；0 表示不启用，需双方都启用且序列化器支持（jdk / kryo）
+    private int stringDictionarySize = 0;
+
+    // Fory 序列化器是否跟踪引用（对象图中有共享或循环引用时开启），需双方一致
+    private boolean foryReferenceTracking = false;
+
+    // Fory 序列化器是否只允许服务接口中注册的类型和 JDK 类型，拒绝反序列化其他类
+    private boolean foryRegistrationRequired = false;
+
+    // TCP 连接固定使用 serializerType（提供者不支持时建立连接失败）；关闭时握手选择双方都支持的最快的序列化器
+    private boolean serializerPinned = false;
+
+    // 未用 @RpcSerializer 指定序列化器的方法按参数和返回值类型自动选择（Protobuf 消息使用 protobuf），否则使用连接协商的序列化器
+    private boolean serializerAutoSelect = true;
+
+    // 异常响应附带提供者端堆栈的采样比例（0~1），0 表示只发送错误码、异常类型和信息
+    private double errorStackTraceSampleRate = 0;
+
+    // 提供者在工作线程排队和处理中的请求上限，超过时直接拒绝新请求（不反序列化），0 表示不限制
+    private int maxPendingRequests = 0;
+
+    // 请求在提供者排队超过该时间（毫秒，消费者已超时）时不再反序列化和调用，0 表示不限制
+    private long requestQueueTimeout = 5000;
+
+    // 编解码缓冲区池使用堆外内存（写出时 Netty 不再拷贝到堆外）
+    private boolean bufferArenaDirect = false;
+
+    // 缓冲区泄漏检测：记录每次分配的位置，报告未归还就被回收和重复归还的缓冲区（有开销，调试时开启）
+    private boolean bufferLeakDetection = false;
+
+    // 对象回收：请求结束后回收协议消息、消息头和响应对象复用（开启后不能在请求结束后继续持有这些对象）
+    private boolean objectRecycling = false;
+
+    // 统计每次调用的内存分配量（AllocationMetric，按线程分配字节数，有少量开销）
+    private boolean allocationMetricEnabled = false;
+
+    // 熔断：按提供者节点统计失败率和慢调用率，超过阈值的节点暂时不参与负载均衡
+    private boolean circuitBreakerEnabled = false;
+
+    // 熔断统计的滑动窗口（毫秒，分为 10 个时间桶）
+    private long circuitBreakerWindow = 10000;
+
+    // 窗口内调用数达到该值后才判断是否熔断
+    private int circuitBreakerMinimumCalls = 20;
+
+    // 熔断的失败率阈值（百分比，调用异常、超时和提供者拒绝计为失败）
+    private int circuitBreakerFailureRate = 50;
+
+    // 熔断的慢调用率阈值（百分比）
+    private int circuitBreakerSlowCallRate = 100;
+
+    // 慢调用时间（毫秒）
+    private long circuitBreakerSlowCallThreshold = 3000;
+
+    // 熔断后经过该时间（毫秒）进入半开，放行试探调用
+    private long circuitBreakerOpenDuration = 5000;
+
+    // 半开状态放行的试探调用数，全部成功后恢复
+    private int circuitBreakerHalfOpenCalls = 3;
+
+    // 一次调用的截止时间（毫秒，从发起调用开始计算），故障转移的所有尝试不超过该时间；流式调用等待下一个元素、客户端流式上传等待额度和响应也不超过该时间
+    private long callTimeout = 5000;
+
+    // 故障转移最多尝试的节点数（含第一次调用的节点）
+    private int failOverMaxAttempts = 3;
+
+    // 故障转移时第一次调用为其他节点预留的时间（毫秒），第一次调用使用剩余时间减去该值（最多预留一半）；没有其他可用节点时不预留
+    private long failOverReserveTimeout = 200;
+
+    // failBack 降级链的步骤（逗号分隔，依次执行），接口或方法上的 @RpcFallback 优先
+    private String failBackSteps = "failOver,backup,lastGood,default";
+
+    // failBack 降级链每个步骤的时间预算（毫秒）
+    private long failBackStepTimeout = 1000;
+
+    // failBack 降级链缓存的最近成功结果的有效期（毫秒）
+    private long failBackLastGoodTtl = 60000;
+
 
 
     // 服务器
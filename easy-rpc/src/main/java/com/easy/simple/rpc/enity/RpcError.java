@@ -0,0 +1,122 @@
+package com.easy.simple.rpc.enity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * 响应中的错误信息（代替完整的异常对象传输）
+ * 只携带错误码、异常类型名和信息，堆栈按采样附带
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RpcError implements Serializable {
+
+    /**
+     * 附带的堆栈最多保留的帧数
+     */
+    private static final int MAX_STACK_DEPTH = 32;
+
+    /**
+     * 错误码，见 RpcErrorCodeEnum
+     */
+    private int code;
+
+    /**
+     * 异常类型名
+     */
+    private String type;
+
+    /**
+     * 异常信息
+     */
+    private String message;
+
+    /**
+     * 提供者端的堆栈（未采样时为 null）
+     */
+    private String stackTrace;
+
+    /**
+     * 由异常构造错误信息，服务方法抛出的异常（InvocationTargetException）取其原始异常
+     *
+     * @param exception      异常
+     * @param withStackTrace 是否附带堆栈
+     * @return 错误信息
+     */
+    public static RpcError of(Exception exception, boolean withStackTrace) {
+        Throwable cause = exception;
+        RpcErrorCodeEnum code = RpcErrorCodeEnum.INTERNAL_ERROR;
+        if (exception instanceof InvocationTargetException && exception.getCause() != null) {
+            cause = exception.getCause();
+            code = RpcErrorCodeEnum.SERVICE_ERROR;
+        } else if (exception instanceof NoSuchMethodException || exception instanceof ClassNotFoundException) {
+            code = RpcErrorCodeEnum.NOT_FOUND;
+        }
+        RpcError error = new RpcError(code.getCode(), cause.getClass().getName(), cause.getMessage(), null);
+        if (withStackTrace) {
+            StringBuilder stackTrace = new StringBuilder();
+            StackTraceElement[] elements = cause.getStackTrace();
+            for (int i = 0; i < Math.min(elements.length, MAX_STACK_DEPTH); i++) {
+                stackTrace.append("\tat ").append(elements[i]).append('\n');
+            }
+            if (elements.length > MAX_STACK_DEPTH) {
+                stackTrace.append("\t... ").append(elements.length - MAX_STACK_DEPTH).append(" more\n");
+            }
+            error.setStackTrace(stackTrace.toString());
+        }
+        return error;
+    }
+
+    /**
+     * 按类型名重建异常：优先使用 (String) 构造器，无法重建时使用 RuntimeException；
+     * 附带了提供者端堆栈时作为被抑制的异常挂在重建的异常上
+     *
+     * @return 异常
+     */
+    public Exception toException() {
+        Exception exception = null;
+        if (type != null) {
+            try {
+                // 类型名来自对端：只加载不初始化，确认是异常类型后才调用构造器
+                Class<?> exceptionClass = Class.forName(type, false, classLoader());
+                if (Exception.class.isAssignableFrom(exceptionClass)) {
+                    exception = (Exception) exceptionClass.getConstructor(String.class).newInstance(message);
+                }
+            } catch (Exception | LinkageError e) {
+                // 使用 RuntimeException 保留信息
+            }
+        }
+        if (exception == null) {
+            exception = new RuntimeException(type == null ? message : type + ": " + message);
+        }
+        if (stackTrace != null) {
+            exception.addSuppressed(new RemoteStackTrace(stackTrace));
+        }
+        return exception;
+    }
+
+    private static ClassLoader classLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : RpcError.class.getClassLoader();
+    }
+
+    /**
+     * 提供者端的堆栈（只用于打印）
+     */
+    private static class RemoteStackTrace extends RuntimeException {
+
+        RemoteStackTrace(String stackTrace) {
+            super("提供者端堆栈:\n" + stackTrace);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
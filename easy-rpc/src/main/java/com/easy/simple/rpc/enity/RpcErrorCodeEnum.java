@@ -0,0 +1,39 @@
+package com.easy.simple.rpc.enity;
+
+import lombok.Getter;
+
+/**
+ * 错误码枚举
+ */
+@Getter
+public enum RpcErrorCodeEnum {
+
+    SERVICE_ERROR(1, "服务方法抛出异常"),
+    NOT_FOUND(2, "服务或方法不存在"),
+    INTERNAL_ERROR(3, "框架内部错误"),
+    OVERLOADED(4, "提供者过载，请求未处理"),
+    QUEUE_TIMEOUT(5, "请求排队超时，消费者已放弃等待，请求未处理");
+
+    private final int code;
+    private final String desc;
+
+    RpcErrorCodeEnum(int code, String desc) {
+        this.code = code;
+        this.desc = desc;
+    }
+
+    /**
+     * 根据错误码获取枚举
+     *
+     * @param code 错误码
+     * @return 枚举，未知错误码为 null
+     */
+    public static RpcErrorCodeEnum getEnumByCode(int code) {
+        for (RpcErrorCodeEnum anEnum : RpcErrorCodeEnum.values()) {
+            if (anEnum.code == code) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -42,4 +42,9 @@ public class RpcRequest implements Serializable {
      */
     private Object[] args;
 
+    /**
+     * 方法编号（由方法签名计算，见 MethodDictionary），非 0 时请求可省略服务名、方法名和参数类型
+     */
+    private long methodId;
+
 }
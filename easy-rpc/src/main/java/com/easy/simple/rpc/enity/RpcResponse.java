@@ -3,6 +3,7 @@ package com.easy.simple.rpc.enity;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import com.easy.simple.rpc.serializer.Serializer;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
@@ -22,7 +23,7 @@ public class RpcResponse implements Serializable {
     private Object data;
 
     /**
-     * 响应数据类型（预留）
+     * 响应数据类型（预留），方法签名已确定返回类型时不设置
      */
     private Class<?> dataType;
 
@@ -32,8 +33,36 @@ public class RpcResponse implements Serializable {
     private String message;
 
     /**
-     * 异常信息
+     * 错误信息（错误码、异常类型、信息和采样的堆栈），代替异常对象传输
      */
-    private Exception exception;
+    private RpcError error;
+
+    /**
+     * 异常（只在本端使用，不参与序列化，接收端按 error 重建）
+     */
+    private transient Exception exception;
+
+    /**
+     * 数据按运行时类型绑定、可能丢失了泛型参数时为解码的序列化器（只在本端使用），消费者按方法的泛型返回类型转换
+     */
+    private transient Serializer dataConverter;
+
+    /**
+     * 获取异常，接收到的响应按错误信息重建
+     */
+    public Exception getException() {
+        if (exception == null && error != null) {
+            exception = error.toException();
+        }
+        return exception;
+    }
+
+    /**
+     * 设置异常，同时生成不带堆栈的错误信息
+     */
+    public void setException(Exception exception) {
+        this.exception = exception;
+        this.error = exception == null ? null : RpcError.of(exception, false);
+    }
 
 }
@@ -31,6 +31,21 @@ public class ServiceMetaInfo {
      */
     private Integer servicePort;
 
+    /**
+     * 服务所在机器的主机名（用于判断消费者与提供者是否同机）
+     */
+    private String serviceHostName;
+
+    /**
+     * Unix 域套接字路径（提供者以 uds 方式启动时发布，同机消费者优先使用）
+     */
+    private String serviceSocketPath;
+
+    /**
+     * 共享内存目录（提供者以 shm 方式启动时发布）
+     */
+    private String serviceShmPath;
+
     /**
      * 服务分组（暂未实现）
      */
@@ -0,0 +1,262 @@
+package com.easy.simple.rpc.fault.circuit;
+
+import com.easy.simple.rpc.config.RpcConfig;
+import com.easy.simple.rpc.enity.RpcError;
+import com.easy.simple.rpc.enity.RpcErrorCodeEnum;
+import com.easy.simple.rpc.enity.RpcResponse;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 提供者节点的熔断器
+ * 关闭状态下按时间桶组成的滑动窗口统计调用数、失败数和慢调用数，失败率或慢调用率超过阈值时打开；
+ * 打开后节点不参与负载均衡，经过 openDuration 后半开，放行 halfOpenCalls 个试探调用，全部成功则关闭，任一失败重新打开。
+ * 状态和计数都是原子变量，调用路径上不加锁（时间桶切换时并发的少量计数可能丢失，统计是近似的）
+ */
+public class CircuitBreaker {
+
+    /**
+     * 滑动窗口的时间桶个数
+     */
+    private static final int BUCKET_COUNT = 10;
+
+    /**
+     * 节点地址
+     */
+    @Getter
+    private final String address;
+
+    private final long bucketNanos;
+
+    /**
+     * 时间桶编号的起点（System.nanoTime 可能为负数）
+     */
+    private final long startNanos = System.nanoTime();
+
+    private final int minimumCalls;
+
+    private final int failureRate;
+
+    private final int slowCallRate;
+
+    private final long slowCallNanos;
+
+    private final long openNanos;
+
+    private final int halfOpenCalls;
+
+    private final Bucket[] buckets = new Bucket[BUCKET_COUNT];
+
+    private final AtomicReference<CircuitBreakerStateEnum> state = new AtomicReference<>(CircuitBreakerStateEnum.CLOSED);
+
+    /**
+     * 最近一次打开的时间（System.nanoTime）
+     */
+    private volatile long openedAt;
+
+    /**
+     * 半开状态剩余的试探调用数
+     */
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+
+    /**
+     * 半开状态成功的试探调用数
+     */
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+
+    public CircuitBreaker(String address, RpcConfig rpcConfig) {
+        this.address = address;
+        this.bucketNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(rpcConfig.getCircuitBreakerWindow()) / BUCKET_COUNT);
+        this.minimumCalls = Math.max(1, rpcConfig.getCircuitBreakerMinimumCalls());
+        this.failureRate = rpcConfig.getCircuitBreakerFailureRate();
+        this.slowCallRate = rpcConfig.getCircuitBreakerSlowCallRate();
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(rpcConfig.getCircuitBreakerSlowCallThreshold());
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(rpcConfig.getCircuitBreakerOpenDuration());
+        this.halfOpenCalls = Math.max(1, rpcConfig.getCircuitBreakerHalfOpenCalls());
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    /**
+     * 当前状态
+     */
+    public CircuitBreakerStateEnum getState() {
+        return state.get();
+    }
+
+    /**
+     * 节点能否参与负载均衡（不占用半开的试探名额）
+     */
+    public boolean isCallPermitted() {
+        switch (state.get()) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return System.nanoTime() - openedAt >= openNanos;
+            default:
+                return halfOpenPermits.get() > 0;
+        }
+    }
+
+    /**
+     * 调用前申请放行，打开状态到期时转为半开并占用一个试探名额
+     *
+     * @return 是否放行
+     */
+    public boolean tryAcquire() {
+        CircuitBreakerStateEnum current = state.get();
+        if (current == CircuitBreakerStateEnum.CLOSED) {
+            return true;
+        }
+        if (current == CircuitBreakerStateEnum.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            if (state.compareAndSet(CircuitBreakerStateEnum.OPEN, CircuitBreakerStateEnum.HALF_OPEN)) {
+                halfOpenSuccesses.set(0);
+                halfOpenPermits.set(halfOpenCalls - 1);
+                return true;
+            }
+        }
+        // 半开：名额用完后不再放行，直到试探结果出来
+        while (true) {
+            int permits = halfOpenPermits.get();
+            if (permits <= 0 || state.get() != CircuitBreakerStateEnum.HALF_OPEN) {
+                return false;
+            }
+            if (halfOpenPermits.compareAndSet(permits, permits - 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 记录一次调用的结果
+     *
+     * @param durationNanos 调用耗时
+     * @param failure       是否失败（调用异常、超时或提供者拒绝）
+     */
+    public void onResult(long durationNanos, boolean failure) {
+        boolean slow = durationNanos >= slowCallNanos;
+        CircuitBreakerStateEnum current = state.get();
+        if (current == CircuitBreakerStateEnum.HALF_OPEN) {
+            if (failure || slow) {
+                open(CircuitBreakerStateEnum.HALF_OPEN);
+            } else if (halfOpenSuccesses.incrementAndGet() >= halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        if (current == CircuitBreakerStateEnum.OPEN) {
+            // 打开之前发出的调用
+            return;
+        }
+        long now = System.nanoTime();
+        Bucket bucket = currentBucket(now);
+        bucket.calls.incrementAndGet();
+        if (failure) {
+            bucket.failures.incrementAndGet();
+        }
+        if (slow) {
+            bucket.slowCalls.incrementAndGet();
+        }
+        // 只有失败和慢调用可能使熔断器打开，成功的调用不汇总窗口
+        if ((failure || slow) && exceedsThreshold(now)) {
+            open(CircuitBreakerStateEnum.CLOSED);
+        }
+    }
+
+    /**
+     * 响应是否说明节点不可用（提供者过载或排队超时拒绝；服务方法抛出的异常不计入）
+     */
+    public static boolean isFailure(RpcResponse rpcResponse) {
+        RpcError error = rpcResponse == null ? null : rpcResponse.getError();
+        return error != null && (error.getCode() == RpcErrorCodeEnum.OVERLOADED.getCode()
+                || error.getCode() == RpcErrorCodeEnum.QUEUE_TIMEOUT.getCode());
+    }
+
+    @Override
+    public String toString() {
+        return address + " " + state.get().getValue();
+    }
+
+    private boolean exceedsThreshold(long now) {
+        long epoch = (now - startNanos) / bucketNanos;
+        int calls = 0;
+        int failures = 0;
+        int slowCalls = 0;
+        for (Bucket bucket : buckets) {
+            if (epoch - bucket.epoch.get() < BUCKET_COUNT) {
+                calls += bucket.calls.get();
+                failures += bucket.failures.get();
+                slowCalls += bucket.slowCalls.get();
+            }
+        }
+        if (calls < minimumCalls) {
+            return false;
+        }
+        return (long) failures * 100 >= (long) calls * failureRate
+                || (long) slowCalls * 100 >= (long) calls * slowCallRate;
+    }
+
+    private Bucket currentBucket(long now) {
+        long epoch = (now - startNanos) / bucketNanos;
+        Bucket bucket = buckets[(int) (epoch % BUCKET_COUNT)];
+        long bucketEpoch = bucket.epoch.get();
+        // 桶属于更早的时间段时由一个线程清零
+        if (bucketEpoch != epoch && bucket.epoch.compareAndSet(bucketEpoch, epoch)) {
+            bucket.reset();
+        }
+        return bucket;
+    }
+
+    private void open(CircuitBreakerStateEnum from) {
+        openedAt = System.nanoTime();
+        if (state.compareAndSet(from, CircuitBreakerStateEnum.OPEN)) {
+            halfOpenPermits.set(0);
+            if (from == CircuitBreakerStateEnum.CLOSED) {
+                CircuitBreakerRegistry.onOpen();
+            }
+            System.err.println("节点熔断: " + address);
+        }
+    }
+
+    private void close() {
+        if (state.compareAndSet(CircuitBreakerStateEnum.HALF_OPEN, CircuitBreakerStateEnum.CLOSED)) {
+            for (Bucket bucket : buckets) {
+                bucket.epoch.set(-1);
+                bucket.reset();
+            }
+            CircuitBreakerRegistry.onClose();
+            System.out.println("节点恢复: " + address);
+        }
+    }
+
+    /**
+     * 滑动窗口中的一个时间桶
+     */
+    private static class Bucket {
+
+        /**
+         * 桶对应的时间段编号（从熔断器创建起按桶时长计）
+         */
+        private final AtomicLong epoch = new AtomicLong(-1);
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private final AtomicInteger slowCalls = new AtomicInteger();
+
+        private void reset() {
+            calls.set(0);
+            failures.set(0);
+            slowCalls.set(0);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.easy.simple.rpc.fault.circuit;
+
+import com.easy.simple.rpc.RpcApplication;
+import com.easy.simple.rpc.enity.ServiceMetaInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 熔断器注册表（消费端使用，按提供者节点地址共享，节点上的所有服务共用一个熔断器）
+ */
+public class CircuitBreakerRegistry {
+
+    /**
+     * 节点地址 => 熔断器
+     */
+    private static final Map<String, CircuitBreaker> CIRCUIT_BREAKERS = new ConcurrentHashMap<>();
+
+    /**
+     * 未关闭（打开或半开）的熔断器个数，为 0 时过滤节点不查表
+     */
+    private static final AtomicInteger NOT_CLOSED_COUNT = new AtomicInteger();
+
+    /**
+     * 是否开启熔断
+     */
+    public static boolean isEnabled() {
+        return RpcApplication.getRpcConfig().isCircuitBreakerEnabled();
+    }
+
+    /**
+     * 获取节点的熔断器
+     *
+     * @param serviceMetaInfo 节点
+     * @return 熔断器，未开启熔断时为 null
+     */
+    public static CircuitBreaker get(ServiceMetaInfo serviceMetaInfo) {
+        if (!isEnabled()) {
+            return null;
+        }
+        return CIRCUIT_BREAKERS.computeIfAbsent(addressOf(serviceMetaInfo),
+                address -> new CircuitBreaker(address, RpcApplication.getRpcConfig()));
+    }
+
+    /**
+     * 去掉熔断器打开的节点（负载均衡前调用）
+     *
+     * @param serviceMetaInfoList 服务发现得到的节点
+     * @return 可以参与负载均衡的节点，没有节点熔断时为原列表
+     */
+    public static List<ServiceMetaInfo> filter(List<ServiceMetaInfo> serviceMetaInfoList) {
+        if (NOT_CLOSED_COUNT.get() == 0 || !isEnabled()) {
+            return serviceMetaInfoList;
+        }
+        List<ServiceMetaInfo> permitted = new ArrayList<>(serviceMetaInfoList.size());
+        for (ServiceMetaInfo serviceMetaInfo : serviceMetaInfoList) {
+            CircuitBreaker circuitBreaker = CIRCUIT_BREAKERS.get(addressOf(serviceMetaInfo));
+            if (circuitBreaker == null || circuitBreaker.isCallPermitted()) {
+                permitted.add(serviceMetaInfo);
+            }
+        }
+        return permitted;
+    }
+
+    /**
+     * 所有节点的熔断器（用于监控）
+     */
+    public static Map<String, CircuitBreaker> getCircuitBreakers() {
+        return CIRCUIT_BREAKERS;
+    }
+
+    static void onOpen() {
+        NOT_CLOSED_COUNT.incrementAndGet();
+    }
+
+    static void onClose() {
+        NOT_CLOSED_COUNT.decrementAndGet();
+    }
+
+    private static String addressOf(ServiceMetaInfo serviceMetaInfo) {
+        return serviceMetaInfo.getServiceHost() + ":" + serviceMetaInfo.getServicePort();
+    }
+}
@@ -0,0 +1,22 @@
+package com.easy.simple.rpc.fault.circuit;
+
+import lombok.Getter;
+
+/**
+ * 熔断器状态枚举
+ */
+@Getter
+public enum CircuitBreakerStateEnum {
+
+    CLOSED("closed", "关闭，正常调用"),
+    OPEN("open", "打开，节点不参与负载均衡"),
+    HALF_OPEN("halfOpen", "半开，放行少量试探调用");
+
+    private final String value;
+    private final String desc;
+
+    CircuitBreakerStateEnum(String value, String desc) {
+        this.value = value;
+        this.desc = desc;
+    }
+}
@@ -19,4 +19,16 @@ public interface RetryStrategy {
      * @throws Exception 如果重试失败
      */
     RpcResponse doRetry(Callable<RpcResponse> callable) throws Exception;
+
+    /**
+     * 重试，到截止时间后不再重试
+     *
+     * @param callable 可调用的任务
+     * @param deadline 调用的截止时间（System.nanoTime）
+     * @return 重试后的 RPC 响应
+     * @throws Exception 如果重试失败
+     */
+    default RpcResponse doRetry(Callable<RpcResponse> callable, long deadline) throws Exception {
+        return doRetry(callable);
+    }
 }
@@ -24,10 +24,29 @@ public class FixedIntervalRetryStrategy implements RetryStrategy {
      * @throws RetryException
      */
     public RpcResponse doRetry(Callable<RpcResponse> callable) throws ExecutionException, RetryException {
+        return retry(callable, StopStrategies.stopAfterAttempt(3));// 最多重试3次
+    }
+
+    /**
+     * 重试，等待后的下一次尝试超过截止时间时不再重试
+     *
+     * @param callable 可调用的任务
+     * @param deadline 调用的截止时间（System.nanoTime）
+     * @return 重试后的 RPC 响应
+     * @throws ExecutionException
+     * @throws RetryException
+     */
+    @Override
+    public RpcResponse doRetry(Callable<RpcResponse> callable, long deadline) throws ExecutionException, RetryException {
+        return retry(callable, attempt -> attempt.getAttemptNumber() >= 3
+                || System.nanoTime() + TimeUnit.SECONDS.toNanos(3L) >= deadline);
+    }
+
+    private RpcResponse retry(Callable<RpcResponse> callable, StopStrategy stopStrategy) throws ExecutionException, RetryException {
         Retryer<RpcResponse> retryer = RetryerBuilder.<RpcResponse>newBuilder()
                 .retryIfExceptionOfType(Exception.class)
                 .withWaitStrategy(WaitStrategies.fixedWait(3L, TimeUnit.SECONDS))// 固定时间间隔
-                .withStopStrategy(StopStrategies.stopAfterAttempt(3))// 最多重试3次
+                .withStopStrategy(stopStrategy)
                 .withRetryListener(new RetryListener() {
                     @Override
                     public <V> void onRetry(Attempt<V> attempt) {
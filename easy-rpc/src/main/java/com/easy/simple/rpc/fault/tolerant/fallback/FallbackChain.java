@@ -0,0 +1,227 @@
+package com.easy.simple.rpc.fault.tolerant.fallback;
+
+import com.easy.simple.rpc.annotation.RpcFallback;
+import com.easy.simple.rpc.config.RpcConfig;
+import lombok.Getter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 方法的降级链（创建代理时按方法构建一次，failBack 容错策略按步骤执行）
+ * 同时保存方法最近一次成功的结果（按参数区分），供 lastGood 步骤使用；
+ * 参数按 equals / hashCode 比较（数组按内容比较），没有实现 equals / hashCode 的参数对象每次都不会命中
+ */
+public class FallbackChain {
+
+    /**
+     * 每个方法最多保存的最近成功结果数，超过时淘汰任意一个
+     */
+    private static final int LAST_GOOD_CAPACITY = 1024;
+
+    /**
+     * 降级步骤（按执行顺序）
+     */
+    @Getter
+    private final List<FallbackStepEnum> steps;
+
+    /**
+     * 每个步骤的时间预算（毫秒）
+     */
+    @Getter
+    private final long stepTimeout;
+
+    /**
+     * 备用服务名
+     */
+    @Getter
+    private final String backupServiceName;
+
+    private final long lastGoodTtlNanos;
+
+    /**
+     * 本地降级实现，没有时为 null
+     */
+    private final Object fallback;
+
+    private final Method method;
+
+    /**
+     * 参数 => 最近一次成功的结果
+     */
+    private final Map<ArgsKey, LastGood> lastGoods = new ConcurrentHashMap<>();
+
+    private FallbackChain(List<FallbackStepEnum> steps, long stepTimeout, String backupServiceName,
+                          long lastGoodTtl, Object fallback, Method method) {
+        this.steps = steps;
+        this.stepTimeout = stepTimeout;
+        this.backupServiceName = backupServiceName;
+        this.lastGoodTtlNanos = TimeUnit.MILLISECONDS.toNanos(lastGoodTtl);
+        this.fallback = fallback;
+        this.method = method;
+    }
+
+    /**
+     * 构建方法的降级链，方法上的 @RpcFallback 优先，其次是接口上的，都没有时使用配置
+     *
+     * @param method    服务接口方法
+     * @param rpcConfig 配置
+     * @return 降级链
+     */
+    public static FallbackChain of(Method method, RpcConfig rpcConfig) {
+        RpcFallback annotation = method.getAnnotation(RpcFallback.class);
+        if (annotation == null) {
+            annotation = method.getDeclaringClass().getAnnotation(RpcFallback.class);
+        }
+        String serviceName = method.getDeclaringClass().getName();
+        if (annotation == null) {
+            return of(serviceName, rpcConfig);
+        }
+        Object fallback = null;
+        if (annotation.fallback() != void.class) {
+            if (!method.getDeclaringClass().isAssignableFrom(annotation.fallback())) {
+                throw new IllegalArgumentException("降级实现 " + annotation.fallback().getName() + " 未实现服务接口 " + serviceName);
+            }
+            try {
+                fallback = annotation.fallback().getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("无法创建降级实现: " + annotation.fallback().getName(), e);
+            }
+        }
+        String backupServiceName = annotation.backupService().isEmpty()
+                ? serviceName + ".backup" : annotation.backupService();
+        return new FallbackChain(parseSteps(annotation.steps()), annotation.stepTimeout(), backupServiceName,
+                annotation.lastGoodTtl(), fallback, method);
+    }
+
+    /**
+     * 按配置构建降级链（没有本地降级实现）
+     *
+     * @param serviceName 服务名
+     * @param rpcConfig   配置
+     * @return 降级链
+     */
+    public static FallbackChain of(String serviceName, RpcConfig rpcConfig) {
+        return new FallbackChain(parseSteps(rpcConfig.getFailBackSteps().split(",")),
+                rpcConfig.getFailBackStepTimeout(), serviceName + ".backup",
+                rpcConfig.getFailBackLastGoodTtl(), null, null);
+    }
+
+    /**
+     * 记录一次成功调用的结果
+     *
+     * @param args 参数
+     * @param data 结果
+     */
+    public void recordSuccess(Object[] args, Object data) {
+        if (!steps.contains(FallbackStepEnum.LAST_GOOD)) {
+            return;
+        }
+        ArgsKey key = new ArgsKey(args);
+        if (lastGoods.size() >= LAST_GOOD_CAPACITY && !lastGoods.containsKey(key)) {
+            Iterator<ArgsKey> iterator = lastGoods.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        lastGoods.put(key, new LastGood(data, System.nanoTime()));
+    }
+
+    /**
+     * 获取未过期的最近成功结果
+     *
+     * @param args 参数
+     * @return 结果，没有或已过期时为 null
+     */
+    public LastGood getLastGood(Object[] args) {
+        LastGood lastGood = lastGoods.get(new ArgsKey(args));
+        if (lastGood == null || System.nanoTime() - lastGood.recordedAt > lastGoodTtlNanos) {
+            return null;
+        }
+        return lastGood;
+    }
+
+    /**
+     * 是否有本地降级实现
+     */
+    public boolean hasFallback() {
+        return fallback != null;
+    }
+
+    /**
+     * 调用本地降级实现的同名方法
+     *
+     * @param args 参数
+     * @return 结果
+     */
+    public Object invokeFallback(Object[] args) throws Exception {
+        try {
+            return method.invoke(fallback, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private static List<FallbackStepEnum> parseSteps(String[] values) {
+        List<FallbackStepEnum> steps = new ArrayList<>(values.length);
+        for (String value : values) {
+            FallbackStepEnum step = FallbackStepEnum.getEnumByValue(value.trim());
+            if (step == null) {
+                throw new IllegalArgumentException("未知的降级步骤: " + value);
+            }
+            steps.add(step);
+        }
+        return Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * 最近成功结果的键：参数按内容比较（含数组参数）
+     */
+    private static class ArgsKey {
+
+        private final Object[] args;
+
+        private final int hash;
+
+        private ArgsKey(Object[] args) {
+            this.args = args == null ? new Object[0] : args.clone();
+            this.hash = Arrays.deepHashCode(this.args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ArgsKey && Arrays.deepEquals(args, ((ArgsKey) o).args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * 最近一次成功的结果（结果本身可能为 null）
+     */
+    @Getter
+    public static class LastGood {
+
+        private final Object data;
+
+        private final long recordedAt;
+
+        private LastGood(Object data, long recordedAt) {
+            this.data = data;
+            this.recordedAt = recordedAt;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.easy.simple.rpc.fault.tolerant.fallback;
+
+import lombok.Getter;
+
+/**
+ * 降级链步骤枚举
+ */
+@Getter
+public enum FallbackStepEnum {
+
+    FAIL_OVER("failOver", "转移到同服务的其他节点", true),
+    BACKUP("backup", "调用备用服务", true),
+    LAST_GOOD("lastGood", "返回最近一次成功的结果", false),
+    DEFAULT("default", "调用本地降级实现", false);
+
+    private final String value;
+    private final String desc;
+
+    /**
+     * 是否远程调用（在降级线程池执行，受时间预算限制）
+     */
+    private final boolean remote;
+
+    FallbackStepEnum(String value, String desc, boolean remote) {
+        this.value = value;
+        this.desc = desc;
+        this.remote = remote;
+    }
+
+    /**
+     * 根据值获取枚举
+     *
+     * @param value 值
+     * @return 枚举，未知值为 null
+     */
+    public static FallbackStepEnum getEnumByValue(String value) {
+        for (FallbackStepEnum anEnum : FallbackStepEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
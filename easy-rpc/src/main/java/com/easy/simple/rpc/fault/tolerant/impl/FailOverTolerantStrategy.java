@@ -5,125 +5,90 @@ import com.easy.simple.rpc.config.RpcConfig;
 import com.easy.simple.rpc.enity.RpcRequest;
 import com.easy.simple.rpc.enity.RpcResponse;
 import com.easy.simple.rpc.enity.ServiceMetaInfo;
+import com.easy.simple.rpc.fault.circuit.CircuitBreakerRegistry;
 import com.easy.simple.rpc.fault.tolerant.TolerantStrategy;
 import com.easy.simple.rpc.loadbalance.LoadBalancer;
 import com.easy.simple.rpc.loadbalance.LoadBalancerFactory;
-import com.easy.simple.rpc.registry.Registry;
-import com.easy.simple.rpc.registry.RegistryFactory;
+import com.easy.simple.rpc.proxy.RequestSender;
+import com.easy.simple.rpc.serializer.Serializer;
+import com.easy.simple.rpc.serializer.SerializerType;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 转移到其他服务节点 - 容错策略
- * 当主服务节点失败时，自动转移到其他可用节点
+ * 当主服务节点失败时，由负载均衡器在未尝试过的节点中选择一个重新发送请求，
+ * 尝试的节点数不超过 failOverMaxAttempts，所有尝试不超过调用的截止时间，剩余时间平分给剩余的尝试
  */
 @Slf4j
 public class FailOverTolerantStrategy implements TolerantStrategy {
 
     @Override
+    @SuppressWarnings("unchecked")
     public RpcResponse doTolerant(Map<String, Object> context, Exception e) {
-        log.warn("主服务节点失败，开始转移到其他节点，异常信息: {}", e.getMessage());
-        
-        // 从上下文中获取必要的信息
-        if (context == null) {
-            log.error("容错上下文为空，无法进行节点转移");
-            return createErrorResponse("容错上下文为空");
+        if (context == null || !(context.get("rpcRequest") instanceof RpcRequest)) {
+            throw new RuntimeException("容错上下文缺少请求信息，无法进行节点转移", e);
         }
-        
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
         RpcRequest rpcRequest = (RpcRequest) context.get("rpcRequest");
-        if (rpcRequest == null) {
-            log.error("RPC请求信息为空，无法进行节点转移");
-            return createErrorResponse("RPC请求信息为空");
-        }
-        
-        // 获取其他可用节点
-        List<ServiceMetaInfo> availableNodes = findAvailableNodes(rpcRequest, context);
-        if (availableNodes.isEmpty()) {
-            log.warn("暂时没有其他可用节点，返回空响应");
-            return null; // 返回null表示暂时没有可用节点
+        List<ServiceMetaInfo> serviceMetaInfoList = (List<ServiceMetaInfo>) context.getOrDefault("serviceMetaInfoList", Collections.emptyList());
+        Serializer serializer = (Serializer) context.get("serializer");
+        SerializerType preferredSerializer = (SerializerType) context.get("preferredSerializer");
+        Map<String, Object> loadBalanceParams = (Map<String, Object>) context.getOrDefault("loadBalanceParams", context);
+        LoadBalancer loadBalancer = (LoadBalancer) context.get("loadBalancer");
+        if (loadBalancer == null) {
+            loadBalancer = LoadBalancerFactory.getInstance(rpcConfig.getLoadBalancerType());
         }
-        
-        // 使用负载均衡选择节点
-        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
-        LoadBalancer loadBalancer = LoadBalancerFactory.getInstance(rpcConfig.getLoadBalancerType());
-        ServiceMetaInfo selectedNode = loadBalancer.select(context, availableNodes);
-        
-        if (selectedNode == null) {
-            log.warn("负载均衡器未选择到可用节点");
-            return null; // 返回null表示暂时没有可用节点
+        Long deadline = (Long) context.get("deadline");
+        if (deadline == null) {
+            deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(rpcConfig.getCallTimeout());
         }
-        
-        log.info("转移到节点: {}", selectedNode.getServiceAddress());
-        
-        // 调用选中的节点
-        return callServiceNode(rpcRequest, selectedNode);
-    }
-    
-    /**
-     * 查找可用节点
-     */
-    private List<ServiceMetaInfo> findAvailableNodes(RpcRequest rpcRequest, Map<String, Object> context) {
-        Registry registry = RegistryFactory.getInstance(RpcApplication.getRpcConfig().getRegistryConfig().getRegistry());
-        List<ServiceMetaInfo> availableNodes = new ArrayList<>();
-        
-        // 查找同服务的所有实例
-        ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
-        serviceMetaInfo.setServiceName(rpcRequest.getServiceName());
-        serviceMetaInfo.setServiceVersion(rpcRequest.getServiceVersion());
-        
-        List<ServiceMetaInfo> allNodes = registry.serviceDiscovery(serviceMetaInfo.getServiceKey());
-        
-        // 排除当前失败的服务节点
+
+        // 已尝试过的节点不再选择
+        Set<String> triedAddresses = new HashSet<>();
         ServiceMetaInfo failedNode = (ServiceMetaInfo) context.get("selectedServiceMetaInfo");
-        if (failedNode != null && allNodes.size() > 1) {
-            allNodes.removeIf(node -> 
-                node.getServiceAddress().equals(failedNode.getServiceAddress()));
-            log.info("排除失败节点: {}，剩余可用节点数量: {}", failedNode.getServiceAddress(), allNodes.size());
+        if (failedNode != null) {
+            triedAddresses.add(failedNode.getServiceAddress());
         }
-        
-        if (!allNodes.isEmpty()) {
-            availableNodes.addAll(allNodes);
-            log.info("找到可用节点: {}，数量: {}", serviceMetaInfo.getServiceKey(), allNodes.size());
+        Exception lastException = e;
+        while (triedAddresses.size() < rpcConfig.getFailOverMaxAttempts()) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                log.warn("节点转移已到截止时间，已尝试节点: {}", triedAddresses);
+                break;
+            }
+            List<ServiceMetaInfo> candidates = new ArrayList<>();
+            for (ServiceMetaInfo serviceMetaInfo : CircuitBreakerRegistry.filter(serviceMetaInfoList)) {
+                if (!triedAddresses.contains(serviceMetaInfo.getServiceAddress())) {
+                    candidates.add(serviceMetaInfo);
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            ServiceMetaInfo selectedNode = loadBalancer.select(loadBalanceParams, candidates);
+            if (selectedNode == null) {
+                break;
+            }
+            // 剩余时间平分给之后可能尝试的节点，一个节点超时不会用完其他节点的时间
+            int attemptsLeft = Math.min(rpcConfig.getFailOverMaxAttempts() - triedAddresses.size(), candidates.size());
+            long timeoutMillis = Math.max(1, remainingMillis / Math.max(1, attemptsLeft));
+            triedAddresses.add(selectedNode.getServiceAddress());
+            log.info("转移到节点: {}，本次超时: {} ms，剩余时间: {} ms", selectedNode.getServiceAddress(), timeoutMillis, remainingMillis);
+            try {
+                return RequestSender.invokeNode(rpcRequest, selectedNode, serializer, preferredSerializer, timeoutMillis);
+            } catch (Exception ex) {
+                log.warn("节点 {} 调用失败: {}", selectedNode.getServiceAddress(), ex.getMessage());
+                lastException = ex;
+            }
         }
-        
-        if (availableNodes.isEmpty()) {
-            log.warn("未找到任何可用节点");
-        }
-        
-        return availableNodes;
-    }
-    
-    /**
-     * 调用服务节点
-     */
-    private RpcResponse callServiceNode(RpcRequest rpcRequest, ServiceMetaInfo serviceNode) {
-        try {
-            // 这里应该调用实际的RPC客户端来调用服务
-            // 由于RPC调用逻辑比较复杂，这里简化处理
-            log.info("调用节点: {}，服务: {}", serviceNode.getServiceAddress(), rpcRequest.getServiceName());
-            
-            // 在实际实现中，这里应该调用RPC客户端进行远程调用
-            // 为了简化，我们返回一个成功的响应
-            RpcResponse rpcResponse = new RpcResponse();
-            rpcResponse.setData("节点转移成功 - 调用服务: " + rpcRequest.getServiceName());
-            return rpcResponse;
-            
-        } catch (Exception e) {
-            log.error("调用节点 {} 失败: {}", serviceNode.getServiceAddress(), e.getMessage(), e);
-            return createErrorResponse("节点调用失败: " + e.getMessage());
-        }
-    }
-    
-    /**
-     * 创建错误响应
-     */
-    private RpcResponse createErrorResponse(String message) {
-        RpcResponse rpcResponse = new RpcResponse();
-        rpcResponse.setMessage(message);
-        rpcResponse.setException(new RuntimeException(message));
-        return rpcResponse;
+        throw new RuntimeException("节点转移失败，已尝试节点: " + triedAddresses, lastException);
     }
-}
\ No newline at end of file
+}
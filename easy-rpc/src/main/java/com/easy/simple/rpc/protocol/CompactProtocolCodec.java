@@ -3,6 +3,7 @@ package com.easy.simple.rpc.protocol;
 import com.easy.simple.rpc.serializer.Serializer;
 import com.easy.simple.rpc.serializer.SerializerFactory;
 import com.easy.simple.rpc.serializer.SerializerType;
+import com.easy.simple.rpc.serializer.StringDictionary;
 import io.vertx.core.buffer.Buffer;
 
 import java.io.IOException;
@@ -15,6 +16,31 @@ import java.nio.ByteBuffer;
  */
 public class CompactProtocolCodec {
 
+    /**
+     * 消息头最大长度：固定头部(5字节) + 请求ID(最多10字节) + 消息体长度(最多5字节)
+     */
+    private static final int MAX_HEADER_LENGTH = 20;
+
+    /**
+     * 帧缓冲区初始大小
+     */
+    private static final int INITIAL_FRAME_SIZE = 256;
+
+    /**
+     * 消息头占位
+     */
+    private static final byte[] HEADER_PLACEHOLDER = new byte[MAX_HEADER_LENGTH];
+
+    /**
+     * 编码消息头的临时缓冲区（每个线程一个，不为每帧分配）
+     */
+    private static final ThreadLocal<ByteBuffer> ENCODE_HEADER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAX_HEADER_LENGTH));
+
+    /**
+     * 解码消息头的临时缓冲区
+     */
+    private static final ThreadLocal<ByteBuffer> DECODE_HEADER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAX_HEADER_LENGTH));
+
     /**
      * 编码协议消息为紧凑字节数组
      * 
@@ -22,29 +48,99 @@ public class CompactProtocolCodec {
      * @return 编码后的字节数组
      */
     public static Buffer encode(ProtocolMessage<?> message) throws IOException {
+        return encode(message, null);
+    }
+
+    /**
+     * 编码协议消息，消息体中的字符串经过连接级字符串字典
+     *
+     * @param message    协议消息
+     * @param dictionary 发送端字典，为 null 或序列化器不支持时不使用
+     * @return 编码后的字节数组
+     */
+    public static Buffer encode(ProtocolMessage<?> message, StringDictionary dictionary) throws IOException {
+        return encode(message, dictionary, false);
+    }
+
+    /**
+     * 编码协议消息，基本类型参数的请求和基本类型返回值的响应可以不经过序列化器
+     *
+     * @param message       协议消息
+     * @param dictionary    发送端字典，为 null 或序列化器不支持时不使用
+     * @param primitiveBody 对端是否支持基本类型消息体
+     * @return 编码后的字节数组
+     */
+    public static Buffer encode(ProtocolMessage<?> message, StringDictionary dictionary, boolean primitiveBody) throws IOException {
+        return encode(message, dictionary, primitiveBody, Buffer.buffer(INITIAL_FRAME_SIZE));
+    }
+
+    /**
+     * 编码协议消息到指定的帧缓冲区（如 BufferArena 分配的缓冲区）
+     *
+     * @param message       协议消息
+     * @param dictionary    发送端字典，为 null 或序列化器不支持时不使用
+     * @param primitiveBody 对端是否支持基本类型消息体
+     * @param frame         空的帧缓冲区
+     * @return 帧缓冲区中编码后的部分
+     */
+    public static Buffer encode(ProtocolMessage<?> message, StringDictionary dictionary, boolean primitiveBody, Buffer frame) throws IOException {
         if (message == null || message.getHeader() == null) {
             throw new IllegalArgumentException("Protocol message or header cannot be null");
         }
 
-        // 1. 序列化消息体
-        byte[] bodyBytes = new byte[0];
-        if (message.getBody() != null) {
+        // 1. 预留最长的消息头，序列化器直接把消息体写入帧缓冲区
+        frame.appendBytes(HEADER_PLACEHOLDER);
+        byte flags = 0;
+        if (message.getBody() instanceof Handshake) {
+            // 握手消息在协商序列化器之前发送，使用固定格式
+            frame.appendBytes(((Handshake) message.getBody()).toBytes());
+        } else if (primitiveBody && PrimitiveBodyCodec.encode(message.getHeader().getType(), message.getBody(), frame)) {
+            flags = ProtocolConstant.PRIMITIVE_FLAG;
+        } else if (message.getBody() != null) {
             Serializer serializer = SerializerFactory.getInstance(SerializerType.getTypeByKey(message.getHeader().getSerializer()));
-            bodyBytes = serializer.serialize(message.getBody());
+            if (dictionary != null && serializer.supportsDictionary()) {
+                frame.appendBytes(serializer.serialize(message.getBody(), dictionary));
+                flags = ProtocolConstant.DICTIONARY_FLAG;
+            } else {
+                serializer.serialize(message.getBody(), frame);
+            }
         }
 
         // 2. 更新消息体长度
-        message.getHeader().setBodyLength(bodyBytes.length);
+        message.getHeader().setBodyLength(frame.length() - MAX_HEADER_LENGTH);
 
-        // 3. 压缩请求头
-        byte[] headerBytes = compressHeader(message.getHeader());
+        // 3. 压缩请求头，写在消息体之前
+        ByteBuffer headerBuffer = compressHeader(message.getHeader(), flags);
+        int start = MAX_HEADER_LENGTH - headerBuffer.limit();
+        frame.setBytes(start, headerBuffer.array(), 0, headerBuffer.limit());
 
-        // 4. 合并头部和消息体
-        ByteBuffer buffer = ByteBuffer.allocate(headerBytes.length + bodyBytes.length);
-        buffer.put(headerBytes);
-        buffer.put(bodyBytes);
+        return frame.slice(start, frame.length());
+    }
+
+    /**
+     * 编码消息头和原始字节消息体（不经过序列化器，用于分片帧）
+     *
+     * @param header 消息头
+     * @param body   原始消息体
+     * @return 编码后的字节数组
+     */
+    public static Buffer encodeRaw(ProtocolMessage.Header header, Buffer body) {
+        header.setBodyLength(body.length());
+        ByteBuffer headerBuffer = compressHeader(header, (byte) 0);
+        return Buffer.buffer(headerBuffer.limit() + body.length())
+                .appendBytes(headerBuffer.array(), 0, headerBuffer.limit())
+                .appendBuffer(body);
+    }
 
-        return Buffer.buffer(buffer.array());
+    /**
+     * 只解码消息头
+     *
+     * @param buffer 完整帧或至少包含完整消息头的字节数组
+     * @return 消息头
+     */
+    public static ProtocolMessage.Header decodeHeader(Buffer buffer) {
+        // 只拷贝头部可能占用的字节：固定头部 + 最长的请求ID和消息体长度变长编码
+        return decompressHeader(readHeaderBytes(buffer));
     }
 
     /**
@@ -54,78 +150,131 @@ public class CompactProtocolCodec {
      * @return 解码后的协议消息
      */
     public static ProtocolMessage<?> decode(Buffer buffer) throws IOException {
+        return decode(buffer, null);
+    }
+
+    /**
+     * 解码协议消息，使用了字符串字典的消息体经过接收端字典还原
+     *
+     * @param buffer     字节数组
+     * @param dictionary 接收端字典，为 null 时不支持使用了字典的消息
+     * @return 解码后的协议消息
+     */
+    public static ProtocolMessage<?> decode(Buffer buffer, StringDictionary dictionary) throws IOException {
         if (buffer == null || buffer.length() == 0) {
             throw new IllegalArgumentException("Buffer cannot be null or empty");
         }
 
-        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer.getBytes());
+        // 只复制消息头，消息体从帧缓冲区直接反序列化
+        ByteBuffer byteBuffer = readHeaderBytes(buffer);
+        boolean dictionaryEncoded = buffer.length() > 2 && (buffer.getByte(2) & ProtocolConstant.DICTIONARY_FLAG) != 0;
+        boolean primitiveEncoded = buffer.length() > 2 && (buffer.getByte(2) & ProtocolConstant.PRIMITIVE_FLAG) != 0;
+        if (dictionaryEncoded && dictionary == null) {
+            throw new IOException("消息体使用了字符串字典，但连接未启用字典");
+        }
         
         // 1. 解压缩请求头
         ProtocolMessage.Header header = decompressHeader(byteBuffer);
         
-        // 2. 提取消息体字节
-        byte[] bodyBytes = new byte[header.getBodyLength()];
-        byteBuffer.get(bodyBytes);
+        // 2. 消息体（与帧共享内存）
+        int bodyStart = byteBuffer.position();
+        if (buffer.length() < bodyStart + header.getBodyLength()) {
+            throw new IOException("消息体不完整");
+        }
+        Buffer bodyBuffer = buffer.slice(bodyStart, bodyStart + header.getBodyLength());
         
         // 3. 根据消息类型选择对应的消息体类型
         Object body = null;
-        if (bodyBytes.length > 0) {
+        if (header.getType() == ProtocolMessageTypeEnum.HANDSHAKE.getKey()) {
+            body = Handshake.fromBytes(bodyBuffer.getBytes());
+        } else if (primitiveEncoded) {
+            body = PrimitiveBodyCodec.decode(header.getType(), bodyBuffer);
+        } else if (bodyBuffer.length() > 0) {
             Serializer serializer = SerializerFactory.getInstance(SerializerType.getTypeByKey(header.getSerializer()));
+            StringDictionary bodyDictionary = dictionaryEncoded ? dictionary : null;
             
             // 根据消息类型动态选择消息体类型
             ProtocolMessageTypeEnum messageType = ProtocolMessageTypeEnum.getEnumByKey(header.getType());
             if (messageType != null) {
                 switch (messageType) {
                     case REQUEST:
-                        body = serializer.deserialize(bodyBytes, com.easy.simple.rpc.enity.RpcRequest.class);
+                    case UPLOAD:
+                        body = deserializeBody(serializer, bodyBuffer, com.easy.simple.rpc.enity.RpcRequest.class, bodyDictionary);
                         break;
                     case RESPONSE:
-                        body = serializer.deserialize(bodyBytes, com.easy.simple.rpc.enity.RpcResponse.class);
+                    case STREAM:
+                    case STREAM_END:
+                    case UPLOAD_END:
+                        body = deserializeBody(serializer, bodyBuffer, com.easy.simple.rpc.enity.RpcResponse.class, bodyDictionary);
+                        break;
+                    case STREAM_REQUEST_N:
+                        // 消费者补充的流式额度
+                        body = deserializeBody(serializer, bodyBuffer, Long.class, bodyDictionary);
                         break;
                     case HEART_BEAT:
                         // 心跳消息体可以为空或简单对象
-                        if (bodyBytes.length > 0) {
-                            body = serializer.deserialize(bodyBytes, Object.class);
+                        if (bodyBuffer.length() > 0) {
+                            body = deserializeBody(serializer, bodyBuffer, Object.class, bodyDictionary);
                         }
                         break;
                     case OTHERS:
                         // 其他类型消息体，默认使用Object
-                        body = serializer.deserialize(bodyBytes, Object.class);
+                        body = deserializeBody(serializer, bodyBuffer, Object.class, bodyDictionary);
                         break;
                     default:
                         throw new IllegalArgumentException("Unsupported message type: " + messageType);
                 }
             } else {
                 // 如果无法识别消息类型，使用Object作为默认类型
-                body = serializer.deserialize(bodyBytes, Object.class);
+                body = deserializeBody(serializer, bodyBuffer, Object.class, bodyDictionary);
             }
         }
         
         // 4. 构建协议消息
-        ProtocolMessage<Object> message = new ProtocolMessage<>();
-        message.setHeader(header);
-        message.setBody(body);
-        
-        return message;
+        return MessageRecycler.newMessage(header, body);
     }
 
     /**
-     * 压缩请求头为字节数组（使用变长编码）
+     * 反序列化消息体，使用了字符串字典时经过接收端字典还原
      */
-    private static byte[] compressHeader(ProtocolMessage.Header header) {
-        // 计算变长字段的长度
-        int requestIdLength = getVarIntLength(header.getRequestId());
-        int bodyLengthLength = getVarIntLength(header.getBodyLength());
-        
-        // 总长度 = 固定头部(5字节) + 变长请求ID + 变长消息体长度
-        int totalLength = 5 + requestIdLength + bodyLengthLength;
-        
-        ByteBuffer buffer = ByteBuffer.allocate(totalLength);
+    private static <T> T deserializeBody(Serializer serializer, Buffer bodyBuffer, Class<T> type,
+                                         StringDictionary dictionary) throws IOException {
+        if (dictionary == null) {
+            return serializer.deserialize(bodyBuffer, type);
+        }
+        try {
+            return serializer.deserialize(bodyBuffer.getBytes(), type, dictionary);
+        } catch (IOException | RuntimeException e) {
+            // 消息体中的定义可能只写入了一部分，之后的引用不再可信
+            dictionary.invalidate();
+            throw e;
+        }
+    }
+
+    /**
+     * 把帧开头可能属于消息头的字节复制到线程的临时缓冲区
+     */
+    private static ByteBuffer readHeaderBytes(Buffer buffer) {
+        ByteBuffer byteBuffer = DECODE_HEADER.get();
+        int length = Math.min(buffer.length(), MAX_HEADER_LENGTH);
+        buffer.getBytes(0, length, byteBuffer.array(), 0);
+        byteBuffer.clear().limit(length);
+        return byteBuffer;
+    }
+
+    /**
+     * 压缩请求头（使用变长编码）
+     *
+     * @return 线程的临时缓冲区，[0, limit) 为压缩后的消息头，下次压缩前有效
+     */
+    private static ByteBuffer compressHeader(ProtocolMessage.Header header, byte flags) {
+        ByteBuffer buffer = ENCODE_HEADER.get();
+        buffer.clear();
         
         // 写入固定头部
         buffer.put(header.getMagic());
         buffer.put(header.getVersion());
-        buffer.put(header.getSerializer());
+        buffer.put((byte) (header.getSerializer() | flags));
         buffer.put(header.getType());
         buffer.put(header.getStatus());
         
@@ -134,16 +283,15 @@ public class CompactProtocolCodec {
         
         // 写入变长消息体长度
         putVarInt(buffer, header.getBodyLength());
-        
-        return buffer.array();
+
+        buffer.flip();
+        return buffer;
     }
 
     /**
      * 解压缩请求头
      */
     private static ProtocolMessage.Header decompressHeader(ByteBuffer buffer) {
-        ProtocolMessage.Header header = new ProtocolMessage.Header();
-        
         // 读取固定头部
         byte magic = buffer.get();
         byte version = buffer.get();
@@ -158,9 +306,10 @@ public class CompactProtocolCodec {
             throw new IllegalArgumentException("Unsupported protocol version: " + version + ", expected: " + ProtocolConstant.PROTOCOL_VERSION);
         }
         
+        ProtocolMessage.Header header = MessageRecycler.newHeader();
         header.setMagic(magic);
         header.setVersion(version);
-        header.setSerializer(buffer.get());
+        header.setSerializer((byte) (buffer.get() & ~(ProtocolConstant.DICTIONARY_FLAG | ProtocolConstant.PRIMITIVE_FLAG)));
         header.setType(buffer.get());
         header.setStatus(buffer.get());
         
@@ -264,25 +413,45 @@ public class CompactProtocolCodec {
         if (buffer == null || buffer.length() < 5) {
             return -1;
         }
-        
-        try {
-            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer.getBytes());
-            
-            // 跳过固定头部
-            byteBuffer.position(5);
-            
-            // 读取变长请求ID
-            long requestId = getVarInt(byteBuffer);
-            
-            // 读取变长消息体长度
-            long bodyLength = getVarInt(byteBuffer);
-            
-            // 计算总长度
-            return byteBuffer.position() + (int) bodyLength;
-            
-        } catch (Exception e) {
+
+        // 直接在缓冲区上读取，数据不足时返回 -1（逐字节到达的消息头不再为每个字节复制缓冲区、抛出异常）
+        // 跳过固定头部和变长请求ID
+        int position = skipVarInt(buffer, 5);
+        if (position < 0) {
             return -1;
         }
+
+        // 读取变长消息体长度
+        long bodyLength = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= buffer.length()) {
+                return -1;
+            }
+            byte b = buffer.getByte(position++);
+            bodyLength |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                // 计算总长度
+                return position + (int) bodyLength;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 跳过缓冲区中的一个变长整数
+     *
+     * @return 变长整数之后的位置，数据不足或过长时返回 -1
+     */
+    private static int skipVarInt(Buffer buffer, int position) {
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= buffer.length()) {
+                return -1;
+            }
+            if ((buffer.getByte(position++) & 0x80) == 0) {
+                return position;
+            }
+        }
+        return -1;
     }
 
     /**
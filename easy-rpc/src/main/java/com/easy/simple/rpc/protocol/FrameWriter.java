@@ -0,0 +1,268 @@
+package com.easy.simple.rpc.protocol;
+
+import com.easy.simple.rpc.buffer.BufferArena;
+import com.easy.simple.rpc.buffer.PooledBuffer;
+import com.easy.simple.rpc.enity.RpcRequest;
+import com.easy.simple.rpc.enity.RpcResponse;
+import com.easy.simple.rpc.serializer.StringDictionary;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetSocket;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 连接的帧写出器（每个连接一个）
+ * 超过分片大小的帧拆分为 FRAGMENT / FRAGMENT_END 帧，不同请求的分片轮流写出，
+ * 且只在写缓冲区未满时写出，小帧直接写出，因此大消息不会阻塞同一连接上的小响应；
+ * 同一请求的帧按写入顺序发送，接收端由 TcpPacketDecoder 按请求 id 重组；
+ * 启用字符串字典后，直接写出的帧在锁内使用字典编码，保证接收端按编码顺序更新字典；
+ * 帧编码到 BufferArena 分配的缓冲区，初始容量按方法（响应按返回值类型）预估，直接写出的帧在写出完成后归还
+ */
+public class FrameWriter {
+
+    private final NetSocket netSocket;
+
+    private final BufferArena arena = BufferArena.get();
+
+    /**
+     * 分片大小（字节），不大于 0 时不分片；握手确认对端支持分片后才设置
+     */
+    private volatile int fragmentSize;
+
+    /**
+     * 请求 id => 待写出的帧，按轮转顺序排列
+     */
+    private final Map<Long, ArrayDeque<Buffer>> pendingFrames = new LinkedHashMap<>();
+
+    /**
+     * 发送端字符串字典，握手确认对端支持后才设置
+     */
+    private volatile StringDictionary dictionary;
+
+    /**
+     * 对端是否支持基本类型消息体，握手确认后才设置
+     */
+    private volatile boolean primitiveBody;
+
+    /**
+     * 写缓冲区排空后的回调
+     */
+    private volatile Runnable drainHandler;
+
+    public FrameWriter(NetSocket netSocket, int fragmentSize) {
+        this.netSocket = netSocket;
+        this.fragmentSize = fragmentSize;
+        netSocket.drainHandler(v -> {
+            // Vert.x 持有 NetSocket 的锁回调，而其他线程可能持有本对象的锁等待 NetSocket 的锁（写出时），推迟到锁外执行
+            Context context = Vertx.currentContext();
+            if (context == null) {
+                onDrain();
+            } else {
+                context.runOnContext(ignored -> onDrain());
+            }
+        });
+    }
+
+    private void onDrain() {
+        pump();
+        Runnable handler = drainHandler;
+        if (handler != null) {
+            handler.run();
+        }
+    }
+
+    /**
+     * 设置写缓冲区排空后的回调（如继续发送流式响应）
+     */
+    public void drainHandler(Runnable drainHandler) {
+        this.drainHandler = drainHandler;
+    }
+
+    /**
+     * 设置分片大小
+     *
+     * @param fragmentSize 分片大小（字节），不大于 0 时不分片
+     */
+    public void setFragmentSize(int fragmentSize) {
+        this.fragmentSize = fragmentSize;
+    }
+
+    /**
+     * 启用字符串字典
+     *
+     * @param capacity 字典容量（条目数）
+     */
+    public void enableDictionary(int capacity) {
+        this.dictionary = new StringDictionary(capacity);
+    }
+
+    /**
+     * 启用基本类型消息体
+     */
+    public void enablePrimitiveBody() {
+        this.primitiveBody = true;
+    }
+
+    /**
+     * 写缓冲区是否已满
+     */
+    public boolean writeQueueFull() {
+        return netSocket.writeQueueFull();
+    }
+
+    /**
+     * 编码并写出一条消息
+     *
+     * @param protocolMessage 协议消息
+     */
+    public void write(ProtocolMessage<?> protocolMessage) throws IOException {
+        long requestId = protocolMessage.getHeader().getRequestId();
+        Object sizeKey = sizeKey(protocolMessage.getBody());
+        StringDictionary dictionary = this.dictionary;
+        if (dictionary == null) {
+            PooledBuffer pooledBuffer = arena.allocateFor(sizeKey);
+            write(encode(protocolMessage, null, sizeKey, pooledBuffer), requestId, pooledBuffer);
+            return;
+        }
+        // 接收端按到达顺序更新字典，因此使用字典的帧在锁内编码并直接写出；
+        // 需要分片或排在分片之后的帧到达顺序会变化，改为不使用字典编码
+        synchronized (this) {
+            Buffer frame = null;
+            PooledBuffer pooledBuffer = null;
+            if (!pendingFrames.containsKey(requestId)) {
+                pooledBuffer = arena.allocateFor(sizeKey);
+                try {
+                    frame = encode(protocolMessage, dictionary, sizeKey, pooledBuffer);
+                } catch (IOException | RuntimeException e) {
+                    dictionary.rollback();
+                    throw e;
+                }
+                if (fragmentSize > 0 && frame.length() > fragmentSize) {
+                    dictionary.rollback();
+                    pooledBuffer.release();
+                    frame = null;
+                } else {
+                    dictionary.commit();
+                }
+            }
+            if (frame == null) {
+                pooledBuffer = arena.allocateFor(sizeKey);
+                frame = encode(protocolMessage, null, sizeKey, pooledBuffer);
+            }
+            write(frame, requestId, pooledBuffer);
+        }
+    }
+
+    /**
+     * 写出一个已编码的帧
+     *
+     * @param frame     已编码的帧
+     * @param requestId 请求 id
+     */
+    public void write(Buffer frame, long requestId) {
+        write(frame, requestId, null);
+    }
+
+    /**
+     * 写出一个已编码的帧，写出完成或拷贝后归还帧缓冲区
+     *
+     * @param frame        已编码的帧
+     * @param requestId    请求 id
+     * @param pooledBuffer 帧所在的池化缓冲区，为 null 时不归还
+     */
+    private synchronized void write(Buffer frame, long requestId, PooledBuffer pooledBuffer) {
+        boolean large = fragmentSize > 0 && frame.length() > fragmentSize;
+        ArrayDeque<Buffer> frames = pendingFrames.get(requestId);
+        if (!large && frames == null) {
+            // 小帧且同一请求没有排队的分片，直接写出
+            if (pooledBuffer == null) {
+                netSocket.write(frame);
+            } else {
+                netSocket.write(frame).onComplete(ar -> pooledBuffer.release());
+            }
+            return;
+        }
+        if (frames == null) {
+            frames = new ArrayDeque<>();
+            pendingFrames.put(requestId, frames);
+        }
+        // 分片是原始帧的拷贝，排队的小帧也拷贝，池化缓冲区可以立即归还
+        if (large) {
+            split(frame, requestId, frames);
+        } else {
+            frames.add(pooledBuffer == null ? frame : frame.copy());
+        }
+        if (pooledBuffer != null) {
+            pooledBuffer.release();
+        }
+        pump();
+    }
+
+    /**
+     * 编码到池化缓冲区并记录帧长，失败时归还缓冲区
+     */
+    private Buffer encode(ProtocolMessage<?> protocolMessage, StringDictionary dictionary, Object sizeKey,
+                          PooledBuffer pooledBuffer) throws IOException {
+        try {
+            Buffer frame = CompactProtocolCodec.encode(protocolMessage, dictionary, primitiveBody, pooledBuffer.buffer());
+            arena.recordSize(sizeKey, pooledBuffer.buffer().length());
+            return frame;
+        } catch (IOException | RuntimeException e) {
+            pooledBuffer.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 预估帧长的消息种类：请求按方法，响应和流式元素按返回值类型
+     */
+    private static Object sizeKey(Object body) {
+        if (body instanceof RpcRequest) {
+            RpcRequest rpcRequest = (RpcRequest) body;
+            return rpcRequest.getMethodId() != 0 ? (Object) rpcRequest.getMethodId() : rpcRequest.getMethodName();
+        }
+        if (body instanceof RpcResponse) {
+            Object data = ((RpcResponse) body).getData();
+            return data == null ? null : data.getClass();
+        }
+        return null;
+    }
+
+    /**
+     * 在写缓冲区未满时，轮流从每个请求取一帧写出
+     */
+    private synchronized void pump() {
+        while (!pendingFrames.isEmpty() && !netSocket.writeQueueFull()) {
+            Map.Entry<Long, ArrayDeque<Buffer>> head = pendingFrames.entrySet().iterator().next();
+            ArrayDeque<Buffer> frames = head.getValue();
+            netSocket.write(frames.poll());
+            // 写过的请求移到队尾
+            pendingFrames.remove(head.getKey());
+            if (!frames.isEmpty()) {
+                pendingFrames.put(head.getKey(), frames);
+            }
+        }
+    }
+
+    /**
+     * 拆分为分片帧，分片消息体是原始帧的一段
+     */
+    private void split(Buffer frame, long requestId, ArrayDeque<Buffer> frames) {
+        for (int offset = 0; offset < frame.length(); offset += fragmentSize) {
+            int end = Math.min(offset + fragmentSize, frame.length());
+            ProtocolMessage.Header header = new ProtocolMessage.Header();
+            header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+            header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+            header.setSerializer(frame.getByte(2));
+            header.setType((byte) (end == frame.length()
+                    ? ProtocolMessageTypeEnum.FRAGMENT_END.getKey() : ProtocolMessageTypeEnum.FRAGMENT.getKey()));
+            header.setRequestId(requestId);
+            frames.add(CompactProtocolCodec.encodeRaw(header, frame.slice(offset, end)));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.easy.simple.rpc.protocol;
+
+import com.easy.simple.rpc.config.RpcConfig;
+import com.easy.simple.rpc.serializer.SerializerFactory;
+import com.easy.simple.rpc.serializer.SerializerType;
+import lombok.Data;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 握手消息（连接建立后消费者发送，提供者回复协商结果）
+ * 消息体使用固定的二进制格式，不依赖任何序列化器：
+ * [版本(1) | 序列化器个数(1) | 序列化器 key... | 压缩器个数(1) | (名称长度(1) | 名称)... | 特性位图(4)]
+ */
+@Data
+public class Handshake {
+
+    /**
+     * 序列化器的速度排序（从快到慢）
+     */
+    private static final SerializerType[] SERIALIZER_SPEED_ORDER = {
+            SerializerType.FORY, SerializerType.KRYO, SerializerType.HESSIAN2, SerializerType.SCHEMA, SerializerType.HESSIAN, SerializerType.JDK, SerializerType.PROTOBUF, SerializerType.JSON
+    };
+
+    /**
+     * 协议版本
+     */
+    private byte version;
+
+    /**
+     * 序列化器 key，按偏好排序；提供者回复时选中的在前，其后是提议中本端也支持的其他序列化器（消费者可按方法改用）
+     */
+    private byte[] serializers;
+
+    /**
+     * 压缩器名称，按偏好排序（暂无压缩实现，保留字段）
+     */
+    private List<String> compressors = new ArrayList<>();
+
+    /**
+     * 特性位图，见 ProtocolFeatureEnum
+     */
+    private int features;
+
+    /**
+     * 构造本端的握手提议：本端支持的序列化器按速度排序（启用字符串字典时支持字典的排在前面），
+     * 提供者选择其中第一个双方都支持的；serializerPinned 开启时配置的序列化器排在最前
+     *
+     * @param rpcConfig 本端配置
+     * @return 握手消息
+     * @throws IllegalStateException 配置的序列化器无法在 TCP 连接上使用
+     */
+    public static Handshake offer(RpcConfig rpcConfig) {
+        String configuredSerializer = rpcConfig.getSerializerType();
+        int configuredKey = SerializerType.getKeyByType(configuredSerializer);
+        // 帧头只能标识内置序列化器，自定义（SPI 扩展）序列化器无法在 TCP 连接上使用
+        if (configuredKey < 0) {
+            throw new IllegalStateException("序列化器 " + configuredSerializer + " 不是内置序列化器，不能用于 TCP 连接");
+        }
+        Set<Integer> keys = new LinkedHashSet<>();
+        if (rpcConfig.isSerializerPinned()) {
+            if (!SerializerFactory.isSupported(configuredSerializer)) {
+                throw new IllegalStateException("配置的序列化器不可用: " + configuredSerializer);
+            }
+            keys.add(configuredKey);
+        }
+        if (rpcConfig.getStringDictionarySize() > 0) {
+            for (SerializerType serializerType : SERIALIZER_SPEED_ORDER) {
+                if (SerializerFactory.isSupported(serializerType.getType())
+                        && SerializerFactory.getInstance(serializerType.getType()).supportsDictionary()) {
+                    keys.add(serializerType.getKey());
+                }
+            }
+        }
+        for (SerializerType serializerType : SERIALIZER_SPEED_ORDER) {
+            if (SerializerFactory.isSupported(serializerType.getType())) {
+                keys.add(serializerType.getKey());
+            }
+        }
+        Handshake handshake = new Handshake();
+        handshake.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        handshake.setSerializers(keysToBytes(keys));
+        handshake.setFeatures(localFeatures(rpcConfig));
+        return handshake;
+    }
+
+    /**
+     * 提供者按消费者的提议协商：选择消费者偏好中本端支持的第一个序列化器（同时回复支持的其余序列化器），特性取交集
+     *
+     * @param offer     消费者的握手提议
+     * @param rpcConfig 本端配置
+     * @return 协商结果
+     */
+    public static Handshake negotiate(Handshake offer, RpcConfig rpcConfig) {
+        Handshake result = new Handshake();
+        result.setVersion((byte) Math.min(offer.getVersion(), ProtocolConstant.PROTOCOL_VERSION));
+        Set<Integer> keys = new LinkedHashSet<>();
+        for (byte key : offer.getSerializers()) {
+            if (SerializerFactory.isSupported(SerializerType.getTypeByKey(key))) {
+                keys.add((int) key);
+            }
+        }
+        result.setSerializers(keysToBytes(keys));
+        int features = offer.getFeatures() & localFeatures(rpcConfig);
+        // 字符串字典需要选中的序列化器支持
+        if (result.getSerializers().length == 0
+                || !SerializerFactory.getInstance(SerializerType.getTypeByKey(result.getSerializers()[0])).supportsDictionary()) {
+            features &= ~ProtocolFeatureEnum.STRING_DICTIONARY.mask();
+        }
+        result.setFeatures(features);
+        return result;
+    }
+
+    /**
+     * 本端启用的特性：字符串字典按配置开启
+     */
+    private static int localFeatures(RpcConfig rpcConfig) {
+        int features = ProtocolFeatureEnum.all();
+        if (rpcConfig.getStringDictionarySize() <= 0) {
+            features &= ~ProtocolFeatureEnum.STRING_DICTIONARY.mask();
+        }
+        return features;
+    }
+
+    /**
+     * 是否支持指定特性
+     */
+    public boolean supports(ProtocolFeatureEnum feature) {
+        return (features & feature.mask()) != 0;
+    }
+
+    /**
+     * 编码为消息体
+     */
+    public byte[] toBytes() {
+        int length = 1 + 1 + serializers.length + 1 + 4;
+        List<byte[]> compressorNames = new ArrayList<>();
+        for (String compressor : compressors) {
+            byte[] name = compressor.getBytes(StandardCharsets.UTF_8);
+            compressorNames.add(name);
+            length += 1 + name.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put(version);
+        buffer.put((byte) serializers.length);
+        buffer.put(serializers);
+        buffer.put((byte) compressorNames.size());
+        for (byte[] name : compressorNames) {
+            buffer.put((byte) name.length);
+            buffer.put(name);
+        }
+        buffer.putInt(features);
+        return buffer.array();
+    }
+
+    /**
+     * 从消息体解码
+     */
+    public static Handshake fromBytes(byte[] bytes) throws IOException {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            Handshake handshake = new Handshake();
+            handshake.setVersion(buffer.get());
+            byte[] serializers = new byte[buffer.get() & 0xff];
+            buffer.get(serializers);
+            handshake.setSerializers(serializers);
+            int compressorCount = buffer.get() & 0xff;
+            for (int i = 0; i < compressorCount; i++) {
+                byte[] name = new byte[buffer.get() & 0xff];
+                buffer.get(name);
+                handshake.getCompressors().add(new String(name, StandardCharsets.UTF_8));
+            }
+            handshake.setFeatures(buffer.getInt());
+            return handshake;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("握手消息格式错误", e);
+        }
+    }
+
+    private static byte[] keysToBytes(Set<Integer> keys) {
+        byte[] bytes = new byte[keys.size()];
+        int i = 0;
+        for (int key : keys) {
+            bytes[i++] = (byte) key;
+        }
+        return bytes;
+    }
+}
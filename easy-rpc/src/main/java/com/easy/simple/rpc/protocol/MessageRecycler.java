@@ -0,0 +1,109 @@
+package com.easy.simple.rpc.protocol;
+
+import com.easy.simple.rpc.RpcApplication;
+import com.easy.simple.rpc.buffer.ObjectRecycler;
+import com.easy.simple.rpc.enity.RpcResponse;
+
+/**
+ * 请求信封对象（ProtocolMessage、Header、RpcResponse）的回收复用
+ * 开启 objectRecycling 后，解码和构造请求时使用回收的对象：提供者在响应写出后回收请求和响应的信封，
+ * 消费者在请求写出、响应分发后回收信封（RpcResponse 交给了调用方，不回收）；流式调用和上传持有消息头，不回收。
+ * 未开启时直接创建对象，回收为空操作
+ */
+public class MessageRecycler {
+
+    private static final int SHARED_CAPACITY = 1024;
+
+    private static final ObjectRecycler<ProtocolMessage<Object>> MESSAGES = new ObjectRecycler<>(ProtocolMessage::new, message -> {
+        message.setHeader(null);
+        message.setBody(null);
+    }, SHARED_CAPACITY);
+
+    private static final ObjectRecycler<ProtocolMessage.Header> HEADERS = new ObjectRecycler<>(ProtocolMessage.Header::new, header -> {
+        header.setMagic((byte) 0);
+        header.setVersion((byte) 0);
+        header.setSerializer((byte) 0);
+        header.setType((byte) 0);
+        header.setStatus((byte) 0);
+        header.setRequestId(0);
+        header.setBodyLength(0);
+    }, SHARED_CAPACITY);
+
+    private static final ObjectRecycler<RpcResponse> RESPONSES = new ObjectRecycler<>(RpcResponse::new, response -> {
+        response.setData(null);
+        response.setDataType(null);
+        response.setMessage(null);
+        response.setException(null);
+        response.setDataConverter(null);
+    }, SHARED_CAPACITY);
+
+    private static volatile Boolean enabled;
+
+    /**
+     * 协议消息
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ProtocolMessage<T> newMessage(ProtocolMessage.Header header, T body) {
+        if (!isEnabled()) {
+            return new ProtocolMessage<>(header, body);
+        }
+        ProtocolMessage<T> message = (ProtocolMessage<T>) (ProtocolMessage<?>) MESSAGES.get();
+        message.setHeader(header);
+        message.setBody(body);
+        return message;
+    }
+
+    /**
+     * 协议消息头
+     */
+    public static ProtocolMessage.Header newHeader() {
+        return isEnabled() ? HEADERS.get() : new ProtocolMessage.Header();
+    }
+
+    /**
+     * 响应
+     */
+    public static RpcResponse newResponse() {
+        return isEnabled() ? RESPONSES.get() : new RpcResponse();
+    }
+
+    /**
+     * 回收协议消息和消息头（不回收消息体）
+     */
+    public static void recycle(ProtocolMessage<?> message) {
+        if (isEnabled()) {
+            if (message.getHeader() != null) {
+                HEADERS.recycle(message.getHeader());
+            }
+            recycleMessage(message);
+        }
+    }
+
+    /**
+     * 只回收协议消息，消息头和消息体仍在使用
+     */
+    @SuppressWarnings("unchecked")
+    public static void recycleMessage(ProtocolMessage<?> message) {
+        if (isEnabled()) {
+            MESSAGES.recycle((ProtocolMessage<Object>) message);
+        }
+    }
+
+    /**
+     * 回收响应
+     */
+    public static void recycleResponse(RpcResponse response) {
+        if (isEnabled()) {
+            RESPONSES.recycle(response);
+        }
+    }
+
+    private static boolean isEnabled() {
+        Boolean value = enabled;
+        if (value == null) {
+            value = RpcApplication.getRpcConfig().isObjectRecycling();
+            enabled = value;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,234 @@
+package com.easy.simple.rpc.protocol;
+
+import com.easy.simple.rpc.enity.RpcRequest;
+import com.easy.simple.rpc.enity.RpcResponse;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基本类型消息体编解码器（不经过序列化器）
+ * 只有基本类型包装类、String 和 null 参数的方法编号请求，以及返回这些类型的正常响应使用此格式，
+ * 每个值为 [类型标记(1) | 值]：整数为 zigzag 变长编码，浮点数为原始位，字符串为 长度(变长) + UTF-8
+ * 请求：[方法编号(8) | 参数个数 + 1(变长，0 表示 null) | 参数...]，响应：[返回值]
+ */
+public class PrimitiveBodyCodec {
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte BYTE = 3;
+    private static final byte SHORT = 4;
+    private static final byte CHAR = 5;
+    private static final byte INT = 6;
+    private static final byte LONG = 7;
+    private static final byte FLOAT = 8;
+    private static final byte DOUBLE = 9;
+    private static final byte STRING = 10;
+
+    /**
+     * 消息体可以使用基本类型格式时写入帧缓冲区
+     *
+     * @param type  消息类型
+     * @param body  消息体
+     * @param frame 帧缓冲区
+     * @return 是否已写入
+     */
+    public static boolean encode(byte type, Object body, Buffer frame) {
+        if (type == ProtocolMessageTypeEnum.REQUEST.getKey() && body instanceof RpcRequest) {
+            RpcRequest request = (RpcRequest) body;
+            if (!isWireRequest(request) || !allPrimitive(request.getArgs())) {
+                return false;
+            }
+            Object[] args = request.getArgs();
+            frame.appendLong(request.getMethodId());
+            writeVarLong(frame, args == null ? 0 : args.length + 1);
+            if (args != null) {
+                for (Object arg : args) {
+                    writeValue(frame, arg);
+                }
+            }
+            return true;
+        }
+        if (type == ProtocolMessageTypeEnum.RESPONSE.getKey() && body instanceof RpcResponse) {
+            RpcResponse response = (RpcResponse) body;
+            if (response.getException() != null || !"ok".equals(response.getMessage()) || !isPrimitive(response.getData())) {
+                return false;
+            }
+            writeValue(frame, response.getData());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 解码基本类型格式的消息体
+     *
+     * @param type 消息类型
+     * @param body 消息体
+     * @return 请求或响应
+     */
+    public static Object decode(byte type, Buffer body) throws IOException {
+        try {
+            int[] position = {0};
+            if (type == ProtocolMessageTypeEnum.REQUEST.getKey()) {
+                RpcRequest request = new RpcRequest();
+                request.setServiceVersion(null);
+                request.setMethodId(body.getLong(0));
+                position[0] = 8;
+                int count = (int) readVarLong(body, position) - 1;
+                if (count > body.length() - position[0]) {
+                    throw new IOException("参数个数错误: " + count);
+                }
+                if (count >= 0) {
+                    Object[] args = new Object[count];
+                    for (int i = 0; i < count; i++) {
+                        args[i] = readValue(body, position);
+                    }
+                    request.setArgs(args);
+                }
+                return request;
+            }
+            if (type == ProtocolMessageTypeEnum.RESPONSE.getKey()) {
+                RpcResponse response = new RpcResponse();
+                response.setData(readValue(body, position));
+                response.setMessage("ok");
+                return response;
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("基本类型消息体不完整", e);
+        }
+        throw new IOException("消息类型不支持基本类型消息体: " + type);
+    }
+
+    /**
+     * 是否为只携带方法编号和参数的请求（服务名、方法名和参数类型由提供者按编号补全）
+     */
+    private static boolean isWireRequest(RpcRequest request) {
+        return request.getMethodId() != 0 && request.getServiceName() == null && request.getMethodName() == null
+                && request.getServiceVersion() == null && request.getParameterTypes() == null;
+    }
+
+    private static boolean allPrimitive(Object[] args) {
+        if (args != null) {
+            for (Object arg : args) {
+                if (!isPrimitive(arg)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPrimitive(Object value) {
+        return value == null || value instanceof String || value instanceof Integer || value instanceof Long
+                || value instanceof Boolean || value instanceof Double || value instanceof Float
+                || value instanceof Short || value instanceof Byte || value instanceof Character;
+    }
+
+    private static void writeValue(Buffer frame, Object value) {
+        if (value == null) {
+            frame.appendByte(NULL);
+        } else if (value instanceof String) {
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            frame.appendByte(STRING);
+            writeVarLong(frame, bytes.length);
+            frame.appendBytes(bytes);
+        } else if (value instanceof Integer) {
+            frame.appendByte(INT);
+            writeVarLong(frame, zigzag((Integer) value));
+        } else if (value instanceof Long) {
+            frame.appendByte(LONG);
+            writeVarLong(frame, zigzag((Long) value));
+        } else if (value instanceof Boolean) {
+            frame.appendByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Double) {
+            frame.appendByte(DOUBLE);
+            frame.appendLong(Double.doubleToRawLongBits((Double) value));
+        } else if (value instanceof Float) {
+            frame.appendByte(FLOAT);
+            frame.appendInt(Float.floatToRawIntBits((Float) value));
+        } else if (value instanceof Short) {
+            frame.appendByte(SHORT);
+            writeVarLong(frame, zigzag((Short) value));
+        } else if (value instanceof Byte) {
+            frame.appendByte(BYTE);
+            frame.appendByte((Byte) value);
+        } else {
+            frame.appendByte(CHAR);
+            writeVarLong(frame, (Character) value);
+        }
+    }
+
+    private static Object readValue(Buffer body, int[] position) throws IOException {
+        byte tag = body.getByte(position[0]++);
+        switch (tag) {
+            case NULL:
+                return null;
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case BYTE:
+                return body.getByte(position[0]++);
+            case SHORT:
+                return (short) unzigzag(readVarLong(body, position));
+            case CHAR:
+                return (char) readVarLong(body, position);
+            case INT:
+                return (int) unzigzag(readVarLong(body, position));
+            case LONG:
+                return unzigzag(readVarLong(body, position));
+            case FLOAT: {
+                float value = Float.intBitsToFloat(body.getInt(position[0]));
+                position[0] += 4;
+                return value;
+            }
+            case DOUBLE: {
+                double value = Double.longBitsToDouble(body.getLong(position[0]));
+                position[0] += 8;
+                return value;
+            }
+            case STRING: {
+                int length = (int) readVarLong(body, position);
+                if (length < 0 || length > body.length() - position[0]) {
+                    throw new IOException("字符串长度错误: " + length);
+                }
+                String value = body.getString(position[0], position[0] + length, "UTF-8");
+                position[0] += length;
+                return value;
+            }
+            default:
+                throw new IOException("未知的基本类型标记: " + tag);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(Buffer frame, long value) {
+        while ((value & ~0x7FL) != 0) {
+            frame.appendByte((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        frame.appendByte((byte) value);
+    }
+
+    private static long readVarLong(Buffer body, int[] position) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = body.getByte(position[0]++);
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("VarInt too long");
+    }
+}
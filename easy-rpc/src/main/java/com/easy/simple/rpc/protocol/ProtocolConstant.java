@@ -19,4 +19,14 @@ public interface ProtocolConstant {
      * 协议版本号
      */
     byte PROTOCOL_VERSION = 0x1;
+
+    /**
+     * 序列化器字节的最高位：消息体使用了连接级字符串字典
+     */
+    byte DICTIONARY_FLAG = (byte) 0x80;
+
+    /**
+     * 序列化器字节的次高位：消息体使用基本类型格式（见 PrimitiveBodyCodec），不经过序列化器
+     */
+    byte PRIMITIVE_FLAG = 0x40;
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.easy.simple.rpc.protocol;
+
+import lombok.Getter;
+
+/**
+ * 协议特性枚举（握手时以位图交换，双方都支持的特性才会启用）
+ */
+@Getter
+public enum ProtocolFeatureEnum {
+
+    STREAM(0, "服务端流式调用"),
+    UPLOAD(1, "客户端流式上传"),
+    FRAGMENT(2, "大消息分片"),
+    METHOD_ID(3, "方法编号请求"),
+    STRING_DICTIONARY(4, "连接级字符串字典"),
+    PRIMITIVE_BODY(5, "基本类型消息体");
+
+    private final int bit;
+    private final String desc;
+
+    ProtocolFeatureEnum(int bit, String desc) {
+        this.bit = bit;
+        this.desc = desc;
+    }
+
+    /**
+     * 特性在位图中的掩码
+     */
+    public int mask() {
+        return 1 << bit;
+    }
+
+    /**
+     * 本端实现的全部特性
+     */
+    public static int all() {
+        int features = 0;
+        for (ProtocolFeatureEnum feature : values()) {
+            features |= feature.mask();
+        }
+        return features;
+    }
+}
@@ -12,7 +12,15 @@ public enum ProtocolMessageTypeEnum {
     REQUEST(0, "请求"),
     RESPONSE(1, "响应"),
     HEART_BEAT(2, "心跳"),
-    OTHERS(3, "其他");
+    OTHERS(3, "其他"),
+    STREAM(4, "流式元素"),
+    STREAM_END(5, "流结束"),
+    STREAM_REQUEST_N(6, "流式请求额度"),
+    UPLOAD(7, "上传分块"),
+    UPLOAD_END(8, "上传结束"),
+    FRAGMENT(9, "分片"),
+    FRAGMENT_END(10, "最后一个分片"),
+    HANDSHAKE(11, "握手");
 
     private final int key;
     private final String desc;
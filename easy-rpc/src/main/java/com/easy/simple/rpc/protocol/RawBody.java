@@ -0,0 +1,56 @@
+package com.easy.simple.rpc.protocol;
+
+import com.easy.simple.rpc.buffer.PooledBuffer;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.IOException;
+
+/**
+ * 未反序列化的消息体
+ * 提供者的事件循环只解码消息头，消息体在工作线程按需反序列化，被拒绝的请求不会反序列化；
+ * 帧在池化缓冲区中时，反序列化或 release 后归还
+ */
+public class RawBody {
+
+    /**
+     * 完整的帧（消息头 + 消息体）
+     */
+    private final Buffer frame;
+
+    /**
+     * 帧所在的池化缓冲区，为 null 时不需要归还
+     */
+    private PooledBuffer pooledBuffer;
+
+    public RawBody(Buffer frame) {
+        this(frame, null);
+    }
+
+    public RawBody(Buffer frame, PooledBuffer pooledBuffer) {
+        this.frame = frame;
+        this.pooledBuffer = pooledBuffer;
+    }
+
+    /**
+     * 反序列化消息体，之后归还帧缓冲区
+     *
+     * @return 消息体
+     */
+    public Object deserialize() throws IOException {
+        try {
+            return CompactProtocolCodec.decode(frame).getBody();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * 不反序列化，直接归还帧缓冲区（请求被拒绝或排队超时）
+     */
+    public synchronized void release() {
+        if (pooledBuffer != null) {
+            pooledBuffer.release();
+            pooledBuffer = null;
+        }
+    }
+}
@@ -1,28 +1,61 @@
 package com.easy.simple.rpc.protocol;
 
+import com.easy.simple.rpc.buffer.BufferArena;
+import com.easy.simple.rpc.buffer.PooledBuffer;
+import com.easy.simple.rpc.serializer.StringDictionary;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.buffer.impl.BufferImpl;
 import io.vertx.core.parsetools.RecordParser;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * TCP粘包/半包解码器（使用RecordParser实现）
- * 对Handler<Buffer>进行增强，自动处理TCP流式数据的粘包和半包问题
+ * 对Handler<Buffer>进行增强，自动处理TCP流式数据的粘包和半包问题，并按请求 id 重组 FrameWriter 拆分的分片；
+ * 读到消息长度后帧从 BufferArena 分配，解码后归还（只解码消息头的请求由 RawBody 归还）
  */
 public class TcpPacketDecoder implements Handler<Buffer> {
+
+    /**
+     * 消息头缓冲区初始大小（固定头部 + 最长的请求ID和消息体长度变长编码）
+     */
+    private static final int HEADER_BUFFER_SIZE = 32;
     
-    private final Handler<List<ProtocolMessage<?>>> decoratedHandler;
+    private final Handler<ProtocolMessage<?>> decoratedHandler;
     private final RecordParser recordParser;
+
+    /**
+     * 接收端字符串字典（对端启用字典后使用，按帧到达顺序更新）
+     */
+    private final StringDictionary dictionary = new StringDictionary(0);
+
+    /**
+     * 请求消息是否只解码消息头
+     */
+    private final boolean lazyRequestBody;
     
     /**
      * 构造函数
      * 
-     * @param decoratedHandler 被装饰的处理器，接收解析后的完整协议消息列表
+     * @param decoratedHandler 被装饰的处理器，逐个接收解析后的完整协议消息
+     */
+    public TcpPacketDecoder(Handler<ProtocolMessage<?>> decoratedHandler) {
+        this(decoratedHandler, false);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param decoratedHandler 被装饰的处理器，逐个接收解析后的完整协议消息
+     * @param lazyRequestBody  请求消息是否只解码消息头，消息体为 RawBody（提供者在工作线程反序列化）
      */
-    public TcpPacketDecoder(Handler<List<ProtocolMessage<?>>> decoratedHandler) {
+    public TcpPacketDecoder(Handler<ProtocolMessage<?>> decoratedHandler, boolean lazyRequestBody) {
         this.decoratedHandler = decoratedHandler;
+        this.lazyRequestBody = lazyRequestBody;
         this.recordParser = initRecordParser();
     }
     
@@ -38,10 +71,17 @@ public class TcpPacketDecoder implements Handler<Buffer> {
         parser.setOutput(new Handler<Buffer>() {
             // 当前消息长度
             int messageLength = -1;
+            // 消息头缓冲区（每个解码器一个，读到消息长度之前使用）
+            final ByteBuf headerByteBuf = Unpooled.buffer(HEADER_BUFFER_SIZE);
+            final Buffer headerBuffer = BufferImpl.buffer(headerByteBuf);
             // 累积的完整消息缓冲区
-            Buffer resultBuffer = Buffer.buffer();
+            Buffer resultBuffer = headerBuffer;
+            // 消息体阶段使用的池化缓冲区
+            PooledBuffer pooledBuffer;
             // 当前解析阶段
             ParseStage currentStage = ParseStage.FIXED_HEADER;
+            // 请求 id => 正在重组的分片
+            final Map<Long, Buffer> fragments = new HashMap<>();
             
             @Override
             public void handle(Buffer buffer) {
@@ -52,8 +92,8 @@ public class TcpPacketDecoder implements Handler<Buffer> {
                         
                         // 切换到变长头部解析阶段
                         currentStage = ParseStage.VARIABLE_HEADER;
-                        // 使用动态模式，每次读取1字节，直到能够解析出完整消息长度
-                        parser.fixedSizeMode(1);
+                        // 请求ID和消息体长度至少各 1 字节，之后每次读取1字节，直到能够解析出完整消息长度
+                        parser.fixedSizeMode(2);
                         break;
                         
                     case VARIABLE_HEADER:
@@ -77,7 +117,17 @@ public class TcpPacketDecoder implements Handler<Buffer> {
                             return;
                         }
                         
-                        // 切换到消息体解析阶段
+                        if (bodyLength == 0) {
+                            // 无消息体（如流控制帧），直接完成；消息头缓冲区会被复用，交出去的帧使用拷贝
+                            resultBuffer = headerBuffer.copy();
+                            emitMessage(null);
+                            resetParser(parser);
+                            return;
+                        }
+                        
+                        // 切换到消息体解析阶段，按帧长分配缓冲区
+                        pooledBuffer = BufferArena.get().allocate(messageLength);
+                        resultBuffer = pooledBuffer.buffer().appendBuffer(resultBuffer);
                         currentStage = ParseStage.BODY;
                         parser.fixedSizeMode(bodyLength);
                         break;
@@ -85,18 +135,9 @@ public class TcpPacketDecoder implements Handler<Buffer> {
                     case BODY:
                         // 读取消息体
                         resultBuffer.appendBuffer(buffer);
-                        
-                        try {
-                            // 解码完整消息
-                            ProtocolMessage<?> protocolMessage = CompactProtocolCodec.decode(resultBuffer);
-                            List<ProtocolMessage<?>> messages = new ArrayList<>();
-                            messages.add(protocolMessage);
-                            
-                            // 调用被装饰的处理器
-                            decoratedHandler.handle(messages);
-                        } catch (Exception e) {
-                            System.err.println("协议消息解码失败: " + e.getMessage());
-                        }
+                        PooledBuffer frameBuffer = pooledBuffer;
+                        pooledBuffer = null;
+                        emitMessage(frameBuffer);
                         
                         // 重置解析器状态，准备读取下一个消息
                         resetParser(parser);
@@ -104,10 +145,83 @@ public class TcpPacketDecoder implements Handler<Buffer> {
                 }
             }
             
+            private void emitMessage(PooledBuffer frameBuffer) {
+                byte type = resultBuffer.getByte(3);
+                if (type == ProtocolMessageTypeEnum.FRAGMENT.getKey() || type == ProtocolMessageTypeEnum.FRAGMENT_END.getKey()) {
+                    // 分片消息体已拷贝到重组缓冲区
+                    try {
+                        handleFragment(type);
+                    } finally {
+                        if (frameBuffer != null) {
+                            frameBuffer.release();
+                        }
+                    }
+                    return;
+                }
+                emit(resultBuffer, frameBuffer);
+            }
+            
+            /**
+             * 累积分片，收到最后一个分片时解码重组后的原始帧
+             */
+            private void handleFragment(byte type) {
+                ProtocolMessage.Header header;
+                try {
+                    header = CompactProtocolCodec.decodeHeader(resultBuffer);
+                } catch (Exception e) {
+                    System.err.println("分片头解码失败: " + e.getMessage());
+                    return;
+                }
+                Buffer body = resultBuffer.slice(resultBuffer.length() - header.getBodyLength(), resultBuffer.length());
+                Buffer assembled = fragments.computeIfAbsent(header.getRequestId(), id -> Buffer.buffer());
+                assembled.appendBuffer(body);
+                if (type == ProtocolMessageTypeEnum.FRAGMENT_END.getKey()) {
+                    fragments.remove(header.getRequestId());
+                    emit(assembled, null);
+                }
+            }
+            
+            /**
+             * 解码并交给被装饰的处理器
+             *
+             * @param frame       完整帧
+             * @param frameBuffer 帧所在的池化缓冲区，解码后归还；为 null 时不归还
+             */
+            private void emit(Buffer frame, PooledBuffer frameBuffer) {
+                RawBody rawBody = null;
+                try {
+                    ProtocolMessage<?> protocolMessage;
+                    if (lazyRequestBody && frame.getByte(3) == ProtocolMessageTypeEnum.REQUEST.getKey()
+                            && (frame.getByte(2) & ProtocolConstant.DICTIONARY_FLAG) == 0) {
+                        // 只解码消息头，消息体留给工作线程（帧缓冲区由 RawBody 归还）；使用了字典的消息体会更新字典，仍按到达顺序在此解码
+                        ProtocolMessage.Header header = CompactProtocolCodec.decodeHeader(frame);
+                        rawBody = new RawBody(frame, frameBuffer);
+                        protocolMessage = MessageRecycler.newMessage(header, rawBody);
+                    } else {
+                        // 解码完整消息
+                        protocolMessage = CompactProtocolCodec.decode(frame, dictionary);
+                    }
+                    // 调用被装饰的处理器
+                    decoratedHandler.handle(protocolMessage);
+                } catch (Exception e) {
+                    System.err.println("协议消息解码失败: " + e.getMessage());
+                } finally {
+                    // 解码后的消息不再引用帧缓冲区
+                    if (frameBuffer != null && rawBody == null) {
+                        frameBuffer.release();
+                    }
+                }
+            }
+            
             private void resetParser(RecordParser parser) {
+                if (pooledBuffer != null) {
+                    pooledBuffer.release();
+                    pooledBuffer = null;
+                }
                 currentStage = ParseStage.FIXED_HEADER;
                 messageLength = -1;
-                resultBuffer = Buffer.buffer();
+                headerByteBuf.clear();
+                resultBuffer = headerBuffer;
                 parser.fixedSizeMode(5);
             }
         });
@@ -0,0 +1,139 @@
+package com.easy.simple.rpc.proxy;
+
+import com.easy.simple.rpc.config.RpcConfig;
+import com.easy.simple.rpc.constant.RpcConstant;
+import com.easy.simple.rpc.enity.RpcRequest;
+import com.easy.simple.rpc.enity.ServiceMetaInfo;
+import com.easy.simple.rpc.fault.retry.RetryStrategy;
+import com.easy.simple.rpc.fault.retry.RetryStrategyFactory;
+import com.easy.simple.rpc.fault.tolerant.TolerantStrategy;
+import com.easy.simple.rpc.fault.tolerant.TolerantStrategyFactory;
+import com.easy.simple.rpc.fault.tolerant.TolerantStrategyType;
+import com.easy.simple.rpc.fault.tolerant.fallback.FallbackChain;
+import com.easy.simple.rpc.loadbalance.LoadBalancer;
+import com.easy.simple.rpc.loadbalance.LoadBalancerFactory;
+import com.easy.simple.rpc.registry.Registry;
+import com.easy.simple.rpc.registry.RegistryFactory;
+import com.easy.simple.rpc.registry.impl.MethodDictionary;
+import com.easy.simple.rpc.serializer.Serializer;
+import com.easy.simple.rpc.serializer.SerializerFactory;
+import com.easy.simple.rpc.serializer.SerializerSelector;
+import com.easy.simple.rpc.serializer.SerializerType;
+import com.easy.simple.rpc.stream.StreamType;
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 方法调用描述（创建代理时按方法构建一次）
+ * 缓存服务键、参数类型以及序列化器、注册中心、负载均衡、重试和容错策略，调用时只需绑定参数并发送
+ */
+@Getter
+public class InvocationDescriptor {
+
+    private final String serviceName;
+
+    private final String methodName;
+
+    private final String serviceVersion;
+
+    private final Class<?>[] parameterTypes;
+
+    /**
+     * 泛型返回类型（响应数据丢失泛型参数时按此转换）
+     */
+    private final Type genericReturnType;
+
+    /**
+     * 方法编号
+     */
+    private final long methodId;
+
+    /**
+     * 服务键（服务发现使用）
+     */
+    private final String serviceKey;
+
+    /**
+     * 负载均衡参数（只读）
+     */
+    private final Map<String, Object> loadBalanceParams;
+
+    /**
+     * 流式返回类型，非流式方法为 null
+     */
+    private final StreamType streamType;
+
+    /**
+     * 客户端流式参数位置，没有时为 -1
+     */
+    private final int uploadIndex;
+
+    /**
+     * 序列化器（HTTP 请求使用，HTTP 没有帧头，两端按配置一致）
+     */
+    private final Serializer serializer;
+
+    /**
+     * 方法指定的序列化器（写入 TCP 请求帧头），未指定时为 null，使用连接协商的序列化器
+     */
+    private final SerializerType preferredSerializer;
+
+    private final Registry registry;
+
+    private final LoadBalancer loadBalancer;
+
+    private final RetryStrategy retryStrategy;
+
+    private final TolerantStrategy tolerantStrategy;
+
+    /**
+     * 第一次调用为故障转移预留的时间（毫秒，容错策略为 failOver 时为 failOverReserveTimeout，否则为 0）
+     */
+    private final long failOverReserve;
+
+    /**
+     * 降级链，容错策略不是 failBack 时为 null
+     */
+    private final FallbackChain fallbackChain;
+
+    public InvocationDescriptor(Method method, RpcConfig rpcConfig) {
+        this.serviceName = method.getDeclaringClass().getName();
+        this.methodName = method.getName();
+        this.serviceVersion = RpcConstant.DEFAULT_SERVICE_VERSION;
+        this.parameterTypes = method.getParameterTypes();
+        this.genericReturnType = method.getGenericReturnType();
+        this.methodId = MethodDictionary.methodId(serviceName, methodName, parameterTypes);
+        ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
+        serviceMetaInfo.setServiceName(serviceName);
+        serviceMetaInfo.setServiceVersion(serviceVersion);
+        this.serviceKey = serviceMetaInfo.getServiceKey();
+        // 使用方法名作为负载均衡的参数
+        this.loadBalanceParams = Collections.singletonMap("methodName", methodName);
+        this.streamType = StreamType.of(method.getReturnType());
+        this.uploadIndex = StreamType.indexOfUploadParameter(parameterTypes);
+        this.serializer = SerializerFactory.getInstance(rpcConfig.getSerializerType());
+        this.preferredSerializer = SerializerSelector.select(method, rpcConfig);
+        this.registry = RegistryFactory.getInstance(rpcConfig.getRegistryConfig().getRegistry());
+        this.loadBalancer = LoadBalancerFactory.getInstance(rpcConfig.getLoadBalancerType());
+        this.retryStrategy = RetryStrategyFactory.getInstance(rpcConfig.getRetryStrategyType());
+        this.tolerantStrategy = TolerantStrategyFactory.getInstance(rpcConfig.getTolerantStrategyType());
+        this.failOverReserve = TolerantStrategyType.FAIL_OVER.getType().equals(rpcConfig.getTolerantStrategyType())
+                && rpcConfig.getFailOverMaxAttempts() > 1 ? rpcConfig.getFailOverReserveTimeout() : 0;
+        this.fallbackChain = TolerantStrategyType.FAIL_BACK.getType().equals(rpcConfig.getTolerantStrategyType())
+                ? FallbackChain.of(method, rpcConfig) : null;
+    }
+
+    /**
+     * 绑定参数，构造请求
+     *
+     * @param args 参数
+     * @return 请求对象
+     */
+    public RpcRequest newRequest(Object[] args) {
+        return new RpcRequest(serviceName, methodName, serviceVersion, parameterTypes, args, methodId);
+    }
+}
@@ -1,5 +1,8 @@
 package com.easy.simple.rpc.proxy;
 
+import cn.hutool.core.net.NetUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
 import cn.hutool.http.HttpRequest;
 import cn.hutool.http.HttpResponse;
 import com.easy.simple.rpc.RpcApplication;
@@ -7,26 +10,55 @@ import com.easy.simple.rpc.config.RpcConfig;
 import com.easy.simple.rpc.enity.RpcRequest;
 import com.easy.simple.rpc.enity.RpcResponse;
 import com.easy.simple.rpc.enity.ServiceMetaInfo;
-import com.easy.simple.rpc.protocol.CompactProtocolCodec;
+import com.easy.simple.rpc.fault.circuit.CircuitBreaker;
+import com.easy.simple.rpc.fault.circuit.CircuitBreakerRegistry;
+import com.easy.simple.rpc.protocol.MessageRecycler;
 import com.easy.simple.rpc.protocol.ProtocolConstant;
+import com.easy.simple.rpc.protocol.ProtocolFeatureEnum;
 import com.easy.simple.rpc.protocol.ProtocolMessage;
 import com.easy.simple.rpc.protocol.ProtocolMessageTypeEnum;
-import com.easy.simple.rpc.protocol.TcpPacketDecoder;
 import com.easy.simple.rpc.serializer.Serializer;
 import com.easy.simple.rpc.serializer.SerializerType;
 import com.easy.simple.rpc.server.ServerType;
+import com.easy.simple.rpc.shm.ShmClient;
+import com.easy.simple.rpc.stream.ClientStream;
+import com.easy.simple.rpc.stream.ClientStreamPublisher;
+import com.easy.simple.rpc.stream.ClientUpload;
+import com.easy.simple.rpc.stream.StreamType;
+import com.easy.simple.rpc.utils.AllocationMetric;
 import io.vertx.core.Vertx;
-import io.vertx.core.buffer.Buffer;
+import io.vertx.core.VertxOptions;
 import io.vertx.core.net.NetClient;
+import io.vertx.core.net.SocketAddress;
 
-import java.io.IOException;
+import java.io.File;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.StreamSupport;
 
 /**
  * 请求发送器 - 根据配置发送HTTP或TCP请求
  */
 public class RequestSender {
 
+    /**
+     * 客户端共享的 Vert.x 实例，优先使用原生传输（支持 Unix 域套接字）
+     */
+    private static final Vertx VERTX = Vertx.vertx(new VertxOptions().setPreferNativeTransport(true));
+
+    /**
+     * 客户端共享的 TCP 客户端
+     */
+    private static final NetClient NET_CLIENT = VERTX.createNetClient();
+
+    /**
+     * 本机主机名
+     */
+    private static final String LOCAL_HOST_NAME = NetUtil.getLocalHostName();
+
     /**
      * 发送RPC请求
      *
@@ -36,22 +68,93 @@ public class RequestSender {
      * @return RPC响应
      */
     public static RpcResponse sendRequest(RpcRequest rpcRequest, ServiceMetaInfo selectedServiceMetaInfo, Serializer serializer) throws Exception {
+        return sendRequest(rpcRequest, selectedServiceMetaInfo, serializer, null);
+    }
+
+    /**
+     * 发送RPC请求，TCP 请求使用方法指定的序列化器
+     *
+     * @param rpcRequest 请求对象
+     * @param selectedServiceMetaInfo 选中的服务元信息
+     * @param serializer 序列化器（HTTP 请求使用）
+     * @param preferredSerializer 方法指定的序列化器，为 null 或提供者不支持时使用连接协商的序列化器
+     * @return RPC响应
+     */
+    public static RpcResponse sendRequest(RpcRequest rpcRequest, ServiceMetaInfo selectedServiceMetaInfo, Serializer serializer,
+                                          SerializerType preferredSerializer) throws Exception {
+        return sendRequest(rpcRequest, selectedServiceMetaInfo, serializer, preferredSerializer,
+                RpcApplication.getRpcConfig().getCallTimeout());
+    }
+
+    /**
+     * 发送RPC请求，指定超时时间（如故障转移时不超过调用的剩余时间）
+     *
+     * @param rpcRequest 请求对象
+     * @param selectedServiceMetaInfo 选中的服务元信息
+     * @param serializer 序列化器（HTTP 请求使用）
+     * @param preferredSerializer 方法指定的序列化器，为 null 或提供者不支持时使用连接协商的序列化器
+     * @param timeoutMillis 超时时间（毫秒）
+     * @return RPC响应
+     */
+    public static RpcResponse sendRequest(RpcRequest rpcRequest, ServiceMetaInfo selectedServiceMetaInfo, Serializer serializer,
+                                          SerializerType preferredSerializer, long timeoutMillis) throws Exception {
         RpcConfig rpcConfig = RpcApplication.getRpcConfig();
         String serverType = rpcConfig.getServerType();
         
         if (serverType.equals(ServerType.HTTP.getType())) {
-            return sendHttpRequest(rpcRequest, selectedServiceMetaInfo, serializer);
+            return sendHttpRequest(rpcRequest, selectedServiceMetaInfo, serializer, timeoutMillis);
+        } else if (serverType.equals(ServerType.SHM.getType()) && isSameHost(selectedServiceMetaInfo)
+                && ShmClient.isAvailable(selectedServiceMetaInfo.getServiceShmPath())) {
+            // 同机且提供者开启了共享内存通道
+            return sendShmRequest(rpcRequest, selectedServiceMetaInfo, timeoutMillis);
         } else {
             // 默认使用TCP
-            return sendTcpRequest(rpcRequest, selectedServiceMetaInfo, serializer);
+            return sendTcpRequest(rpcRequest, selectedServiceMetaInfo, preferredSerializer, timeoutMillis);
+        }
+    }
+
+    /**
+     * 向选中的节点发送请求：结果计入该节点的熔断器，提供者拒绝（过载、排队超时）时抛出异常，交给重试和容错策略
+     *
+     * @param rpcRequest 请求对象
+     * @param selectedServiceMetaInfo 选中的服务元信息
+     * @param serializer 序列化器（HTTP 请求使用）
+     * @param preferredSerializer 方法指定的序列化器
+     * @param timeoutMillis 超时时间（毫秒）
+     * @return RPC响应
+     */
+    public static RpcResponse invokeNode(RpcRequest rpcRequest, ServiceMetaInfo selectedServiceMetaInfo, Serializer serializer,
+                                         SerializerType preferredSerializer, long timeoutMillis) throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreakerRegistry.get(selectedServiceMetaInfo);
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            throw new RuntimeException("服务节点已熔断: " + circuitBreaker.getAddress());
         }
+        long start = System.nanoTime();
+        RpcResponse rpcResponse;
+        try {
+            rpcResponse = sendRequest(rpcRequest, selectedServiceMetaInfo, serializer, preferredSerializer, timeoutMillis);
+        } catch (Exception e) {
+            if (circuitBreaker != null) {
+                circuitBreaker.onResult(System.nanoTime() - start, true);
+            }
+            throw e;
+        }
+        boolean rejected = CircuitBreaker.isFailure(rpcResponse);
+        if (circuitBreaker != null) {
+            circuitBreaker.onResult(System.nanoTime() - start, rejected);
+        }
+        if (rejected) {
+            throw rpcResponse.getException();
+        }
+        return rpcResponse;
     }
 
     /**
      * 发送HTTP请求
      */
-    private static RpcResponse sendHttpRequest(RpcRequest rpcRequest, ServiceMetaInfo selectedServiceMetaInfo, Serializer serializer) throws Exception {
-        // 序列化请求
+    private static RpcResponse sendHttpRequest(RpcRequest rpcRequest, ServiceMetaInfo selectedServiceMetaInfo, Serializer serializer,
+                                               long timeoutMillis) throws Exception {
+        // 序列化请求（HTTP 没有握手，无法确认提供者支持方法编号，携带完整的服务名、方法名和参数类型）
         byte[] bodyBytes = serializer.serialize(rpcRequest);
         
         // 发送HTTP POST请求
@@ -59,11 +162,11 @@ public class RequestSender {
             selectedServiceMetaInfo.getServiceHost(), 
             selectedServiceMetaInfo.getServicePort());
         
-        // 设置超时时间（连接超时和读取超时都设置为5秒）
+        // 设置超时时间（连接超时和读取超时）
         try (HttpResponse httpResponse = HttpRequest.post(url)
                 .body(bodyBytes)
-                .setConnectionTimeout(RpcApplication.getRpcConfig().getConnectionTimeout())  // 连接超时
-                .setReadTimeout(5000)       // 读取超时
+                .setConnectionTimeout((int) Math.min(RpcApplication.getRpcConfig().getConnectionTimeout(), timeoutMillis))  // 连接超时
+                .setReadTimeout((int) timeoutMillis)       // 读取超时
                 .execute()) {
             
             byte[] result = httpResponse.bodyBytes();
@@ -73,93 +176,193 @@ public class RequestSender {
     }
 
     /**
-     * 发送TCP请求
+     * 发送TCP请求（复用到该提供者的长连接）
      */
-    private static RpcResponse sendTcpRequest(RpcRequest rpcRequest, ServiceMetaInfo selectedServiceMetaInfo, Serializer serializer) throws Exception {
-        Vertx vertx = Vertx.vertx();
-        NetClient netClient = vertx.createNetClient();
-        CompletableFuture<RpcResponse> responseFuture = new CompletableFuture<>();
+    private static RpcResponse sendTcpRequest(RpcRequest rpcRequest, ServiceMetaInfo selectedServiceMetaInfo,
+                                              SerializerType preferredSerializer, long timeoutMillis) throws Exception {
+        long allocationStart = AllocationMetric.start();
+        // 建立连接和握手计入本次调用的超时时间
+        long start = System.nanoTime();
+        RpcConnection connection = getConnection(selectedServiceMetaInfo, timeoutMillis);
+        long remainingMillis = timeoutMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (remainingMillis <= 0) {
+            throw new TimeoutException("建立连接已用完超时时间: " + selectedServiceMetaInfo.getServiceAddress());
+        }
+        ProtocolMessage<RpcRequest> protocolMessage = buildRequestMessage(rpcRequest, connection, preferredSerializer);
+        CompletableFuture<RpcResponse> responseFuture = connection.call(protocolMessage, remainingMillis);
+        // 请求已编码写出，消息和消息头不再使用
+        MessageRecycler.recycle(protocolMessage);
+        AllocationMetric.CONSUMER.record(allocationStart);
+        AllocationMetric.CONSUMER.addCall();
+        return responseFuture.get();
+    }
 
-        // 序列化请求体
-        byte[] bodyBytes = serializer.serialize(rpcRequest);
-        
-        netClient.connect(selectedServiceMetaInfo.getServicePort(), selectedServiceMetaInfo.getServiceHost(), result -> {
-            if (result.succeeded()) {
-                System.out.println("Connected to server: " + selectedServiceMetaInfo.getServiceAddress());
-                io.vertx.core.net.NetSocket netSocket = result.result();
-
-                // 使用装饰器模式处理TCP粘包/半包问题
-                TcpPacketDecoder packetDecoder = new TcpPacketDecoder(completeMessages -> {
-                    // 处理所有完整的消息
-                    for (ProtocolMessage<?> protocolMessageResponse : completeMessages) {
-                        // 验证消息类型和消息体类型
-                        if (protocolMessageResponse.getHeader().getType() != ProtocolMessageTypeEnum.RESPONSE.getKey()) {
-                            System.err.println("期望响应消息，但收到类型: " + protocolMessageResponse.getHeader().getType());
-                            continue;
-                        }
-
-                        if (!(protocolMessageResponse.getBody() instanceof RpcResponse)) {
-                            System.err.println("消息体类型不匹配，期望RpcResponse，实际: " +
-                                    (protocolMessageResponse.getBody() != null ? protocolMessageResponse.getBody().getClass().getName() : "null"));
-                            continue;
-                        }
-
-                        RpcResponse rpcResponse = (RpcResponse) protocolMessageResponse.getBody();
-                        System.out.println(rpcResponse);
-                        // 完成Future，将响应返回给调用方
-                        responseFuture.complete(rpcResponse);
-
-                        // 收到响应后关闭连接
-                        netSocket.close();
-                        break; // 只处理第一个有效响应
-                    }
-                });
-
-                // 设置处理器
-                netSocket.handler(packetDecoder);
-
-                // 发送请求
-                // 构造消息
-                ProtocolMessage<RpcRequest> protocolMessage = new ProtocolMessage<>();
-                ProtocolMessage.Header header = new ProtocolMessage.Header();
-                header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
-                header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
-                header.setSerializer((byte) SerializerType.getKeyByType(RpcApplication.getRpcConfig().getSerializerType()));
-                header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getKey());
-                header.setRequestId(System.currentTimeMillis());
-                header.setBodyLength(bodyBytes.length);
-                protocolMessage.setHeader(header);
-                protocolMessage.setBody(rpcRequest);
-                
-                try {
-                    // 按协议编码
-                    Buffer encodedBuffer = CompactProtocolCodec.encode(protocolMessage);
-                    // 发送请求
-                    netSocket.write(encodedBuffer);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                    responseFuture.completeExceptionally(e);
-                }
-
-                // 设置超时处理
-                vertx.setTimer(5000, timerId -> {
-                    if (!responseFuture.isDone()) {
-                        responseFuture.completeExceptionally(new RuntimeException("请求超时"));
-                        netSocket.close();
-                    }
-                });
-
-            } else {
-                System.err.println("连接失败: " + result.cause().getMessage());
-                responseFuture.completeExceptionally(result.cause());
-            }
-        });
+    /**
+     * 发送流式请求，返回与方法声明类型一致的迭代器 / Stream / 发布者
+     *
+     * @param rpcRequest 请求对象
+     * @param selectedServiceMetaInfo 选中的服务元信息
+     * @param streamType 流式返回类型
+     * @param preferredSerializer 方法指定的序列化器，可为 null
+     * @return 消费者端的流
+     */
+    public static Object sendStreamRequest(RpcRequest rpcRequest, ServiceMetaInfo selectedServiceMetaInfo, StreamType streamType,
+                                           SerializerType preferredSerializer) throws Exception {
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        if (rpcConfig.getServerType().equals(ServerType.HTTP.getType())) {
+            throw new UnsupportedOperationException("流式调用仅支持 TCP 传输");
+        }
+        // 共享内存通道为请求/响应模式，流式调用统一走长连接
+        RpcConnection connection = getConnection(selectedServiceMetaInfo);
+        if (!connection.supports(ProtocolFeatureEnum.STREAM)) {
+            throw new UnsupportedOperationException("提供者不支持流式调用");
+        }
+        ProtocolMessage<RpcRequest> protocolMessage = buildRequestMessage(rpcRequest, connection, preferredSerializer);
+        if (streamType == StreamType.PUBLISHER) {
+            return new ClientStreamPublisher(connection, protocolMessage);
+        }
+        ClientStream clientStream = new ClientStream(connection, rpcConfig.getStreamWindowSize(), rpcConfig.getCallTimeout());
+        clientStream.start(protocolMessage);
+        if (streamType == StreamType.STREAM) {
+            // 提前关闭 Stream 时通知提供者取消
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(clientStream, Spliterator.ORDERED), false)
+                    .onClose(clientStream::close);
+        }
+        return clientStream;
+    }
 
-        try {
-            return responseFuture.get();
-        } finally {
-            // 关闭连接
-            netClient.close();
+    /**
+     * 发送客户端流式请求，流式参数的元素按提供者授予的额度分块上传
+     *
+     * @param rpcRequest 请求对象（流式参数位置为 null）
+     * @param selectedServiceMetaInfo 选中的服务元信息
+     * @param uploadSource 流式参数（Iterator 或 Stream）
+     * @param preferredSerializer 方法指定的序列化器，可为 null
+     * @return RPC响应
+     */
+    public static RpcResponse sendUploadRequest(RpcRequest rpcRequest, ServiceMetaInfo selectedServiceMetaInfo, Object uploadSource,
+                                                SerializerType preferredSerializer) throws Exception {
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        if (rpcConfig.getServerType().equals(ServerType.HTTP.getType())) {
+            throw new UnsupportedOperationException("流式调用仅支持 TCP 传输");
+        }
+        RpcConnection connection = getConnection(selectedServiceMetaInfo);
+        if (!connection.supports(ProtocolFeatureEnum.UPLOAD)) {
+            throw new UnsupportedOperationException("提供者不支持客户端流式调用");
+        }
+        ClientUpload clientUpload = new ClientUpload(connection, rpcConfig.getStreamChunkSize(), rpcConfig.getCallTimeout());
+        return clientUpload.send(buildRequestMessage(rpcRequest, connection, preferredSerializer), uploadSource);
+    }
+
+    /**
+     * 获取到提供者的长连接
+     */
+    private static RpcConnection getConnection(ServiceMetaInfo selectedServiceMetaInfo) throws Exception {
+        return getConnection(selectedServiceMetaInfo, Long.MAX_VALUE);
+    }
+
+    /**
+     * 获取到提供者的长连接，最多等待指定时间
+     */
+    private static RpcConnection getConnection(ServiceMetaInfo selectedServiceMetaInfo, long waitMillis) throws Exception {
+        return RpcConnectionPool.getConnection(NET_CLIENT, resolveSocketAddress(selectedServiceMetaInfo),
+                RpcApplication.getRpcConfig().getConnectionTimeout(), waitMillis);
+    }
+
+    /**
+     * 一次尝试的超时时间：调用的剩余时间减去为之后转移的节点预留的时间（最多预留剩余时间的一半）
+     *
+     * @param deadline      调用的截止时间（System.nanoTime）
+     * @param reserveMillis 预留时间（毫秒）
+     * @return 超时时间（毫秒）
+     * @throws TimeoutException 已到截止时间
+     */
+    public static long attemptTimeout(long deadline, long reserveMillis) throws TimeoutException {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remainingMillis <= 0) {
+            throw new TimeoutException("已到调用截止时间");
+        }
+        return Math.max(1, remainingMillis - Math.min(reserveMillis, remainingMillis / 2));
+    }
+
+    /**
+     * 通过共享内存发送请求
+     */
+    private static RpcResponse sendShmRequest(RpcRequest rpcRequest, ServiceMetaInfo selectedServiceMetaInfo, long timeoutMillis) throws Exception {
+        ShmClient shmClient = ShmClient.getInstance(selectedServiceMetaInfo.getServiceShmPath());
+        // 共享内存通道没有握手，与 HTTP 一样携带完整的请求信息
+        return shmClient.call(buildRequestMessage(rpcRequest, false), timeoutMillis);
+    }
+
+    /**
+     * 构造长连接上的请求协议消息（按握手结果决定是否只携带方法编号、能否使用方法指定的序列化器）
+     */
+    private static ProtocolMessage<RpcRequest> buildRequestMessage(RpcRequest rpcRequest, RpcConnection connection,
+                                                                   SerializerType preferredSerializer) {
+        boolean useMethodId = RpcApplication.getRpcConfig().isMethodIdEnabled() && connection.supports(ProtocolFeatureEnum.METHOD_ID);
+        ProtocolMessage<RpcRequest> protocolMessage = buildRequestMessage(rpcRequest, useMethodId);
+        protocolMessage.getHeader().setSerializer(connection.serializerFor(preferredSerializer));
+        return protocolMessage;
+    }
+
+    /**
+     * 构造请求协议消息
+     *
+     * @param rpcRequest  请求对象
+     * @param useMethodId 是否只携带方法编号
+     * @return 协议消息
+     */
+    private static ProtocolMessage<RpcRequest> buildRequestMessage(RpcRequest rpcRequest, boolean useMethodId) {
+        ProtocolMessage.Header header = MessageRecycler.newHeader();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) SerializerType.getKeyByType(RpcApplication.getRpcConfig().getSerializerType()));
+        header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getKey());
+        header.setRequestId(IdUtil.getSnowflakeNextId());
+        return MessageRecycler.newMessage(header, toWireRequest(rpcRequest, useMethodId));
+    }
+
+    /**
+     * 构造实际发送的请求：带方法编号时只保留编号和参数
+     *
+     * @param rpcRequest  请求对象（消费者端保留完整信息，供容错策略使用）
+     * @param useMethodId 是否只携带方法编号
+     * @return 发送的请求对象
+     */
+    private static RpcRequest toWireRequest(RpcRequest rpcRequest, boolean useMethodId) {
+        if (rpcRequest.getMethodId() == 0 || !useMethodId) {
+            return rpcRequest;
+        }
+        RpcRequest wireRequest = new RpcRequest();
+        wireRequest.setServiceVersion(null);
+        wireRequest.setMethodId(rpcRequest.getMethodId());
+        wireRequest.setArgs(rpcRequest.getArgs());
+        return wireRequest;
+    }
+
+    /**
+     * 解析连接地址：提供者与消费者同机且发布了 Unix 域套接字时优先使用，跳过 TCP 协议栈
+     *
+     * @param serviceMetaInfo 服务元信息
+     * @return 连接地址
+     */
+    private static SocketAddress resolveSocketAddress(ServiceMetaInfo serviceMetaInfo) {
+        String socketPath = serviceMetaInfo.getServiceSocketPath();
+        if (StrUtil.isNotBlank(socketPath) && VERTX.isNativeTransportEnabled()
+                && isSameHost(serviceMetaInfo) && new File(socketPath).exists()) {
+            return SocketAddress.domainSocketAddress(socketPath);
+        }
+        return SocketAddress.inetSocketAddress(serviceMetaInfo.getServicePort(), serviceMetaInfo.getServiceHost());
+    }
+
+    /**
+     * 判断服务提供者是否与当前消费者在同一台机器
+     */
+    private static boolean isSameHost(ServiceMetaInfo serviceMetaInfo) {
+        String serviceHost = serviceMetaInfo.getServiceHost();
+        if ("localhost".equals(serviceHost) || "127.0.0.1".equals(serviceHost)) {
+            return true;
         }
+        return LOCAL_HOST_NAME != null && LOCAL_HOST_NAME.equals(serviceMetaInfo.getServiceHostName());
     }
 }
\ No newline at end of file
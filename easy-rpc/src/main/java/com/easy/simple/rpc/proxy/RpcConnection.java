@@ -0,0 +1,403 @@
+package com.easy.simple.rpc.proxy;
+
+import com.easy.simple.rpc.RpcApplication;
+import com.easy.simple.rpc.config.RpcConfig;
+import com.easy.simple.rpc.enity.RpcRequest;
+import com.easy.simple.rpc.enity.RpcResponse;
+import com.easy.simple.rpc.protocol.FrameWriter;
+import com.easy.simple.rpc.protocol.Handshake;
+import com.easy.simple.rpc.protocol.MessageRecycler;
+import com.easy.simple.rpc.protocol.ProtocolFeatureEnum;
+import com.easy.simple.rpc.protocol.ProtocolConstant;
+import com.easy.simple.rpc.protocol.ProtocolMessage;
+import com.easy.simple.rpc.protocol.ProtocolMessageTypeEnum;
+import com.easy.simple.rpc.protocol.TcpPacketDecoder;
+import com.easy.simple.rpc.serializer.SerializerType;
+import com.easy.simple.rpc.stream.StreamListener;
+import com.easy.simple.rpc.utils.AllocationMetric;
+import io.vertx.core.net.NetSocket;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * 消费者到提供者的 TCP 长连接（多路复用）
+ * 同一连接上并发的普通调用和流式调用通过请求 id 区分
+ */
+public class RpcConnection {
+
+    private final NetSocket netSocket;
+
+    private final FrameWriter frameWriter;
+
+    /**
+     * 连接关闭时的回调（从连接池移除）
+     */
+    private final Runnable onClose;
+
+    private final AtomicLong requestIdGenerator = new AtomicLong();
+
+    /**
+     * 等待响应的普通调用
+     */
+    private final Map<Long, CompletableFuture<RpcResponse>> pendingCalls = new ConcurrentHashMap<>();
+
+    /**
+     * 进行中的流式调用
+     */
+    private final Map<Long, StreamListener> streamListeners = new ConcurrentHashMap<>();
+
+    /**
+     * 进行中的客户端流式上传（提供者授予额度时回调）
+     */
+    private final Map<Long, LongConsumer> uploadCreditListeners = new ConcurrentHashMap<>();
+
+    /**
+     * 等待提供者回复的握手
+     */
+    private final CompletableFuture<Handshake> handshakeFuture = new CompletableFuture<>();
+
+    /**
+     * 协商的序列化器 key
+     */
+    private volatile byte serializer;
+
+    /**
+     * 提供者支持的序列化器 key（握手回复中协商的在前），方法指定的序列化器在其中时才使用
+     */
+    private volatile byte[] acceptedSerializers;
+
+    /**
+     * 协商的特性位图
+     */
+    private volatile int features;
+
+    private volatile boolean closed;
+
+    public RpcConnection(NetSocket netSocket, Runnable onClose) {
+        this.netSocket = netSocket;
+        this.onClose = onClose;
+        // 握手确认提供者支持分片后再启用
+        this.frameWriter = new FrameWriter(netSocket, 0);
+        this.serializer = (byte) SerializerType.getKeyByType(RpcApplication.getRpcConfig().getSerializerType());
+        this.acceptedSerializers = new byte[]{serializer};
+        // 使用装饰器模式处理TCP粘包/半包问题
+        TcpPacketDecoder packetDecoder = new TcpPacketDecoder(protocolMessage -> {
+            dispatch(protocolMessage);
+            // 分发后只有消息体还在使用
+            MessageRecycler.recycle(protocolMessage);
+        });
+        netSocket.handler(buffer -> {
+            long allocationStart = AllocationMetric.start();
+            packetDecoder.handle(buffer);
+            AllocationMetric.CONSUMER.record(allocationStart);
+        });
+        netSocket.closeHandler(v -> handleClose(new IOException("连接已关闭: " + netSocket.remoteAddress())));
+        netSocket.exceptionHandler(e -> {
+            System.err.println("连接异常: " + e.getMessage());
+            netSocket.close();
+        });
+    }
+
+    /**
+     * 握手：发送本端支持的版本、序列化器和特性，按提供者的回复确定该连接使用的序列化器和特性
+     * 提供者未在超时时间内回复时（不支持握手的旧版本），按配置的序列化器通信且不启用任何特性
+     *
+     * @param timeoutMillis 超时时间
+     * @return 握手完成后的连接；配置的序列化器无法使用（或固定序列化器时提供者不支持）时异常结束并关闭连接
+     */
+    public CompletableFuture<RpcConnection> handshake(long timeoutMillis) {
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        Handshake offer;
+        try {
+            offer = Handshake.offer(rpcConfig);
+        } catch (IllegalStateException e) {
+            netSocket.close();
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            write(new ProtocolMessage<>(controlHeader(ProtocolMessageTypeEnum.HANDSHAKE, 0), offer));
+        } catch (IOException e) {
+            handshakeFuture.completeExceptionally(e);
+        }
+        return handshakeFuture.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).handle((result, e) -> {
+            if (e != null) {
+                System.err.println("握手失败，使用配置的序列化器: " + netSocket.remoteAddress() + ", " + e);
+                return this;
+            }
+            if (rpcConfig.isSerializerPinned()
+                    && (result.getSerializers().length == 0 || result.getSerializers()[0] != offer.getSerializers()[0])) {
+                netSocket.close();
+                throw new IllegalStateException("提供者不支持配置的序列化器 " + rpcConfig.getSerializerType() + ": " + netSocket.remoteAddress());
+            }
+            if (result.getSerializers().length > 0) {
+                serializer = result.getSerializers()[0];
+                acceptedSerializers = result.getSerializers();
+            }
+            features = result.getFeatures();
+            if (result.supports(ProtocolFeatureEnum.FRAGMENT)) {
+                frameWriter.setFragmentSize(rpcConfig.getFragmentSize());
+            }
+            if (result.supports(ProtocolFeatureEnum.STRING_DICTIONARY)) {
+                frameWriter.enableDictionary(rpcConfig.getStringDictionarySize());
+            }
+            if (result.supports(ProtocolFeatureEnum.PRIMITIVE_BODY)) {
+                frameWriter.enablePrimitiveBody();
+            }
+            return this;
+        });
+    }
+
+    /**
+     * 提供者是否支持指定特性（握手协商结果）
+     */
+    public boolean supports(ProtocolFeatureEnum feature) {
+        return (features & feature.mask()) != 0;
+    }
+
+    /**
+     * 请求使用的序列化器：方法指定且提供者支持时使用指定的，否则使用协商的
+     *
+     * @param preferredSerializer 方法指定的序列化器，可为 null
+     * @return 序列化器 key
+     */
+    public byte serializerFor(SerializerType preferredSerializer) {
+        if (preferredSerializer != null && isAccepted((byte) preferredSerializer.getKey())) {
+            return (byte) preferredSerializer.getKey();
+        }
+        return serializer;
+    }
+
+    private boolean isAccepted(byte serializerKey) {
+        for (byte accepted : acceptedSerializers) {
+            if (accepted == serializerKey) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 发送普通请求
+     *
+     * @param protocolMessage 请求消息（请求 id 由连接分配）
+     * @param timeoutMillis   超时时间
+     * @return 响应
+     */
+    public CompletableFuture<RpcResponse> call(ProtocolMessage<RpcRequest> protocolMessage, long timeoutMillis) {
+        long requestId = requestIdGenerator.incrementAndGet();
+        protocolMessage.getHeader().setRequestId(requestId);
+        CompletableFuture<RpcResponse> responseFuture = new CompletableFuture<>();
+        pendingCalls.put(requestId, responseFuture);
+        // 超时或完成后移除
+        responseFuture.whenComplete((response, e) -> pendingCalls.remove(requestId));
+        try {
+            write(protocolMessage);
+        } catch (IOException e) {
+            responseFuture.completeExceptionally(e);
+        }
+        return responseFuture.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 发起流式调用
+     *
+     * @param protocolMessage 请求消息（请求 id 由连接分配）
+     * @param listener        流式响应监听器
+     * @return 请求 id
+     */
+    public long openStream(ProtocolMessage<RpcRequest> protocolMessage, StreamListener listener) throws IOException {
+        long requestId = requestIdGenerator.incrementAndGet();
+        protocolMessage.getHeader().setRequestId(requestId);
+        streamListeners.put(requestId, listener);
+        try {
+            write(protocolMessage);
+        } catch (IOException e) {
+            streamListeners.remove(requestId);
+            throw e;
+        }
+        return requestId;
+    }
+
+    /**
+     * 发起客户端流式上传，随后通过 sendUploadChunk / endUpload 发送参数
+     *
+     * @param protocolMessage 请求消息（请求 id 由连接分配）
+     * @param creditListener  提供者授予额度时的回调
+     * @return 响应（不设超时，由调用方控制）
+     */
+    public CompletableFuture<RpcResponse> openUpload(ProtocolMessage<RpcRequest> protocolMessage, LongConsumer creditListener) {
+        long requestId = requestIdGenerator.incrementAndGet();
+        protocolMessage.getHeader().setRequestId(requestId);
+        CompletableFuture<RpcResponse> responseFuture = new CompletableFuture<>();
+        pendingCalls.put(requestId, responseFuture);
+        uploadCreditListeners.put(requestId, creditListener);
+        responseFuture.whenComplete((response, e) -> {
+            pendingCalls.remove(requestId);
+            uploadCreditListeners.remove(requestId);
+        });
+        try {
+            write(protocolMessage);
+        } catch (IOException e) {
+            responseFuture.completeExceptionally(e);
+        }
+        return responseFuture;
+    }
+
+    /**
+     * 发送一个上传分块
+     *
+     * @param requestId 请求 id
+     * @param elements  分块中的元素
+     */
+    public void sendUploadChunk(long requestId, Object[] elements) throws IOException {
+        // 元素放在 args 中，参数类型随元素发送，便于 JSON 等序列化器还原类型
+        Class<?>[] elementTypes = new Class<?>[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            elementTypes[i] = elements[i] == null ? Object.class : elements[i].getClass();
+        }
+        RpcRequest chunk = new RpcRequest();
+        chunk.setParameterTypes(elementTypes);
+        chunk.setArgs(elements);
+        write(new ProtocolMessage<>(controlHeader(ProtocolMessageTypeEnum.UPLOAD, requestId), chunk));
+    }
+
+    /**
+     * 结束上传
+     *
+     * @param requestId 请求 id
+     * @param exception 消费者端读取参数时的异常，正常结束为 null
+     */
+    public void endUpload(long requestId, Exception exception) {
+        RpcResponse rpcResponse = null;
+        if (exception != null) {
+            rpcResponse = new RpcResponse();
+            rpcResponse.setMessage(exception.getMessage());
+            rpcResponse.setException(exception);
+        }
+        writeControl(ProtocolMessageTypeEnum.UPLOAD_END, requestId, rpcResponse);
+    }
+
+    /**
+     * 向提供者授予流式额度
+     *
+     * @param requestId 请求 id
+     * @param n         额度
+     */
+    public void requestN(long requestId, long n) {
+        writeControl(ProtocolMessageTypeEnum.STREAM_REQUEST_N, requestId, n);
+    }
+
+    /**
+     * 取消流式调用
+     *
+     * @param requestId 请求 id
+     */
+    public void cancelStream(long requestId) {
+        if (streamListeners.remove(requestId) != null) {
+            writeControl(ProtocolMessageTypeEnum.STREAM_END, requestId, null);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 分发收到的消息
+     */
+    private void dispatch(ProtocolMessage<?> protocolMessage) {
+        long requestId = protocolMessage.getHeader().getRequestId();
+        ProtocolMessageTypeEnum messageType = ProtocolMessageTypeEnum.getEnumByKey(protocolMessage.getHeader().getType());
+        if (messageType == null) {
+            System.err.println("未知消息类型: " + protocolMessage.getHeader().getType());
+            return;
+        }
+        StreamListener listener;
+        switch (messageType) {
+            case RESPONSE:
+                CompletableFuture<RpcResponse> responseFuture = pendingCalls.remove(requestId);
+                if (responseFuture != null) {
+                    responseFuture.complete((RpcResponse) protocolMessage.getBody());
+                    return;
+                }
+                // 流式方法调用失败时，提供者返回普通响应
+                listener = streamListeners.remove(requestId);
+                if (listener != null) {
+                    listener.onEnd((RpcResponse) protocolMessage.getBody());
+                }
+                break;
+            case STREAM:
+                listener = streamListeners.get(requestId);
+                if (listener != null) {
+                    listener.onNext((RpcResponse) protocolMessage.getBody());
+                }
+                break;
+            case STREAM_END:
+                listener = streamListeners.remove(requestId);
+                if (listener != null) {
+                    listener.onEnd((RpcResponse) protocolMessage.getBody());
+                }
+                break;
+            case HANDSHAKE:
+                handshakeFuture.complete((Handshake) protocolMessage.getBody());
+                break;
+            case STREAM_REQUEST_N:
+                // 提供者为上传授予额度
+                LongConsumer creditListener = uploadCreditListeners.get(requestId);
+                if (creditListener != null && protocolMessage.getBody() instanceof Long) {
+                    creditListener.accept((Long) protocolMessage.getBody());
+                }
+                break;
+            default:
+                System.err.println("期望响应消息，但收到类型: " + messageType);
+        }
+    }
+
+    private void handleClose(IOException e) {
+        closed = true;
+        onClose.run();
+        pendingCalls.values().forEach(responseFuture -> responseFuture.completeExceptionally(e));
+        pendingCalls.clear();
+        uploadCreditListeners.clear();
+        streamListeners.values().forEach(listener -> listener.onError(e));
+        streamListeners.clear();
+    }
+
+    private void write(ProtocolMessage<?> protocolMessage) throws IOException {
+        if (closed) {
+            throw new IOException("连接已关闭: " + netSocket.remoteAddress());
+        }
+        // 帧头中的序列化器提供者不支持时，使用该连接协商的序列化器
+        if (!isAccepted(protocolMessage.getHeader().getSerializer())) {
+            protocolMessage.getHeader().setSerializer(serializer);
+        }
+        frameWriter.write(protocolMessage);
+    }
+
+    /**
+     * 发送流控制帧
+     */
+    private void writeControl(ProtocolMessageTypeEnum type, long requestId, Object body) {
+        try {
+            write(new ProtocolMessage<>(controlHeader(type, requestId), body));
+        } catch (IOException e) {
+            System.err.println("流控制帧发送失败: " + e.getMessage());
+        }
+    }
+
+    private ProtocolMessage.Header controlHeader(ProtocolMessageTypeEnum type, long requestId) {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer(serializer);
+        header.setType((byte) type.getKey());
+        header.setRequestId(requestId);
+        return header;
+    }
+}
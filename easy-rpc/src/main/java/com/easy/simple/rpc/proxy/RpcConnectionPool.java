@@ -0,0 +1,71 @@
+package com.easy.simple.rpc.proxy;
+
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.SocketAddress;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 连接池：每个提供者地址共享一条多路复用的长连接（建立时握手协商序列化器和特性），连接关闭后下次调用重新建立
+ */
+public class RpcConnectionPool {
+
+    /**
+     * 地址 => 连接
+     */
+    private static final Map<String, CompletableFuture<RpcConnection>> CONNECTIONS = new ConcurrentHashMap<>();
+
+    /**
+     * 获取到指定地址的连接，不存在时建立
+     *
+     * @param netClient     客户端
+     * @param address       提供者地址
+     * @param timeoutMillis 建立连接和握手各自的超时时间
+     * @param waitMillis    本次调用最多等待的时间（不超过调用的剩余时间）
+     * @return 连接
+     * @throws TimeoutException 等待超时，连接继续建立，供之后的调用使用
+     */
+    public static RpcConnection getConnection(NetClient netClient, SocketAddress address, long timeoutMillis,
+                                              long waitMillis) throws Exception {
+        String key = address.toString();
+        CompletableFuture<RpcConnection> connectionFuture = CONNECTIONS.computeIfAbsent(key, k -> connect(netClient, address, k, timeoutMillis));
+        try {
+            // 建立连接和握手各自不超过超时时间
+            return connectionFuture.get(Math.min(waitMillis, timeoutMillis * 2), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            CONNECTIONS.remove(key, connectionFuture);
+            throw e;
+        }
+    }
+
+    private static CompletableFuture<RpcConnection> connect(NetClient netClient, SocketAddress address, String key, long timeoutMillis) {
+        CompletableFuture<RpcConnection> connectionFuture = new CompletableFuture<>();
+        netClient.connect(address, result -> {
+            if (result.succeeded()) {
+                System.out.println("Connected to server: " + address);
+                // 握手完成后连接才可用，协商结果随连接缓存，请求不再协商
+                new RpcConnection(result.result(), () -> CONNECTIONS.remove(key, connectionFuture))
+                        .handshake(timeoutMillis)
+                        .whenComplete((connection, e) -> {
+                            if (e != null) {
+                                System.err.println("握手失败: " + e.getMessage());
+                                CONNECTIONS.remove(key, connectionFuture);
+                                connectionFuture.completeExceptionally(e);
+                            } else {
+                                connectionFuture.complete(connection);
+                            }
+                        });
+            } else {
+                System.err.println("连接失败: " + result.cause().getMessage());
+                CONNECTIONS.remove(key, connectionFuture);
+                connectionFuture.completeExceptionally(result.cause());
+            }
+        });
+        return connectionFuture;
+    }
+}
@@ -6,15 +6,7 @@ import com.easy.simple.rpc.config.RpcConfig;
 import com.easy.simple.rpc.enity.RpcRequest;
 import com.easy.simple.rpc.enity.RpcResponse;
 import com.easy.simple.rpc.enity.ServiceMetaInfo;
-import com.easy.simple.rpc.fault.retry.RetryStrategy;
-import com.easy.simple.rpc.fault.retry.RetryStrategyFactory;
-import com.easy.simple.rpc.fault.tolerant.TolerantStrategy;
-import com.easy.simple.rpc.fault.tolerant.TolerantStrategyFactory;
-import com.easy.simple.rpc.loadbalance.LoadBalancer;
-import com.easy.simple.rpc.loadbalance.LoadBalancerFactory;
-import com.easy.simple.rpc.registry.Registry;
-import com.easy.simple.rpc.registry.RegistryFactory;
-import com.easy.simple.rpc.serializer.Serializer;
+import com.easy.simple.rpc.fault.circuit.CircuitBreakerRegistry;
 import com.easy.simple.rpc.serializer.SerializerFactory;
 
 import java.lang.reflect.InvocationHandler;
@@ -22,12 +14,28 @@ import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 服务代理（JDK 动态代理）
  */
 public class ServiceProxy implements InvocationHandler {
 
+    /**
+     * 方法 => 调用描述（创建代理时构建，调用时只读）
+     */
+    private final Map<Method, InvocationDescriptor> descriptors = new HashMap<>();
+
+    public ServiceProxy(Class<?> serviceClass) {
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        for (Method method : serviceClass.getMethods()) {
+            if (!Object.class.equals(method.getDeclaringClass())) {
+                descriptors.put(method, new InvocationDescriptor(method, rpcConfig));
+            }
+        }
+        SerializerFactory.registerService(serviceClass);
+    }
+
     /**
      * 调用代理
      * @param proxy 代理对象
@@ -38,67 +46,124 @@ public class ServiceProxy implements InvocationHandler {
      */
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        InvocationDescriptor descriptor = descriptors.get(method);
         // 忽略Object类的方法调用（如toString、equals、hashCode等）,这些方法在调试的时候会自动调用，不需要通过网络发送请求
-        if (Object.class.equals(method.getDeclaringClass())) {
+        if (descriptor == null) {
             // 如果是本地方法，直接调用，不要通过网络发送请求
             return method.invoke(this, args);
         }
+        return invoke(descriptor, args);
+    }
 
-        // 指定序列化器
-        Serializer serializer = SerializerFactory.getInstance(RpcApplication.getRpcConfig().getSerializerType());
+    /**
+     * 获取方法的调用描述（生成的客户端存根在构造时获取）
+     *
+     * @param method 服务接口方法
+     * @return 调用描述
+     */
+    public InvocationDescriptor getDescriptor(Method method) {
+        InvocationDescriptor descriptor = descriptors.get(method);
+        if (descriptor == null) {
+            throw new IllegalArgumentException("不是服务接口方法: " + method);
+        }
+        return descriptor;
+    }
 
-        System.out.println(serializer.getClass().getName());
+    /**
+     * 发起远程调用
+     *
+     * @param descriptor 调用描述
+     * @param args       参数
+     * @return 返回值
+     * @throws Throwable 调用过程中可能抛出的异常
+     */
+    public Object invoke(InvocationDescriptor descriptor, Object[] args) throws Throwable {
+        // 客户端流式参数：元素以分块上传，请求中该参数置空
+        int uploadIndex = descriptor.getUploadIndex();
+        Object uploadSource = null;
+        if (uploadIndex >= 0) {
+            if (descriptor.getStreamType() != null) {
+                throw new UnsupportedOperationException("暂不支持双向流式方法: " + descriptor.getMethodName());
+            }
+            args = args.clone();
+            uploadSource = args[uploadIndex];
+            args[uploadIndex] = null;
+        }
 
-        // 构造请求
-        RpcRequest rpcRequest = RpcRequest.builder()
-                .serviceName(method.getDeclaringClass().getName())
-                .methodName(method.getName())
-                .parameterTypes(method.getParameterTypes())
-                .args(args)
-                .serviceVersion("1.0")
-                .build();
-        // 序列化
-        byte[] bodyBytes = serializer.serialize(rpcRequest);
-        // 发送请求
+        // 构造请求，调用（含故障转移）不超过截止时间
+        long callTimeout = RpcApplication.getRpcConfig().getCallTimeout();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(callTimeout);
+        RpcRequest rpcRequest = descriptor.newRequest(args);
         // 从注册中心获取服务地址
-        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
-        Registry registry = RegistryFactory.getInstance(rpcConfig.getRegistryConfig().getRegistry());
-        ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
-        serviceMetaInfo.setServiceName(rpcRequest.getServiceName());
-        serviceMetaInfo.setServiceVersion(rpcRequest.getServiceVersion());
-        List<ServiceMetaInfo> serviceMetaInfoList = registry.serviceDiscovery(serviceMetaInfo.getServiceKey());
-        System.out.println("从注册中心获取服务地址: " + serviceMetaInfoList);
+        List<ServiceMetaInfo> serviceMetaInfoList = descriptor.getRegistry().serviceDiscovery(descriptor.getServiceKey());
         if (serviceMetaInfoList.isEmpty()) {
             throw new RuntimeException("暂无服务地址");
         }
-        // 负载均衡器
-        LoadBalancer loadBalancer = LoadBalancerFactory.getInstance(rpcConfig.getLoadBalancerType());
-        // 使用方法名作为负载均衡的参数
-        Map<String, Object> requestParams = new HashMap<>();
-        requestParams.put("methodName", rpcRequest.getMethodName());
-        ServiceMetaInfo selectedServiceMetaInfo = loadBalancer.select(requestParams, serviceMetaInfoList);
+        // 熔断的节点不参与负载均衡
+        List<ServiceMetaInfo> permittedServiceMetaInfoList = CircuitBreakerRegistry.filter(serviceMetaInfoList);
+        if (permittedServiceMetaInfoList.isEmpty()) {
+            throw new RuntimeException("服务节点均已熔断: " + descriptor.getServiceKey());
+        }
+        // 负载均衡
+        ServiceMetaInfo selectedServiceMetaInfo = descriptor.getLoadBalancer().select(descriptor.getLoadBalanceParams(), permittedServiceMetaInfoList);
+        // 流式方法：结果分批推送 / 参数分块上传，已消费的元素无法重放，不走重试和容错
+        if (descriptor.getStreamType() != null) {
+            return RequestSender.sendStreamRequest(rpcRequest, selectedServiceMetaInfo, descriptor.getStreamType(), descriptor.getPreferredSerializer());
+        }
+        if (uploadIndex >= 0) {
+            return resultOf(descriptor, RequestSender.sendUploadRequest(rpcRequest, selectedServiceMetaInfo, uploadSource, descriptor.getPreferredSerializer()));
+        }
+        // 有其他节点可转移时才预留时间，慢但正常的调用仍可使用几乎全部的截止时间
+        long reserveMillis = permittedServiceMetaInfoList.size() > 1 ? descriptor.getFailOverReserve() : 0;
         RpcResponse retryRpcResponse = null;
         try {
-            // 重试策略
-            RetryStrategy retryStrategy = RetryStrategyFactory.getInstance(rpcConfig.getRetryStrategyType());
-            retryRpcResponse = retryStrategy.doRetry(() ->
-                RequestSender.sendRequest(rpcRequest, selectedServiceMetaInfo, serializer)
-            );
+            // 重试策略：每次尝试（含建立连接和握手）使用剩余时间减去预留时间，到截止时间不再重试
+            retryRpcResponse = descriptor.getRetryStrategy().doRetry(() -> RequestSender.invokeNode(rpcRequest, selectedServiceMetaInfo,
+                    descriptor.getSerializer(), descriptor.getPreferredSerializer(),
+                    RequestSender.attemptTimeout(deadline, reserveMillis)), deadline);
 
         } catch (Exception e) {
             // 容错策略
-            TolerantStrategy tolerantStrategy = TolerantStrategyFactory.getInstance(rpcConfig.getTolerantStrategyType());
-            
             // 构建容错上下文
             Map<String, Object> tolerantContext = new HashMap<>();
             tolerantContext.put("rpcRequest", rpcRequest);
             tolerantContext.put("selectedServiceMetaInfo", selectedServiceMetaInfo);
             tolerantContext.put("serviceMetaInfoList", serviceMetaInfoList);
-            tolerantContext.put("methodName", method.getName());
-            
-            RpcResponse tolerantRpcResponse = tolerantStrategy.doTolerant(tolerantContext, e);
-            return tolerantRpcResponse.getData();
+            tolerantContext.put("methodName", descriptor.getMethodName());
+            tolerantContext.put("serializer", descriptor.getSerializer());
+            tolerantContext.put("preferredSerializer", descriptor.getPreferredSerializer());
+            tolerantContext.put("loadBalancer", descriptor.getLoadBalancer());
+            tolerantContext.put("loadBalanceParams", descriptor.getLoadBalanceParams());
+            tolerantContext.put("deadline", deadline);
+            tolerantContext.put("fallbackChain", descriptor.getFallbackChain());
+
+            RpcResponse tolerantRpcResponse = descriptor.getTolerantStrategy().doTolerant(tolerantContext, e);
+            return resultOf(descriptor, tolerantRpcResponse);
+        }
+        Object result = resultOf(descriptor, retryRpcResponse);
+        // 记录最近成功的结果，供降级链使用
+        if (descriptor.getFallbackChain() != null) {
+            descriptor.getFallbackChain().recordSuccess(args, result);
+        }
+        return result;
+    }
+
+    /**
+     * 取出响应的返回值：服务方法抛出的异常重建后抛出，丢失泛型参数的数据按方法的泛型返回类型转换
+     *
+     * @param descriptor  调用描述
+     * @param rpcResponse 响应
+     * @return 返回值
+     * @throws Exception 服务方法抛出的异常
+     */
+    private static Object resultOf(InvocationDescriptor descriptor, RpcResponse rpcResponse) throws Exception {
+        if (rpcResponse.getError() != null) {
+            throw rpcResponse.getException();
+        }
+        Object data = rpcResponse.getData();
+        if (data != null && rpcResponse.getDataConverter() != null) {
+            data = rpcResponse.getDataConverter().convertData(data, descriptor.getGenericReturnType());
         }
-        return retryRpcResponse.getData();
+        return data;
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package com.easy.simple.rpc.proxy;
 
 import com.easy.simple.rpc.RpcApplication;
+import com.easy.simple.rpc.stub.RpcStubs;
 
 import java.lang.reflect.Proxy;
 
@@ -21,10 +22,16 @@ public class ServiceProxyFactory {
         if (RpcApplication.getRpcConfig().isMock()) {
             return getMockProxy(serviceClass);
         }
+        ServiceProxy serviceProxy = new ServiceProxy(serviceClass);
+        // 优先使用编译期生成的客户端存根
+        T stub = RpcStubs.newStub(serviceClass, serviceProxy);
+        if (stub != null) {
+            return stub;
+        }
         return (T) Proxy.newProxyInstance(
                 serviceClass.getClassLoader(),
                 new Class[]{serviceClass},
-                new ServiceProxy());
+                serviceProxy);
     }
 
     /**
@@ -1,5 +1,7 @@
 package com.easy.simple.rpc.registry.impl;
 
+import com.easy.simple.rpc.serializer.SerializerFactory;
+
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -21,6 +23,12 @@ public class LocalRegistry {
      */
     public static void register(String serviceName, Class<?> implClass) {
         map.put(serviceName, implClass);
+        MethodDictionary.register(serviceName, implClass);
+        for (Class<?> serviceClass : implClass.getInterfaces()) {
+            if (serviceClass.getName().equals(serviceName)) {
+                SerializerFactory.registerService(serviceClass);
+            }
+        }
     }
 
     /**
@@ -40,5 +48,6 @@ public class LocalRegistry {
      */
     public static void remove(String serviceName) {
         map.remove(serviceName);
+        MethodDictionary.unregister(serviceName);
     }
 }
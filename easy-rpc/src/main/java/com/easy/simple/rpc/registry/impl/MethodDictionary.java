@@ -0,0 +1,275 @@
+package com.easy.simple.rpc.registry.impl;
+
+import com.easy.simple.rpc.enity.RpcRequest;
+import com.easy.simple.rpc.stub.RpcDispatcher;
+import com.easy.simple.rpc.stub.RpcStubs;
+import lombok.Getter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 方法编号字典
+ * 消费者和提供者按相同规则从方法签名计算 64 位编号（FNV-1a），请求只需携带编号和参数；
+ * 提供者在注册服务时建立编号到方法的开放寻址表，按编号直接定位调用目标
+ */
+public class MethodDictionary {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * 当前的编号表（注册时整体替换，查询无锁）
+     */
+    private static volatile Table table = new Table(16);
+
+    private MethodDictionary() {
+    }
+
+    /**
+     * 计算方法编号
+     *
+     * @param serviceName    服务名（方法所在接口名）
+     * @param methodName     方法名
+     * @param parameterTypes 参数类型
+     * @return 方法编号（非 0）
+     */
+    public static long methodId(String serviceName, String methodName, Class<?>[] parameterTypes) {
+        return hash(signature(serviceName, methodName, parameterTypes));
+    }
+
+    /**
+     * 签名的 FNV-1a 哈希
+     */
+    private static long hash(String signature) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : signature.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        // 0 表示请求未使用方法编号
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * 方法签名，如 com.example.UserService#getUser(com.example.User)
+     */
+    private static String signature(String serviceName, String methodName, Class<?>[] parameterTypes) {
+        StringBuilder signature = new StringBuilder(serviceName).append('#').append(methodName).append('(');
+        // 部分序列化器把无参方法的参数类型还原为 null
+        int parameterCount = parameterTypes == null ? 0 : parameterTypes.length;
+        for (int i = 0; i < parameterCount; i++) {
+            if (i > 0) {
+                signature.append(',');
+            }
+            signature.append(parameterTypes[i].getName());
+        }
+        return signature.append(')').toString();
+    }
+
+    /**
+     * 注册服务的全部公开方法
+     *
+     * @param serviceName 服务名（接口名）
+     * @param implClass   服务实现类
+     */
+    public static synchronized void register(String serviceName, Class<?> implClass) {
+        Class<?> serviceClass;
+        try {
+            serviceClass = Class.forName(serviceName, false, implClass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            // 服务名不是类名时只能按方法名调用
+            return;
+        }
+        RpcDispatcher dispatcher = RpcStubs.getDispatcher(serviceName, implClass.getClassLoader());
+        Table newTable = table.copy(serviceClass.getMethods().length);
+        for (Method method : serviceClass.getMethods()) {
+            if (Object.class.equals(method.getDeclaringClass())) {
+                continue;
+            }
+            MethodEntry entry = new MethodEntry(serviceName, method, implClass, dispatcher);
+            MethodEntry existing = newTable.get(entry.getMethodId());
+            if (existing != null && !existing.getSignature().equals(entry.getSignature())) {
+                throw new IllegalStateException("方法编号冲突: " + existing.getSignature() + " / " + entry.getSignature());
+            }
+            newTable.put(entry);
+        }
+        table = newTable;
+    }
+
+    /**
+     * 删除服务的全部方法
+     *
+     * @param serviceName 服务名（接口名）
+     */
+    public static synchronized void unregister(String serviceName) {
+        Table newTable = new Table(table.keys.length);
+        for (MethodEntry entry : table.entries) {
+            if (entry != null && !entry.getRegisteredServiceName().equals(serviceName)) {
+                newTable.put(entry);
+            }
+        }
+        table = newTable;
+    }
+
+    /**
+     * 按请求中的方法编号查找调用目标，并补全请求中的服务名、方法名和参数类型
+     *
+     * @param rpcRequest 请求
+     * @return 调用目标，请求未使用方法编号或编号未注册时为 null
+     */
+    public static MethodEntry resolve(RpcRequest rpcRequest) {
+        if (rpcRequest.getMethodId() == 0) {
+            return null;
+        }
+        MethodEntry entry = table.get(rpcRequest.getMethodId());
+        if (entry != null && rpcRequest.getMethodName() == null) {
+            rpcRequest.setServiceName(entry.getServiceName());
+            rpcRequest.setMethodName(entry.getMethod().getName());
+            rpcRequest.setParameterTypes(entry.getMethod().getParameterTypes());
+        }
+        return entry;
+    }
+
+    /**
+     * 按服务名、方法名和参数类型计算编号后查表（请求未携带方法编号时使用）
+     *
+     * @param rpcRequest 请求
+     * @return 调用目标，服务未按接口名注册时为 null
+     */
+    public static MethodEntry lookup(RpcRequest rpcRequest) {
+        if (rpcRequest.getServiceName() == null || rpcRequest.getMethodName() == null) {
+            return null;
+        }
+        String signature = signature(rpcRequest.getServiceName(), rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
+        MethodEntry entry = table.get(hash(signature));
+        // 编号是签名的哈希，按签名确认
+        return entry != null && entry.getSignature().equals(signature) ? entry : null;
+    }
+
+    /**
+     * 调用目标（优先使用生成的分发器，否则使用缓存的 Method）
+     */
+    @Getter
+    public static class MethodEntry {
+
+        private final long methodId;
+
+        /**
+         * 注册时的服务名
+         */
+        private final String registeredServiceName;
+
+        /**
+         * 方法所在接口名（消费者请求中的服务名）
+         */
+        private final String serviceName;
+
+        private final String signature;
+
+        private final Method method;
+
+        private final Class<?> implClass;
+
+        private final RpcDispatcher dispatcher;
+
+        /**
+         * 生成的分发器中的分发序号
+         */
+        private final int dispatchIndex;
+
+        MethodEntry(String registeredServiceName, Method method, Class<?> implClass, RpcDispatcher dispatcher) {
+            this.registeredServiceName = registeredServiceName;
+            this.serviceName = method.getDeclaringClass().getName();
+            this.signature = signature(serviceName, method.getName(), method.getParameterTypes());
+            this.methodId = methodId(serviceName, method.getName(), method.getParameterTypes());
+            this.method = method;
+            this.implClass = implClass;
+            int index = dispatcher == null ? -1 : dispatcher.dispatchIndex(methodId);
+            this.dispatcher = index >= 0 ? dispatcher : null;
+            this.dispatchIndex = index;
+        }
+
+        /**
+         * 调用服务方法，服务方法的异常包装为 InvocationTargetException
+         *
+         * @param service 服务实现
+         * @param args    参数
+         * @return 返回值
+         */
+        public Object invoke(Object service, Object[] args) throws Exception {
+            if (dispatcher == null) {
+                return method.invoke(service, args);
+            }
+            try {
+                return dispatcher.dispatch(service, dispatchIndex, args);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+    }
+
+    /**
+     * 编号 => 调用目标的开放寻址表（线性探测）
+     */
+    private static class Table {
+
+        private final long[] keys;
+
+        private final MethodEntry[] entries;
+
+        private final int mask;
+
+        private int size;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            entries = new MethodEntry[capacity];
+            mask = capacity - 1;
+        }
+
+        MethodEntry get(long methodId) {
+            for (int i = index(methodId); entries[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == methodId) {
+                    return entries[i];
+                }
+            }
+            return null;
+        }
+
+        void put(MethodEntry entry) {
+            int i = index(entry.getMethodId());
+            while (entries[i] != null && keys[i] != entry.getMethodId()) {
+                i = (i + 1) & mask;
+            }
+            if (entries[i] == null) {
+                size++;
+            }
+            keys[i] = entry.getMethodId();
+            entries[i] = entry;
+        }
+
+        /**
+         * 复制并预留空间，保持装载因子不超过 1/2
+         */
+        Table copy(int additional) {
+            int capacity = keys.length;
+            while (capacity < (size + additional) * 2) {
+                capacity <<= 1;
+            }
+            Table copy = new Table(capacity);
+            for (MethodEntry entry : entries) {
+                if (entry != null) {
+                    copy.put(entry);
+                }
+            }
+            return copy;
+        }
+
+        private int index(long methodId) {
+            return (int) (methodId ^ (methodId >>> 32)) & mask;
+        }
+    }
+}
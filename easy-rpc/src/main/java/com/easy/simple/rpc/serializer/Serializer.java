@@ -1,6 +1,9 @@
 package com.easy.simple.rpc.serializer;
 
+import io.vertx.core.buffer.Buffer;
+
 import java.io.IOException;
+import java.lang.reflect.Type;
 
 /**
  * 序列化器接口
@@ -27,4 +30,74 @@ public interface Serializer {
      * @throws IOException
      */
     <T> T deserialize(byte[] bytes, Class<T> type) throws IOException;
+
+    /**
+     * 序列化并追加到传输缓冲区，支持的序列化器直接写入，避免中间字节数组
+     *
+     * @param object 对象
+     * @param buffer 传输缓冲区
+     */
+    default <T> void serialize(T object, Buffer buffer) throws IOException {
+        buffer.appendBytes(serialize(object));
+    }
+
+    /**
+     * 从传输缓冲区反序列化，支持的序列化器直接读取，避免复制
+     *
+     * @param buffer 只包含消息体的缓冲区
+     * @param type   类型
+     * @return 对象
+     */
+    default <T> T deserialize(Buffer buffer, Class<T> type) throws IOException {
+        return deserialize(buffer.getBytes(), type);
+    }
+
+    /**
+     * 注册服务接口（消费者创建代理、提供者注册服务时调用），序列化器可据此预先注册参数和返回值类型
+     *
+     * @param serviceClass 服务接口
+     */
+    default void registerService(Class<?> serviceClass) {
+    }
+
+    /**
+     * 按方法的泛型返回类型转换响应数据（数据按运行时类型反序列化、丢失了泛型参数的序列化器覆盖）
+     *
+     * @param data 响应数据
+     * @param type 方法的泛型返回类型
+     * @return 转换后的数据
+     */
+    default Object convertData(Object data, Type type) {
+        return data;
+    }
+
+    /**
+     * 是否支持连接级字符串字典（见 StringDictionary）
+     */
+    default boolean supportsDictionary() {
+        return false;
+    }
+
+    /**
+     * 使用字符串字典序列化，不支持字典的序列化器忽略字典
+     *
+     * @param object     对象
+     * @param dictionary 发送端字典
+     * @return 字节数组
+     */
+    default <T> byte[] serialize(T object, StringDictionary dictionary) throws IOException {
+        return serialize(object);
+    }
+
+    /**
+     * 使用字符串字典反序列化，不支持字典的序列化器忽略字典
+     *
+     * @param bytes      字节数组
+     * @param type       类型
+     * @param dictionary 接收端字典
+     * @return 对象
+     */
+    default <T> T deserialize(byte[] bytes, Class<T> type, StringDictionary dictionary) throws IOException {
+        return deserialize(bytes, type);
+    }
 }
@@ -31,7 +31,52 @@ public class SerializerFactory {
      * @return 序列化器实例
      */
     public static Serializer getInstance(String serializerType) {
-        // 懒加载：只在第一次调用时加载序列化器
+        load();
+        try {
+            // 从SPI加载器获取序列化器实例
+            return SpiLoader.getInstance(Serializer.class, serializerType);
+        } catch (Exception e) {
+            // 如果获取失败，返回默认序列化器
+            return DEFAULT_SERIALIZER;
+        }
+    }
+
+    /**
+     * 判断本端是否支持指定的序列化器（握手协商使用）
+     *
+     * @param serializerType 序列化器类型
+     * @return 是否支持
+     */
+    public static boolean isSupported(String serializerType) {
+        if (serializerType == null) {
+            return false;
+        }
+        load();
+        try {
+            SpiLoader.getInstance(Serializer.class, serializerType);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 向本端支持的全部序列化器注册服务接口（握手可能协商出与配置不同的序列化器）
+     *
+     * @param serviceClass 服务接口
+     */
+    public static void registerService(Class<?> serviceClass) {
+        for (SerializerType serializerType : SerializerType.values()) {
+            if (isSupported(serializerType.getType())) {
+                getInstance(serializerType.getType()).registerService(serviceClass);
+            }
+        }
+    }
+
+    /**
+     * 懒加载：只在第一次调用时加载序列化器
+     */
+    private static void load() {
         if (!loaded) {
             synchronized (SerializerFactory.class) {
                 if (!loaded) {
@@ -40,13 +85,5 @@ public class SerializerFactory {
                 }
             }
         }
-        
-        try {
-            // 从SPI加载器获取序列化器实例
-            return SpiLoader.getInstance(Serializer.class, serializerType);
-        } catch (Exception e) {
-            // 如果获取失败，返回默认序列化器
-            return DEFAULT_SERIALIZER;
-        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package com.easy.simple.rpc.serializer;
+
+import com.easy.simple.rpc.annotation.RpcSerializer;
+import com.easy.simple.rpc.config.RpcConfig;
+
+import java.lang.reflect.Method;
+
+/**
+ * 按方法选择序列化器（创建代理时每个方法选择一次）
+ * 优先使用方法、接口上的 @RpcSerializer；未指定时参数和返回值都是 Protobuf 消息的方法使用 protobuf，
+ * 其余方法不指定，使用连接协商的序列化器
+ */
+public class SerializerSelector {
+
+    private static final String PROTOBUF_MESSAGE = "com.google.protobuf.Message";
+
+    private SerializerSelector() {
+    }
+
+    /**
+     * 选择方法的序列化器
+     *
+     * @param method    服务接口方法
+     * @param rpcConfig 本端配置
+     * @return 序列化器类型，不指定时为 null
+     * @throws IllegalArgumentException 注解中的序列化器类型未知
+     */
+    public static SerializerType select(Method method, RpcConfig rpcConfig) {
+        RpcSerializer annotation = method.getAnnotation(RpcSerializer.class);
+        if (annotation == null) {
+            annotation = method.getDeclaringClass().getAnnotation(RpcSerializer.class);
+        }
+        if (annotation != null) {
+            SerializerType serializerType = SerializerType.getEnumByKey(SerializerType.getKeyByType(annotation.value()));
+            if (serializerType == null) {
+                throw new IllegalArgumentException("未知的序列化器: " + annotation.value() + "（" + method + "）");
+            }
+            return serializerType;
+        }
+        if (rpcConfig.isSerializerAutoSelect() && isProtobufMethod(method) && SerializerFactory.isSupported(SerializerType.PROTOBUF.getType())) {
+            return SerializerType.PROTOBUF;
+        }
+        return null;
+    }
+
+    /**
+     * 参数和返回值（void 除外）都是 Protobuf 消息，且至少有一个
+     */
+    private static boolean isProtobufMethod(Method method) {
+        boolean hasMessage = false;
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (!isProtobufMessage(parameterType)) {
+                return false;
+            }
+            hasMessage = true;
+        }
+        Class<?> returnType = method.getReturnType();
+        if (returnType != void.class) {
+            if (!isProtobufMessage(returnType)) {
+                return false;
+            }
+            hasMessage = true;
+        }
+        return hasMessage;
+    }
+
+    private static boolean isProtobufMessage(Class<?> type) {
+        // 按类名判断，消费者未引入 protobuf 时不加载其类
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Class<?> anInterface : current.getInterfaces()) {
+                if (PROTOBUF_MESSAGE.equals(anInterface.getName()) || isProtobufMessage(anInterface)) {
+                    return true;
+                }
+            }
+        }
+        return PROTOBUF_MESSAGE.equals(type.getName());
+    }
+}
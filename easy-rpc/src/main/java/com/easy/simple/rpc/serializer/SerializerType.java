@@ -28,7 +28,22 @@ public enum SerializerType {
     /**
      * Protobuf序列化器
      */
-    PROTOBUF("protobuf", 4);
+    PROTOBUF("protobuf", 4),
+
+    /**
+     * Hessian2序列化器
+     */
+    HESSIAN2("hessian2", 5),
+
+    /**
+     * Fory序列化器
+     */
+    FORY("fory", 6),
+
+    /**
+     * Schema序列化器（使用 @RpcSchema 生成的编解码器）
+     */
+    SCHEMA("schema", 7);
 
     /**
      * -- GETTER --
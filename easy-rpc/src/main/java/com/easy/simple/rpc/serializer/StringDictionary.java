@@ -0,0 +1,173 @@
+package com.easy.simple.rpc.serializer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 连接级字符串字典（每个连接每个方向一个实例）
+ * 发送端在序列化时把字符串替换为标记字符串：首次出现的字符串以“定义”发送并分配槽位，之后以槽位引用发送；
+ * 槽位满后按 LRU 淘汰，新字符串复用被淘汰的槽位。接收端只按定义写入槽位，按引用读取，无需维护淘汰顺序。
+ * 标记字符串仍是 String，因此只需序列化器在读写 String 时调用 encode / decode：
+ * [引用 | 槽位(1 个 char)]、[定义 | 槽位 | 原字符串]、[转义 | 原字符串]（原字符串以标记字符开头时）
+ * 发送端线程不安全，由 FrameWriter 加锁使用；接收端由事件循环线程按到达顺序使用
+ */
+public class StringDictionary {
+
+    /**
+     * 最大容量（槽位用 1 个 char 表示，避开代理字符区间）
+     */
+    public static final int MAX_CAPACITY = 1 << 15;
+
+    /**
+     * 参与字典的字符串长度范围：过短的字符串引用后并不更短，过长的字符串很少重复且占用内存
+     */
+    private static final int MIN_LENGTH = 4;
+
+    private static final int MAX_LENGTH = 256;
+
+    private static final char REFERENCE = '\uFDD0';
+
+    private static final char DEFINITION = '\uFDD1';
+
+    private static final char ESCAPE = '\uFDD2';
+
+    /**
+     * 发送端：字符串 => 槽位，按访问顺序排列（LRU）
+     */
+    private final LinkedHashMap<String, Integer> slots = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final int capacity;
+
+    /**
+     * 发送端：本次编码的定义日志（被淘汰的字符串和新字符串），回滚时撤销
+     */
+    private final List<String[]> journal = new ArrayList<>();
+
+    /**
+     * 接收端：槽位 => 字符串
+     */
+    private String[] values = new String[0];
+
+    /**
+     * 接收端：是否已失效（解码失败后与发送端不再一致）
+     */
+    private boolean invalid;
+
+    /**
+     * @param capacity 发送端容量（条目数），接收端不使用
+     */
+    public StringDictionary(int capacity) {
+        this.capacity = Math.min(capacity, MAX_CAPACITY);
+    }
+
+    /**
+     * 发送端：编码一个字符串
+     *
+     * @param value 原字符串
+     * @return 写入消息体的字符串
+     */
+    public String encode(String value) {
+        if (value.length() < MIN_LENGTH || value.length() > MAX_LENGTH) {
+            return escape(value);
+        }
+        Integer slot = slots.get(value);
+        if (slot != null) {
+            return new String(new char[]{REFERENCE, (char) slot.intValue()});
+        }
+        if (capacity <= 0) {
+            return escape(value);
+        }
+        String evicted = null;
+        if (slots.size() < capacity) {
+            slot = slots.size();
+        } else {
+            // 淘汰最久未使用的字符串，复用其槽位
+            Iterator<Map.Entry<String, Integer>> eldest = slots.entrySet().iterator();
+            Map.Entry<String, Integer> entry = eldest.next();
+            evicted = entry.getKey();
+            slot = entry.getValue();
+            eldest.remove();
+        }
+        slots.put(value, slot);
+        journal.add(new String[]{evicted, value});
+        return DEFINITION + String.valueOf((char) slot.intValue()) + value;
+    }
+
+    /**
+     * 发送端：消息已按编码结果发送，确认本次的定义
+     */
+    public void commit() {
+        journal.clear();
+    }
+
+    /**
+     * 发送端：消息未按编码结果发送（如需要分片），撤销本次的定义，保持与接收端一致
+     */
+    public void rollback() {
+        for (int i = journal.size() - 1; i >= 0; i--) {
+            String[] definition = journal.get(i);
+            Integer slot = slots.remove(definition[1]);
+            if (definition[0] != null) {
+                slots.put(definition[0], slot);
+            }
+        }
+        journal.clear();
+    }
+
+    /**
+     * 接收端：解码一个字符串
+     *
+     * @param value 消息体中的字符串
+     * @return 原字符串
+     */
+    public String decode(String value) {
+        if (value.isEmpty()) {
+            return value;
+        }
+        char marker = value.charAt(0);
+        if (invalid && (marker == REFERENCE || marker == DEFINITION)) {
+            throw new IllegalStateException("字符串字典已失效");
+        }
+        switch (marker) {
+            case REFERENCE:
+                int slot = value.charAt(1);
+                if (slot >= values.length || values[slot] == null) {
+                    throw new IllegalStateException("字符串字典槽位未定义: " + slot);
+                }
+                return values[slot];
+            case DEFINITION:
+                slot = value.charAt(1);
+                if (slot >= MAX_CAPACITY) {
+                    throw new IllegalStateException("字符串字典槽位越界: " + slot);
+                }
+                if (slot >= values.length) {
+                    values = Arrays.copyOf(values, Math.min(MAX_CAPACITY, Math.max(slot + 1, values.length * 2)));
+                }
+                values[slot] = value.substring(2);
+                return values[slot];
+            case ESCAPE:
+                return value.substring(1);
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * 接收端：标记字典失效，之后的引用和定义都解码失败，避免静默地还原出错误的字符串
+     */
+    public void invalidate() {
+        invalid = true;
+        values = new String[0];
+    }
+
+    private static String escape(String value) {
+        if (!value.isEmpty() && value.charAt(0) >= REFERENCE && value.charAt(0) <= ESCAPE) {
+            return ESCAPE + value;
+        }
+        return value;
+    }
+}
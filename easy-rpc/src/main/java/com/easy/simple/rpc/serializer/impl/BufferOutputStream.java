@@ -0,0 +1,27 @@
+package com.easy.simple.rpc.serializer.impl;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.io.OutputStream;
+
+/**
+ * 追加写入 Vert.x 缓冲区的输出流（序列化器直接写入帧缓冲区时使用）
+ */
+class BufferOutputStream extends OutputStream {
+
+    private final Buffer buffer;
+
+    BufferOutputStream(Buffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int b) {
+        buffer.appendByte((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        buffer.appendBytes(b, off, len);
+    }
+}
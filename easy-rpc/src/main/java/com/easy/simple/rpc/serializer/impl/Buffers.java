@@ -0,0 +1,28 @@
+package com.easy.simple.rpc.serializer.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.buffer.impl.BufferImpl;
+
+/**
+ * 读取 Vert.x 缓冲区底层 ByteBuf 的工具（序列化器直接从帧缓冲区读取时使用，替代已废弃的 Buffer.getByteBuf）
+ */
+final class Buffers {
+
+    private Buffers() {
+    }
+
+    /**
+     * 缓冲区可读内容的视图，读索引与原缓冲区独立，不拷贝数据
+     *
+     * @param buffer 缓冲区
+     * @return 只用于读取的 ByteBuf
+     */
+    static ByteBuf readView(Buffer buffer) {
+        if (buffer instanceof BufferImpl) {
+            return ((BufferImpl) buffer).byteBuf().slice();
+        }
+        return Unpooled.wrappedBuffer(buffer.getBytes());
+    }
+}
@@ -0,0 +1,55 @@
+package com.easy.simple.rpc.serializer.impl;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按类名加载类型（消息中携带类名的序列化器使用），结果缓存
+ */
+final class ClassNames {
+
+    /**
+     * 基本类型名 => 类型（Class.forName 无法加载）
+     */
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>();
+
+    /**
+     * 类名 => 类型
+     */
+    private static final Map<String, Class<?>> CLASS_CACHE = new ConcurrentHashMap<>();
+
+    static {
+        for (Class<?> type : new Class<?>[]{boolean.class, byte.class, char.class, short.class, int.class,
+                long.class, float.class, double.class, void.class}) {
+            PRIMITIVE_TYPES.put(type.getName(), type);
+        }
+    }
+
+    private ClassNames() {
+    }
+
+    /**
+     * 加载类型
+     *
+     * @param name 类名（Class.getName()）
+     * @return 类型
+     * @throws IOException 类不存在
+     */
+    static Class<?> load(String name) throws IOException {
+        Class<?> type = PRIMITIVE_TYPES.get(name);
+        if (type == null) {
+            type = CLASS_CACHE.get(name);
+        }
+        if (type == null) {
+            try {
+                type = Class.forName(name);
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Failed to load class: " + name, e);
+            }
+            CLASS_CACHE.put(name, type);
+        }
+        return type;
+    }
+}
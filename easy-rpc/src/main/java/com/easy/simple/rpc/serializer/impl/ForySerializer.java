@@ -0,0 +1,134 @@
+package com.easy.simple.rpc.serializer.impl;
+
+import com.easy.simple.rpc.RpcApplication;
+import com.easy.simple.rpc.config.RpcConfig;
+import com.easy.simple.rpc.enity.RpcError;
+import com.easy.simple.rpc.enity.RpcRequest;
+import com.easy.simple.rpc.enity.RpcResponse;
+import com.easy.simple.rpc.serializer.Serializer;
+import io.vertx.core.buffer.Buffer;
+import org.apache.fory.Fory;
+import org.apache.fory.ThreadSafeFory;
+import org.apache.fory.config.Language;
+import org.apache.fory.logging.LoggerFactory;
+import org.apache.fory.memory.MemoryBuffer;
+
+import java.util.List;
+
+/**
+ * Fory 序列化器（运行时为每个类生成序列化代码）
+ * 框架类型使用固定的注册编号，服务接口中的类型按 ServiceTypes 的编号注册，消息中只写编号不写类名；
+ * Fory 开始使用后不能再注册类，有新的服务类型时重建实例池（只在创建代理、注册服务时发生）。
+ * 引用跟踪、严格注册按 RpcConfig 配置，两端需一致
+ */
+public class ForySerializer implements Serializer {
+
+    /**
+     * 实例池大小（Fory 不绑定线程，虚拟线程下也不会为每个线程创建实例）
+     */
+    private static final int MIN_POOL_SIZE = 4;
+
+    private static final int MAX_POOL_SIZE = 64;
+
+    /**
+     * 框架类型的固定注册编号
+     */
+    private static final Class<?>[] FRAMEWORK_TYPES = {RpcRequest.class, RpcResponse.class, RpcError.class};
+
+    private static final int FIRST_FRAMEWORK_ID = 32;
+
+    static {
+        // Fory 的日志输出到 slf4j
+        LoggerFactory.useSlf4jLogging(true);
+    }
+
+    /**
+     * 当前使用的 Fory 实例池
+     */
+    private volatile ThreadSafeFory fory;
+
+    /**
+     * 当前实例池注册的服务类型个数
+     */
+    private volatile int registeredServiceTypes = -1;
+
+    @Override
+    public <T> byte[] serialize(T object) {
+        return fory().serialize(object);
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, Class<T> type) {
+        return type.cast(fory().deserialize(bytes));
+    }
+
+    @Override
+    public <T> void serialize(T object, Buffer buffer) {
+        fory().serialize(new BufferOutputStream(buffer), object);
+    }
+
+    @Override
+    public <T> T deserialize(Buffer buffer, Class<T> type) {
+        // 直接读取传输缓冲区，不复制
+        return type.cast(fory().deserialize(MemoryBuffer.fromByteBuffer(Buffers.readView(buffer).nioBuffer())));
+    }
+
+    @Override
+    public void registerService(Class<?> serviceClass) {
+        ServiceTypes.register(serviceClass);
+    }
+
+    /**
+     * 获取注册了全部服务类型的实例池，有新的服务类型时重建
+     */
+    private ThreadSafeFory fory() {
+        ThreadSafeFory current = fory;
+        if (current != null && registeredServiceTypes == ServiceTypes.types().size()) {
+            return current;
+        }
+        synchronized (this) {
+            int serviceTypes = ServiceTypes.types().size();
+            if (fory == null || registeredServiceTypes != serviceTypes) {
+                fory = build(serviceTypes);
+                registeredServiceTypes = serviceTypes;
+            }
+            return fory;
+        }
+    }
+
+    private static ThreadSafeFory build(int serviceTypes) {
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        ThreadSafeFory newFory = Fory.builder()
+                .withLanguage(Language.JAVA)
+                .withRefTracking(rpcConfig.isForyReferenceTracking())
+                // 未注册的类按类名写入，严格注册时由下面的类型检查拒绝
+                .requireClassRegistration(false)
+                .suppressClassRegistrationWarnings(true)
+                .buildThreadSafeForyPool(MIN_POOL_SIZE, MAX_POOL_SIZE);
+        for (int i = 0; i < FRAMEWORK_TYPES.length; i++) {
+            newFory.register(FRAMEWORK_TYPES[i], FIRST_FRAMEWORK_ID + i);
+        }
+        List<Class<?>> types = ServiceTypes.types();
+        for (int i = 0; i < serviceTypes; i++) {
+            newFory.register(types.get(i), ServiceTypes.id(types.get(i)));
+        }
+        if (rpcConfig.isForyRegistrationRequired()) {
+            // 只允许已注册的类和 JDK 类型（如集合、异常）
+            newFory.setTypeChecker((typeResolver, className) -> isJdkClassName(className));
+        }
+        return newFory;
+    }
+
+    private static boolean isJdkClassName(String className) {
+        String name = className;
+        if (name.startsWith("[")) {
+            // 数组类名形如 [Ljava.lang.String; 或 [I
+            name = name.substring(name.lastIndexOf('[') + 1);
+            if (name.length() == 1) {
+                return true;
+            }
+            name = name.substring(1);
+        }
+        return name.startsWith("java.") || name.startsWith("javax.");
+    }
+}
@@ -0,0 +1,92 @@
+package com.easy.simple.rpc.serializer.impl;
+
+import com.caucho.hessian.io.Hessian2Input;
+import com.caucho.hessian.io.Hessian2Output;
+import com.caucho.hessian.io.SerializerFactory;
+import com.easy.simple.rpc.buffer.PooledOutputStream;
+import com.easy.simple.rpc.serializer.Serializer;
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Hessian2 序列化器
+ * 所有流共用一个 Hessian SerializerFactory（缓存各类型的序列化器），Hessian2Output / Hessian2Input 及其内部缓冲区从池中借用；
+ * 序列化时直接写入帧缓冲区，反序列化时直接读取传输缓冲区
+ */
+public class Hessian2Serializer implements Serializer {
+
+    /**
+     * 池的最大容量
+     */
+    private static final int POOL_CAPACITY = 64;
+
+    private static final SerializerFactory SERIALIZER_FACTORY = new SerializerFactory();
+
+    private static final BlockingQueue<Hessian2Output> OUTPUT_POOL = new ArrayBlockingQueue<>(POOL_CAPACITY);
+
+    private static final BlockingQueue<Hessian2Input> INPUT_POOL = new ArrayBlockingQueue<>(POOL_CAPACITY);
+
+    @Override
+    public <T> byte[] serialize(T object) throws IOException {
+        PooledOutputStream bos = new PooledOutputStream();
+        try {
+            write(object, bos);
+            return bos.toByteArray();
+        } finally {
+            bos.release();
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, Class<T> tClass) throws IOException {
+        return read(new ByteArrayInputStream(bytes), tClass);
+    }
+
+    @Override
+    public <T> void serialize(T object, Buffer buffer) throws IOException {
+        write(object, new BufferOutputStream(buffer));
+    }
+
+    @Override
+    public <T> T deserialize(Buffer buffer, Class<T> tClass) throws IOException {
+        return read(new ByteBufInputStream(Buffers.readView(buffer)), tClass);
+    }
+
+    private static void write(Object object, OutputStream os) throws IOException {
+        Hessian2Output output = OUTPUT_POOL.poll();
+        if (output == null) {
+            output = new Hessian2Output();
+            output.setSerializerFactory(SERIALIZER_FACTORY);
+        }
+        output.init(os);
+        output.writeObject(object);
+        output.flush();
+        // 出现异常时不放回池中，丢弃状态不确定的实例
+        output.free();
+        OUTPUT_POOL.offer(output);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T read(InputStream is, Class<T> tClass) throws IOException {
+        Hessian2Input input = INPUT_POOL.poll();
+        if (input == null) {
+            input = new Hessian2Input();
+            input.setSerializerFactory(SERIALIZER_FACTORY);
+        }
+        input.init(is);
+        T result = (T) input.readObject(tClass);
+        // 消息体应恰好读完，有剩余时 resetBuffer 抛出异常，实例不放回池中
+        input.resetBuffer();
+        // 释放对输入流的引用
+        input.init(null);
+        INPUT_POOL.offer(input);
+        return result;
+    }
+}
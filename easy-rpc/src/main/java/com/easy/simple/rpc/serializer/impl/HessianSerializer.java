@@ -2,10 +2,11 @@ package com.easy.simple.rpc.serializer.impl;
 
 import com.caucho.hessian.io.HessianInput;
 import com.caucho.hessian.io.HessianOutput;
+import com.easy.simple.rpc.buffer.PooledOutputStream;
 import com.easy.simple.rpc.serializer.Serializer;
+import io.vertx.core.buffer.Buffer;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 /**
@@ -14,10 +15,19 @@ import java.io.IOException;
 public class HessianSerializer implements Serializer {
     @Override
     public <T> byte[] serialize(T object) throws IOException {
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        HessianOutput ho = new HessianOutput(bos);
-        ho.writeObject(object);
-        return bos.toByteArray();
+        PooledOutputStream bos = new PooledOutputStream();
+        try {
+            HessianOutput ho = new HessianOutput(bos);
+            ho.writeObject(object);
+            return bos.toByteArray();
+        } finally {
+            bos.release();
+        }
+    }
+
+    @Override
+    public <T> void serialize(T object, Buffer buffer) throws IOException {
+        new HessianOutput(new BufferOutputStream(buffer)).writeObject(object);
     }
 
     @Override
@@ -1,6 +1,9 @@
 package com.easy.simple.rpc.serializer.impl;
 
+import com.easy.simple.rpc.buffer.PooledOutputStream;
 import com.easy.simple.rpc.serializer.Serializer;
+import com.easy.simple.rpc.serializer.StringDictionary;
+import io.vertx.core.buffer.Buffer;
 
 import java.io.*;
 
@@ -19,11 +22,22 @@ public class JdkSerializer implements Serializer {
      */
     @Override
     public <T> byte[] serialize(T object) throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        PooledOutputStream outputStream = new PooledOutputStream();
+        try {
+            ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+            objectOutputStream.writeObject(object);
+            objectOutputStream.close();
+            return outputStream.toByteArray();
+        } finally {
+            outputStream.release();
+        }
+    }
+
+    @Override
+    public <T> void serialize(T object, Buffer buffer) throws IOException {
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(new BufferOutputStream(buffer));
         objectOutputStream.writeObject(object);
         objectOutputStream.close();
-        return outputStream.toByteArray();
     }
 
     /**
@@ -47,4 +61,73 @@ public class JdkSerializer implements Serializer {
             objectInputStream.close();
         }
     }
+
+    @Override
+    public boolean supportsDictionary() {
+        return true;
+    }
+
+    @Override
+    public <T> byte[] serialize(T object, StringDictionary dictionary) throws IOException {
+        PooledOutputStream outputStream = new PooledOutputStream();
+        try {
+            ObjectOutputStream objectOutputStream = new DictionaryObjectOutputStream(outputStream, dictionary);
+            objectOutputStream.writeObject(object);
+            objectOutputStream.close();
+            return outputStream.toByteArray();
+        } finally {
+            outputStream.release();
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, Class<T> type, StringDictionary dictionary) throws IOException {
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+        ObjectInputStream objectInputStream = new DictionaryObjectInputStream(inputStream, dictionary);
+        try {
+            return (T) objectInputStream.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        } finally {
+            objectInputStream.close();
+        }
+    }
+
+    /**
+     * 写出时替换字符串
+     */
+    private static class DictionaryObjectOutputStream extends ObjectOutputStream {
+
+        private final StringDictionary dictionary;
+
+        DictionaryObjectOutputStream(OutputStream out, StringDictionary dictionary) throws IOException {
+            super(out);
+            this.dictionary = dictionary;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            return obj instanceof String ? dictionary.encode((String) obj) : obj;
+        }
+    }
+
+    /**
+     * 读取时还原字符串
+     */
+    private static class DictionaryObjectInputStream extends ObjectInputStream {
+
+        private final StringDictionary dictionary;
+
+        DictionaryObjectInputStream(InputStream in, StringDictionary dictionary) throws IOException {
+            super(in);
+            this.dictionary = dictionary;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) {
+            return obj instanceof String ? dictionary.decode((String) obj) : obj;
+        }
+    }
 }
@@ -1,253 +1,366 @@
 package com.easy.simple.rpc.serializer.impl;
 
+import com.easy.simple.rpc.buffer.PooledOutputStream;
+import com.easy.simple.rpc.enity.RpcError;
+import com.easy.simple.rpc.enity.RpcErrorCodeEnum;
 import com.easy.simple.rpc.enity.RpcRequest;
 import com.easy.simple.rpc.enity.RpcResponse;
+import com.easy.simple.rpc.registry.impl.MethodDictionary;
 import com.easy.simple.rpc.serializer.Serializer;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.type.TypeFactory;
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.core.buffer.Buffer;
 
 import java.io.IOException;
-import java.lang.reflect.Array;
-import java.util.HashMap;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 增强版JSON序列化器
- * 解决类型信息丢失问题
+ * 解决类型信息丢失问题：请求中携带参数类型名，响应中携带数据类型名，参数和数据按声明的类型直接绑定
+ * 请求和响应使用 JsonGenerator / JsonParser 流式读写，不经过中间 Map；类名查找和方法的参数类型（含泛型）都有缓存
  */
 public class JsonSerializer implements Serializer {
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     private static final TypeFactory TYPE_FACTORY = OBJECT_MAPPER.getTypeFactory();
+    private static final JsonFactory JSON_FACTORY = OBJECT_MAPPER.getFactory();
+
+    /**
+     * 写入请求、响应中的值（整个消息写完后再刷新）
+     */
+    private static final ObjectWriter VALUE_WRITER = OBJECT_MAPPER.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    /**
+     * 方法 => 参数类型（按泛型参数类型构造）
+     */
+    private static final Map<Method, JavaType[]> PARAMETER_TYPE_CACHE = new ConcurrentHashMap<>();
 
     @Override
     public <T> byte[] serialize(T object) throws IOException {
-        if (object instanceof RpcRequest) {
-            // 对RpcRequest进行特殊处理，确保类型信息被正确序列化
-            return serializeRpcRequest((RpcRequest) object);
-        } else if (object instanceof RpcResponse) {
-            // 对RpcResponse进行特殊处理，确保类型信息被正确序列化
-            return serializeRpcResponse((RpcResponse) object);
+        if (object instanceof RpcRequest || object instanceof RpcResponse) {
+            PooledOutputStream bos = new PooledOutputStream();
+            try {
+                write(object, bos);
+                return bos.toByteArray();
+            } finally {
+                bos.release();
+            }
         }
         return OBJECT_MAPPER.writeValueAsBytes(object);
     }
 
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> type) throws IOException {
-        if (type == RpcRequest.class) {
-            // 对RpcRequest进行特殊处理，确保类型信息被正确反序列化
-            return type.cast(deserializeRpcRequest(bytes));
-        } else if (type == RpcResponse.class) {
-            // 对RpcResponse进行特殊处理，确保类型信息被正确反序列化
-            return type.cast(deserializeRpcResponse(bytes));
+        return read(JSON_FACTORY.createParser(bytes), type);
+    }
+
+    @Override
+    public <T> void serialize(T object, Buffer buffer) throws IOException {
+        write(object, new BufferOutputStream(buffer));
+    }
+
+    @Override
+    public <T> T deserialize(Buffer buffer, Class<T> type) throws IOException {
+        return read(JSON_FACTORY.createParser((InputStream) new ByteBufInputStream(Buffers.readView(buffer))), type);
+    }
+
+    private void write(Object object, OutputStream os) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(os)) {
+            if (object instanceof RpcRequest) {
+                // 对RpcRequest进行特殊处理，确保类型信息被正确序列化
+                writeRpcRequest((RpcRequest) object, generator);
+            } else if (object instanceof RpcResponse) {
+                // 对RpcResponse进行特殊处理，确保类型信息被正确序列化
+                writeRpcResponse((RpcResponse) object, generator);
+            } else {
+                OBJECT_MAPPER.writeValue(generator, object);
+            }
+        }
+    }
+
+    private <T> T read(JsonParser parser, Class<T> type) throws IOException {
+        try (JsonParser p = parser) {
+            if (type == RpcRequest.class) {
+                // 对RpcRequest进行特殊处理，确保类型信息被正确反序列化
+                return type.cast(readRpcRequest(p));
+            } else if (type == RpcResponse.class) {
+                // 对RpcResponse进行特殊处理，确保类型信息被正确反序列化
+                return type.cast(readRpcResponse(p));
+            }
+            return OBJECT_MAPPER.readValue(p, type);
         }
-        return OBJECT_MAPPER.readValue(bytes, type);
     }
 
     /**
-     * 序列化RpcRequest，特殊处理参数类型和参数值
+     * 写入RpcRequest：服务名、方法名、方法编号、参数类型名，最后是参数值（读取时参数类型已知）
      */
-    private byte[] serializeRpcRequest(RpcRequest request) throws IOException {
-        // 创建一个可序列化的Map来存储请求信息，包括类型信息
-        Map<String, Object> requestMap = new HashMap<>();
-        requestMap.put("serviceName", request.getServiceName());
-        requestMap.put("methodName", request.getMethodName());
-        
-        // 处理参数类型
+    private void writeRpcRequest(RpcRequest request, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if (request.getServiceName() != null) {
+            generator.writeStringField("serviceName", request.getServiceName());
+        }
+        if (request.getMethodName() != null) {
+            generator.writeStringField("methodName", request.getMethodName());
+        }
+        if (request.getMethodId() != 0) {
+            generator.writeNumberField("methodId", request.getMethodId());
+        }
         if (request.getParameterTypes() != null) {
-            String[] typeNames = new String[request.getParameterTypes().length];
-            for (int i = 0; i < request.getParameterTypes().length; i++) {
-                typeNames[i] = request.getParameterTypes()[i].getName();
+            generator.writeArrayFieldStart("parameterTypes");
+            for (Class<?> parameterType : request.getParameterTypes()) {
+                generator.writeString(parameterType.getName());
             }
-            requestMap.put("parameterTypes", typeNames);
+            generator.writeEndArray();
         }
-        
-        // 参数值直接放入Map
-        requestMap.put("args", request.getArgs());
-        
-        return OBJECT_MAPPER.writeValueAsBytes(requestMap);
+        if (request.getArgs() != null) {
+            generator.writeArrayFieldStart("args");
+            for (Object arg : request.getArgs()) {
+                VALUE_WRITER.writeValue(generator, arg);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
     }
 
     /**
-     * 反序列化RpcRequest，重建参数类型和参数值
+     * 读取RpcRequest，参数值直接按方法声明的参数类型绑定
      */
-    private RpcRequest deserializeRpcRequest(byte[] bytes) throws IOException {
-        // 先反序列化为Map获取原始数据
-        Map<String, Object> requestMap = OBJECT_MAPPER.readValue(bytes, HashMap.class);
-        
+    private RpcRequest readRpcRequest(JsonParser parser) throws IOException {
         RpcRequest request = new RpcRequest();
-        request.setServiceName((String) requestMap.get("serviceName"));
-        request.setMethodName((String) requestMap.get("methodName"));
-        
-        // 重建参数类型 - 修复类型转换问题
-        Object parameterTypesObj = requestMap.get("parameterTypes");
-        if (parameterTypesObj != null) {
-            String[] typeNames;
-            // 检查parameterTypesObj是否为ArrayList类型，如果是则转换为String数组
-            if (parameterTypesObj instanceof java.util.ArrayList) {
-                java.util.ArrayList<?> list = (java.util.ArrayList<?>) parameterTypesObj;
-                typeNames = list.toArray(new String[0]);
-            } else if (parameterTypesObj instanceof String[]) {
-                // 如果已经是String数组，直接使用
-                typeNames = (String[]) parameterTypesObj;
-            } else {
-                // 其他情况，尝试转换为String
-                typeNames = new String[]{parameterTypesObj.toString()};
-            }
-            
-            Class<?>[] parameterTypes = new Class<?>[typeNames.length];
-            for (int i = 0; i < typeNames.length; i++) {
-                try {
-                    parameterTypes[i] = Class.forName(typeNames[i]);
-                } catch (ClassNotFoundException e) {
-                    throw new IOException("Failed to load class: " + typeNames[i], e);
-                }
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+        // 参数出现在参数类型之前时（非本序列化器写入），先读成树，最后再绑定
+        List<JsonNode> pendingArgs = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
             }
-            request.setParameterTypes(parameterTypes);
-        }
-        
-        // 重建参数值
-        Object[] args = null;
-        Object argsObj = requestMap.get("args");
-        if (argsObj != null) {
-            // 处理args可能是ArrayList的情况
-            if (argsObj instanceof java.util.ArrayList) {
-                java.util.ArrayList<?> list = (java.util.ArrayList<?>) argsObj;
-                args = list.toArray();
-            } else if (argsObj.getClass().isArray()) {
-                // 如果已经是数组，转换为Object[]
-                int length = Array.getLength(argsObj);
-                args = new Object[length];
-                for (int i = 0; i < length; i++) {
-                    args[i] = Array.get(argsObj, i);
-                }
-            } else {
-                // 单个参数的情况
-                args = new Object[]{argsObj};
+            switch (field) {
+                case "serviceName":
+                    request.setServiceName(parser.getText());
+                    break;
+                case "methodName":
+                    request.setMethodName(parser.getText());
+                    break;
+                case "methodId":
+                    request.setMethodId(parser.getLongValue());
+                    break;
+                case "parameterTypes":
+                    request.setParameterTypes(readParameterTypes(parser));
+                    break;
+                case "args":
+                    JavaType[] argTypes = argTypes(request);
+                    if (argTypes == null) {
+                        pendingArgs = readArgTrees(parser);
+                    } else {
+                        request.setArgs(readArgs(parser, argTypes));
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
             }
         }
-        
-        if (args != null && request.getParameterTypes() != null && args.length == request.getParameterTypes().length) {
-            // 对参数进行类型转换
-            Object[] convertedArgs = new Object[args.length];
+        if (pendingArgs != null) {
+            JavaType[] argTypes = argTypes(request);
+            Object[] args = new Object[pendingArgs.size()];
             for (int i = 0; i < args.length; i++) {
-                convertedArgs[i] = convertArgument(args[i], request.getParameterTypes()[i]);
+                JavaType argType = argTypes != null && i < argTypes.length ? argTypes[i] : TYPE_FACTORY.constructType(Object.class);
+                args[i] = OBJECT_MAPPER.convertValue(pendingArgs.get(i), argType);
             }
-            request.setArgs(convertedArgs);
-        } else {
             request.setArgs(args);
         }
-        
+        // 只带方法编号的请求，按编号补全参数类型
+        if (request.getParameterTypes() == null) {
+            MethodDictionary.resolve(request);
+        }
         return request;
     }
 
+    private Class<?>[] readParameterTypes(JsonParser parser) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        List<Class<?>> types = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            types.add(ClassNames.load(parser.getText()));
+        }
+        return types.toArray(new Class<?>[0]);
+    }
+
     /**
-     * 将反序列化的参数转换为目标类型
+     * 参数的绑定类型：按方法编号找到本端注册的方法时使用其泛型参数类型，否则使用请求中的参数类型
+     *
+     * @return 参数类型未知时为 null
      */
-    private Object convertArgument(Object arg, Class<?> targetType) {
-        // 如果参数已经是目标类型，直接返回
-        if (arg == null || targetType.isInstance(arg)) {
-            return arg;
-        }
-        
-        // 处理Map转对象的情况（这是JSON反序列化常见的问题）
-        if (arg instanceof Map && !targetType.isPrimitive() && !targetType.getName().startsWith("java.lang.")) {
-            try {
-                // 将Map转换回原始对象类型
-                return OBJECT_MAPPER.convertValue(arg, targetType);
-            } catch (Exception e) {
-                // 转换失败，返回原始对象
-                return arg;
-            }
-        }
-        
-        // 处理基本类型转换
-        if (targetType == Integer.class || targetType == int.class) {
-            return Integer.parseInt(arg.toString());
-        } else if (targetType == Long.class || targetType == long.class) {
-            return Long.parseLong(arg.toString());
-        } else if (targetType == Double.class || targetType == double.class) {
-            return Double.parseDouble(arg.toString());
-        } else if (targetType == Boolean.class || targetType == boolean.class) {
-            return Boolean.parseBoolean(arg.toString());
-        } else if (targetType == String.class) {
-            return arg.toString();
-        }
-        
-        // 处理数组类型
-        if (targetType.isArray()) {
-            Class<?> componentType = targetType.getComponentType();
-            if (arg instanceof Iterable) {
-                // 转换集合为数组
-                Iterable<?> iterable = (Iterable<?>) arg;
-                java.util.List<Object> list = new java.util.ArrayList<>();
-                iterable.forEach(list::add);
-                Object[] array = (Object[]) Array.newInstance(componentType, list.size());
-                for (int i = 0; i < list.size(); i++) {
-                    array[i] = convertArgument(list.get(i), componentType);
+    private JavaType[] argTypes(RpcRequest request) {
+        MethodDictionary.MethodEntry entry = MethodDictionary.resolve(request);
+        if (entry != null) {
+            return PARAMETER_TYPE_CACHE.computeIfAbsent(entry.getMethod(), method -> {
+                Type[] genericTypes = method.getGenericParameterTypes();
+                JavaType[] javaTypes = new JavaType[genericTypes.length];
+                for (int i = 0; i < genericTypes.length; i++) {
+                    javaTypes[i] = TYPE_FACTORY.constructType(genericTypes[i]);
                 }
-                return array;
+                return javaTypes;
+            });
+        }
+        if (request.getParameterTypes() == null) {
+            return null;
+        }
+        JavaType[] javaTypes = new JavaType[request.getParameterTypes().length];
+        for (int i = 0; i < javaTypes.length; i++) {
+            javaTypes[i] = TYPE_FACTORY.constructType(request.getParameterTypes()[i]);
+        }
+        return javaTypes;
+    }
+
+    private Object[] readArgs(JsonParser parser, JavaType[] argTypes) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        List<Object> args = new ArrayList<>(argTypes.length);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            int i = args.size();
+            if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                args.add(null);
+            } else {
+                JavaType argType = i < argTypes.length ? argTypes[i] : TYPE_FACTORY.constructType(Object.class);
+                args.add(OBJECT_MAPPER.readValue(parser, argType));
             }
         }
-        
-        // 其他情况返回原始对象
-        return arg;
+        return args.toArray();
+    }
+
+    private List<JsonNode> readArgTrees(JsonParser parser) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        List<JsonNode> args = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            args.add(OBJECT_MAPPER.readTree(parser));
+        }
+        return args;
     }
 
     /**
-     * 序列化RpcResponse，确保dataType信息被正确序列化
+     * 写入RpcResponse：数据类型名写在数据之前
      */
-    private byte[] serializeRpcResponse(RpcResponse response) throws IOException {
-        // 创建一个可序列化的Map来存储响应信息
-        Map<String, Object> responseMap = new HashMap<>();
-        responseMap.put("message", response.getMessage());
-        responseMap.put("exception", response.getException());
-        
-        // 存储数据和数据类型
+    private void writeRpcResponse(RpcResponse response, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if (response.getMessage() != null) {
+            generator.writeStringField("message", response.getMessage());
+        }
+        if (response.getError() != null) {
+            // 异常只发送错误信息，读取时按类型重建
+            RpcError error = response.getError();
+            generator.writeObjectFieldStart("error");
+            generator.writeNumberField("code", error.getCode());
+            if (error.getType() != null) {
+                generator.writeStringField("type", error.getType());
+            }
+            if (error.getMessage() != null) {
+                generator.writeStringField("message", error.getMessage());
+            }
+            if (error.getStackTrace() != null) {
+                generator.writeStringField("stackTrace", error.getStackTrace());
+            }
+            generator.writeEndObject();
+        }
         Object data = response.getData();
-        responseMap.put("data", data);
-        
-        // 如果data不为null且dataType为null，尝试自动设置dataType
-        if (data != null && response.getDataType() == null) {
-            responseMap.put("dataType", data.getClass().getName());
-        } else if (response.getDataType() != null) {
-            responseMap.put("dataType", response.getDataType().getName());
+        // 如果data不为null且dataType为null，自动设置dataType
+        Class<?> dataType = response.getDataType() != null ? response.getDataType() : data != null ? data.getClass() : null;
+        if (dataType != null) {
+            generator.writeStringField("dataType", dataType.getName());
+        }
+        if (data != null) {
+            generator.writeFieldName("data");
+            VALUE_WRITER.writeValue(generator, data);
         }
-        
-        return OBJECT_MAPPER.writeValueAsBytes(responseMap);
+        generator.writeEndObject();
     }
 
     /**
-     * 反序列化RpcResponse，确保data被正确转换为指定类型
+     * 读取RpcResponse，数据直接按数据类型绑定
      */
-    private RpcResponse deserializeRpcResponse(byte[] bytes) throws IOException {
-        // 先反序列化为Map获取原始数据
-        Map<String, Object> responseMap = OBJECT_MAPPER.readValue(bytes, HashMap.class);
-        
+    private RpcResponse readRpcResponse(JsonParser parser) throws IOException {
         RpcResponse response = new RpcResponse();
-        response.setMessage((String) responseMap.get("message"));
-        response.setException((Exception) responseMap.get("exception"));
-        
-        // 获取数据类型
-        Object dataTypeObj = responseMap.get("dataType");
-        Class<?> dataType = null;
-        if (dataTypeObj != null) {
-            try {
-                dataType = Class.forName(dataTypeObj.toString());
-                response.setDataType(dataType);
-            } catch (ClassNotFoundException e) {
-                // 如果无法加载类，记录警告但继续处理
-                System.err.println("Warning: Failed to load data type: " + dataTypeObj);
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "message":
+                    response.setMessage(parser.getText());
+                    break;
+                case "error":
+                    response.setError(OBJECT_MAPPER.readValue(parser, RpcError.class));
+                    break;
+                case "exception":
+                    // 旧版本提供者的异常格式
+                    response.setError(readLegacyException(parser));
+                    break;
+                case "dataType":
+                    try {
+                        response.setDataType(ClassNames.load(parser.getText()));
+                    } catch (IOException e) {
+                        // 如果无法加载类，记录警告但继续处理
+                        System.err.println("Warning: Failed to load data type: " + parser.getText());
+                    }
+                    break;
+                case "data":
+                    Class<?> dataType = response.getDataType();
+                    boolean typed = dataType != null && dataType != void.class && dataType != Void.class;
+                    Object data = OBJECT_MAPPER.readValue(parser, TYPE_FACTORY.constructType(typed ? dataType : Object.class));
+                    response.setData(data);
+                    // 容器的元素按 JSON 结构绑定（对象为 Map），由消费者按方法的泛型返回类型转换
+                    if (data instanceof Collection || data instanceof Map || data instanceof Object[]) {
+                        response.setDataConverter(this);
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
             }
         }
-        
-        // 获取数据并尝试进行类型转换
-        Object data = responseMap.get("data");
-        if (data != null && dataType != null) {
-            // 使用convertArgument方法进行类型转换
-            data = convertArgument(data, dataType);
-        }
-        response.setData(data);
-        
         return response;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Object convertData(Object data, Type type) {
+        if (type instanceof Class) {
+            // 非泛型类型：已按数据类型绑定
+            return data;
+        }
+        return OBJECT_MAPPER.convertValue(data, TYPE_FACTORY.constructType(type));
+    }
+
+    /**
+     * 读取旧版本的异常格式（只有类型和信息）
+     */
+    private RpcError readLegacyException(JsonParser parser) throws IOException {
+        JsonNode node = OBJECT_MAPPER.readTree(parser);
+        String message = node.path("message").isTextual() ? node.get("message").asText() : null;
+        return new RpcError(RpcErrorCodeEnum.INTERNAL_ERROR.getCode(), node.path("type").asText(null), message, null);
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("JSON 格式错误，期望 " + expected + "，实际为 " + actual);
+        }
+    }
+}
@@ -1,44 +1,231 @@
 package com.easy.simple.rpc.serializer.impl;
 
 
+import com.easy.simple.rpc.enity.RpcError;
+import com.easy.simple.rpc.enity.RpcRequest;
+import com.easy.simple.rpc.enity.RpcResponse;
 import com.easy.simple.rpc.serializer.Serializer;
+import com.easy.simple.rpc.serializer.StringDictionary;
 import com.esotericsoftware.kryo.Kryo;
-import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.ByteBufferInput;
 import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.Pool;
+import io.vertx.core.buffer.Buffer;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 
 /**
  * Kryo 序列化器
- *
+ * Kryo、Output、Input 都从池中借用（不绑定线程，虚拟线程下也不会为每个线程创建实例），输出缓冲区复用；
+ * 框架类型使用固定的注册编号，服务接口中的参数、返回值类型（及其字段类型）按类名哈希注册，
+ * 消费者创建代理、提供者注册服务时注册同一接口，得到相同的编号，消息中只写编号不写类名
  */
 public class KryoSerializer implements Serializer {
+
+    /**
+     * 池的最大容量
+     */
+    private static final int POOL_CAPACITY = 64;
+
+    /**
+     * 输出缓冲区初始大小
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 4096;
+
+    /**
+     * 超过该大小的输出缓冲区用完后不放回池中，避免偶尔的大消息长期占用内存
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 1 << 20;
+
     /**
-     * kryo 线程不安全，使用 ThreadLocal 保证每个线程只有一个 Kryo
+     * 框架类型的固定注册编号
      */
-    private static final ThreadLocal<Kryo> KRYO_THREAD_LOCAL = ThreadLocal.withInitial(() -> {
-        Kryo kryo = new Kryo();
-        // 设置动态动态序列化和反序列化类，不提前注册所有类（可能有安全问题）
-        kryo.setRegistrationRequired(false);
-        return kryo;
-    });
+    private static final Class<?>[] FRAMEWORK_TYPES = {
+            RpcRequest.class, RpcResponse.class, Class.class, Class[].class, Object[].class,
+            ArrayList.class, HashMap.class, LinkedHashMap.class, HashSet.class, RpcError.class
+    };
+
+    private static final int FIRST_FRAMEWORK_ID = 32;
+
+    private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+    private static final Pool<PooledKryo> KRYO_POOL = new Pool<PooledKryo>(true, false, POOL_CAPACITY) {
+        @Override
+        protected PooledKryo create() {
+            return new PooledKryo();
+        }
+    };
+
+    private static final Pool<DictionaryOutput> OUTPUT_POOL = new Pool<DictionaryOutput>(true, false, POOL_CAPACITY) {
+        @Override
+        protected DictionaryOutput create() {
+            return new DictionaryOutput();
+        }
+    };
+
+    private static final Pool<DictionaryInput> INPUT_POOL = new Pool<DictionaryInput>(true, false, POOL_CAPACITY) {
+        @Override
+        protected DictionaryInput create() {
+            return new DictionaryInput();
+        }
+    };
 
     @Override
     public <T> byte[] serialize(T obj) {
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        Output output = new Output(byteArrayOutputStream);
-        KRYO_THREAD_LOCAL.get().writeObject(output, obj);
-        output.close();
-        return byteArrayOutputStream.toByteArray();
+        return serialize(obj, (StringDictionary) null);
     }
 
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> classType) {
-        ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(bytes);
-        Input input = new Input(byteArrayInputStream);
-        T result = KRYO_THREAD_LOCAL.get().readObject(input, classType);
-        input.close();
-        return result;
+        return deserialize(ByteBuffer.wrap(bytes), classType, null);
+    }
+
+    @Override
+    public <T> void serialize(T obj, Buffer buffer) {
+        DictionaryOutput output = write(obj, null);
+        try {
+            buffer.appendBytes(output.getBuffer(), 0, output.position());
+        } finally {
+            release(output);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(Buffer buffer, Class<T> classType) {
+        // 直接读取传输缓冲区，不复制
+        return deserialize(Buffers.readView(buffer).nioBuffer(), classType, null);
+    }
+
+    @Override
+    public boolean supportsDictionary() {
+        return true;
+    }
+
+    @Override
+    public <T> byte[] serialize(T obj, StringDictionary dictionary) {
+        DictionaryOutput output = write(obj, dictionary);
+        try {
+            return output.toBytes();
+        } finally {
+            release(output);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, Class<T> classType, StringDictionary dictionary) {
+        return deserialize(ByteBuffer.wrap(bytes), classType, dictionary);
+    }
+
+    /**
+     * 注册服务接口中的参数、返回值类型及其字段类型
+     */
+    @Override
+    public void registerService(Class<?> serviceClass) {
+        ServiceTypes.register(serviceClass);
+    }
+
+    private <T> DictionaryOutput write(T obj, StringDictionary dictionary) {
+        PooledKryo pooledKryo = KRYO_POOL.obtain();
+        DictionaryOutput output = OUTPUT_POOL.obtain();
+        output.dictionary = dictionary;
+        try {
+            pooledKryo.get().writeObject(output, obj);
+            return output;
+        } catch (RuntimeException e) {
+            release(output);
+            throw e;
+        } finally {
+            KRYO_POOL.free(pooledKryo);
+        }
+    }
+
+    private <T> T deserialize(ByteBuffer byteBuffer, Class<T> classType, StringDictionary dictionary) {
+        PooledKryo pooledKryo = KRYO_POOL.obtain();
+        DictionaryInput input = INPUT_POOL.obtain();
+        input.setBuffer(byteBuffer);
+        input.dictionary = dictionary;
+        try {
+            return pooledKryo.get().readObject(input, classType);
+        } finally {
+            input.dictionary = null;
+            input.setBuffer(EMPTY_BUFFER);
+            INPUT_POOL.free(input);
+            KRYO_POOL.free(pooledKryo);
+        }
+    }
+
+    private static void release(DictionaryOutput output) {
+        output.dictionary = null;
+        if (output.getBuffer().length <= MAX_POOLED_BUFFER_SIZE) {
+            output.reset();
+            OUTPUT_POOL.free(output);
+        }
+    }
+
+    /**
+     * 池中的 Kryo，记录已注册的服务类型个数
+     */
+    private static class PooledKryo {
+
+        private final Kryo kryo = new Kryo();
+
+        private int registeredServiceTypes;
+
+        PooledKryo() {
+            // 设置动态动态序列化和反序列化类，不提前注册所有类（可能有安全问题）
+            kryo.setRegistrationRequired(false);
+            for (int i = 0; i < FRAMEWORK_TYPES.length; i++) {
+                kryo.register(FRAMEWORK_TYPES[i], FIRST_FRAMEWORK_ID + i);
+            }
+        }
+
+        /**
+         * 补齐服务类型的注册后返回
+         */
+        Kryo get() {
+            List<Class<?>> serviceTypes = ServiceTypes.types();
+            while (registeredServiceTypes < serviceTypes.size()) {
+                Class<?> type = serviceTypes.get(registeredServiceTypes++);
+                // 已按类名隐式注册过的类也要改为编号注册，register(Class, int) 会保留隐式注册
+                kryo.register(type, kryo.getDefaultSerializer(type), ServiceTypes.id(type));
+            }
+            return kryo;
+        }
+    }
+
+    /**
+     * 可复用的输出，设置了字典时替换字符串（字符串字段和未注册类的类名都经过 writeString）
+     */
+    private static class DictionaryOutput extends Output {
+
+        private StringDictionary dictionary;
+
+        DictionaryOutput() {
+            super(OUTPUT_BUFFER_SIZE, -1);
+        }
+
+        @Override
+        public void writeString(String value) {
+            super.writeString(value == null || dictionary == null ? value : dictionary.encode(value));
+        }
+    }
+
+    /**
+     * 可复用的输入，设置了字典时还原字符串
+     */
+    private static class DictionaryInput extends ByteBufferInput {
+
+        private StringDictionary dictionary;
+
+        @Override
+        public String readString() {
+            String value = super.readString();
+            return value == null || dictionary == null ? value : dictionary.decode(value);
+        }
     }
 }
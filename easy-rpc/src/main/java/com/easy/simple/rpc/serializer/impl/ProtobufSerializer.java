@@ -1,33 +1,110 @@
 package com.easy.simple.rpc.serializer.impl;
 
+import com.easy.simple.rpc.buffer.PooledOutputStream;
+import com.easy.simple.rpc.constant.RpcConstant;
+import com.easy.simple.rpc.enity.RpcError;
+import com.easy.simple.rpc.enity.RpcRequest;
+import com.easy.simple.rpc.enity.RpcResponse;
+import com.easy.simple.rpc.registry.impl.MethodDictionary;
 import com.easy.simple.rpc.serializer.Serializer;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.Message;
-import com.google.protobuf.MessageOrBuilder;
+import com.google.protobuf.Parser;
+import com.google.protobuf.WireFormat;
+import io.vertx.core.buffer.Buffer;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Protobuf 序列化器
+ * Protobuf 消息直接使用其编码；RpcRequest / RpcResponse 按下面的信封编码（手写编解码，与该 schema 的 protobuf 编码一致），
+ * 参数和返回值是嵌套的 Value：Protobuf 消息嵌入其编码，基本类型、字符串、字节数组使用对应的 protobuf 类型，其他对象使用 Java 序列化；
+ * 值的类型与声明的类型（参数类型、dataType）一致时不写类名。其他对象作为单独的 Value 编码
+ * <pre>
+ * message RpcRequest {
+ *   string service_name = 1;
+ *   string method_name = 2;
+ *   string service_version = 3;
+ *   sfixed64 method_id = 4;
+ *   repeated string parameter_types = 5;
+ *   repeated Value args = 6;
+ * }
+ * message RpcResponse {
+ *   string data_type = 1;
+ *   Value data = 2;
+ *   string message = 3;
+ *   Value exception = 4; // 旧版本，只读取
+ *   Error error = 5;
+ * }
+ * message Error {
+ *   int32 code = 1;
+ *   string type = 2;
+ *   string message = 3;
+ *   string stack_trace = 4;
+ * }
+ * message Value {
+ *   string type = 1;
+ *   oneof kind {
+ *     bytes message = 2;
+ *     sint64 integer = 3;
+ *     double decimal = 4;
+ *     bool bool = 5;
+ *     string string = 6;
+ *     bytes bytes = 7;
+ *     bytes java = 8;
+ *   }
+ * }
+ * </pre>
+ */
 public class ProtobufSerializer implements Serializer {
+
+    private static final int VALUE_TYPE = 1;
+    private static final int VALUE_MESSAGE = 2;
+    private static final int VALUE_INTEGER = 3;
+    private static final int VALUE_DECIMAL = 4;
+    private static final int VALUE_BOOL = 5;
+    private static final int VALUE_STRING = 6;
+    private static final int VALUE_BYTES = 7;
+    private static final int VALUE_JAVA = 8;
+
+    /**
+     * null 值（不含任何字段）
+     */
+    private static final ValueField NULL_VALUE = new ValueField(null, 0, null, 0);
+
+    /**
+     * 消息类型 => 解析器
+     */
+    private static final Map<Class<?>, Parser<?>> PARSER_CACHE = new ConcurrentHashMap<>();
+
     @Override
     public <T> byte[] serialize(T object) throws IOException {
         if (object == null) {
             return null;
         }
-        
-        if (object instanceof MessageOrBuilder) {
-            // 如果对象是Protobuf消息类型
-            if (object instanceof Message.Builder) {
-                // 如果是Builder类型，先build再序列化
-                return ((Message.Builder) object).build().toByteArray();
-            } else if (object instanceof Message) {
-                // 如果已经是Message类型，直接序列化
-                return ((Message) object).toByteArray();
-            }
-        } else if (object instanceof Serializable) {
-            // 对于普通可序列化对象，使用Java序列化机制
-            return SerializationUtils.serialize((Serializable) object);
+        if (object instanceof Message.Builder) {
+            // 如果是Builder类型，先build再序列化
+            return ((Message.Builder) object).build().toByteArray();
+        } else if (object instanceof Message) {
+            // 如果已经是Message类型，直接序列化
+            return ((Message) object).toByteArray();
+        } else if (object instanceof RpcRequest) {
+            return writeRequest((RpcRequest) object);
+        } else if (object instanceof RpcResponse) {
+            return writeResponse((RpcResponse) object);
         }
-        throw new IllegalArgumentException("Object must be either a Protobuf Message/Builder or Serializable");
+        ValueField value = prepare(object, null);
+        byte[] bytes = new byte[value.size];
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        writeValueFields(out, value);
+        out.checkNoSpaceLeft();
+        return bytes;
     }
 
     @Override
@@ -35,24 +112,472 @@ public class ProtobufSerializer implements Serializer {
         if (bytes == null || bytes.length == 0) {
             return null;
         }
-        
-        if (Message.class.isAssignableFrom(type)) {
-            // 如果目标类型是Protobuf消息类型，尝试调用parseFrom方法
-            try {
-                // 使用反射调用parseFrom方法
-                return type.cast(type.getMethod("parseFrom", byte[].class).invoke(null, bytes));
-            } catch (Exception e) {
-                throw new IOException("Failed to parse Protobuf message", e);
+        return read(CodedInputStream.newInstance(bytes), type);
+    }
+
+    @Override
+    public <T> T deserialize(Buffer buffer, Class<T> type) throws IOException {
+        if (buffer.length() == 0) {
+            return null;
+        }
+        // 直接读取传输缓冲区，不复制
+        return read(CodedInputStream.newInstance(Buffers.readView(buffer).nioBuffer()), type);
+    }
+
+    private <T> T read(CodedInputStream in, Class<T> type) throws IOException {
+        if (type == RpcRequest.class) {
+            return type.cast(readRequest(in));
+        } else if (type == RpcResponse.class) {
+            return type.cast(readResponse(in));
+        } else if (Message.class.isAssignableFrom(type)) {
+            return type.cast(parser(type).parseFrom(in));
+        }
+        return type.cast(readValueFields(in, type));
+    }
+
+    private byte[] writeRequest(RpcRequest request) throws IOException {
+        Class<?>[] parameterTypes = request.getParameterTypes();
+        ValueField[] args = null;
+        int size = stringSize(1, request.getServiceName()) + stringSize(2, request.getMethodName());
+        String serviceVersion = request.getServiceVersion();
+        if (RpcConstant.DEFAULT_SERVICE_VERSION.equals(serviceVersion)) {
+            // 默认版本不写
+            serviceVersion = null;
+        }
+        size += stringSize(3, serviceVersion);
+        if (request.getMethodId() != 0) {
+            size += CodedOutputStream.computeSFixed64Size(4, request.getMethodId());
+        }
+        if (parameterTypes != null) {
+            for (Class<?> parameterType : parameterTypes) {
+                size += CodedOutputStream.computeStringSize(5, parameterType.getName());
+            }
+        }
+        if (request.getArgs() != null) {
+            args = new ValueField[request.getArgs().length];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = prepare(request.getArgs()[i], parameterTypes != null && i < parameterTypes.length ? parameterTypes[i] : null);
+                size += valueSize(6, args[i]);
+            }
+        }
+        byte[] bytes = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        writeString(out, 1, request.getServiceName());
+        writeString(out, 2, request.getMethodName());
+        writeString(out, 3, serviceVersion);
+        if (request.getMethodId() != 0) {
+            out.writeSFixed64(4, request.getMethodId());
+        }
+        if (parameterTypes != null) {
+            for (Class<?> parameterType : parameterTypes) {
+                out.writeString(5, parameterType.getName());
+            }
+        }
+        if (args != null) {
+            for (ValueField arg : args) {
+                writeValue(out, 6, arg);
+            }
+        }
+        out.checkNoSpaceLeft();
+        return bytes;
+    }
+
+    private RpcRequest readRequest(CodedInputStream in) throws IOException {
+        RpcRequest request = new RpcRequest();
+        List<Class<?>> parameterTypes = null;
+        List<Object> args = null;
+        Class<?>[] declaredTypes = null;
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1:
+                    request.setServiceName(in.readStringRequireUtf8());
+                    break;
+                case 2:
+                    request.setMethodName(in.readStringRequireUtf8());
+                    break;
+                case 3:
+                    request.setServiceVersion(in.readStringRequireUtf8());
+                    break;
+                case 4:
+                    request.setMethodId(in.readSFixed64());
+                    break;
+                case 5:
+                    if (parameterTypes == null) {
+                        parameterTypes = new ArrayList<>();
+                    }
+                    parameterTypes.add(ClassNames.load(in.readStringRequireUtf8()));
+                    break;
+                case 6:
+                    if (args == null) {
+                        args = new ArrayList<>();
+                        // 参数之前的字段已经读完，确定参数的声明类型；只带方法编号的请求按编号补全参数类型
+                        if (parameterTypes != null) {
+                            request.setParameterTypes(parameterTypes.toArray(new Class<?>[0]));
+                        } else {
+                            MethodDictionary.resolve(request);
+                        }
+                        declaredTypes = request.getParameterTypes();
+                    }
+                    Class<?> declaredType = declaredTypes != null && args.size() < declaredTypes.length ? declaredTypes[args.size()] : null;
+                    args.add(readValue(in, declaredType));
+                    break;
+                default:
+                    in.skipField(tag);
+                    break;
+            }
+        }
+        if (request.getParameterTypes() == null && parameterTypes != null) {
+            request.setParameterTypes(parameterTypes.toArray(new Class<?>[0]));
+        }
+        if (args != null) {
+            request.setArgs(args.toArray());
+        }
+        if (request.getParameterTypes() == null) {
+            MethodDictionary.resolve(request);
+        }
+        return request;
+    }
+
+    private byte[] writeResponse(RpcResponse response) throws IOException {
+        Object data = response.getData();
+        Class<?> dataType = response.getDataType() != null ? response.getDataType() : data != null ? data.getClass() : null;
+        String dataTypeName = dataType == null ? null : dataType.getName();
+        ValueField dataValue = data == null ? null : prepare(data, dataType);
+        RpcError error = response.getError();
+        int errorSize = error == null ? 0 : errorSize(error);
+        int size = stringSize(1, dataTypeName) + stringSize(3, response.getMessage());
+        if (dataValue != null) {
+            size += valueSize(2, dataValue);
+        }
+        if (error != null) {
+            size += CodedOutputStream.computeTagSize(5) + CodedOutputStream.computeUInt32SizeNoTag(errorSize) + errorSize;
+        }
+        byte[] bytes = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        writeString(out, 1, dataTypeName);
+        if (dataValue != null) {
+            writeValue(out, 2, dataValue);
+        }
+        writeString(out, 3, response.getMessage());
+        if (error != null) {
+            out.writeTag(5, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            out.writeUInt32NoTag(errorSize);
+            out.writeInt32(1, error.getCode());
+            writeString(out, 2, error.getType());
+            writeString(out, 3, error.getMessage());
+            writeString(out, 4, error.getStackTrace());
+        }
+        out.checkNoSpaceLeft();
+        return bytes;
+    }
+
+    private static int errorSize(RpcError error) {
+        return CodedOutputStream.computeInt32Size(1, error.getCode()) + stringSize(2, error.getType())
+                + stringSize(3, error.getMessage()) + stringSize(4, error.getStackTrace());
+    }
+
+    private RpcResponse readResponse(CodedInputStream in) throws IOException {
+        RpcResponse response = new RpcResponse();
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1:
+                    response.setDataType(ClassNames.load(in.readStringRequireUtf8()));
+                    break;
+                case 2:
+                    response.setData(readValue(in, response.getDataType()));
+                    break;
+                case 3:
+                    response.setMessage(in.readStringRequireUtf8());
+                    break;
+                case 4:
+                    Object exception = readValue(in, null);
+                    if (!(exception instanceof Exception)) {
+                        throw new IOException("Invalid exception value: " + exception);
+                    }
+                    response.setException((Exception) exception);
+                    break;
+                case 5:
+                    response.setError(readError(in));
+                    break;
+                default:
+                    in.skipField(tag);
+                    break;
+            }
+        }
+        return response;
+    }
+
+    private static RpcError readError(CodedInputStream in) throws IOException {
+        RpcError error = new RpcError();
+        int oldLimit = in.pushLimit(in.readRawVarint32());
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1:
+                    error.setCode(in.readInt32());
+                    break;
+                case 2:
+                    error.setType(in.readStringRequireUtf8());
+                    break;
+                case 3:
+                    error.setMessage(in.readStringRequireUtf8());
+                    break;
+                case 4:
+                    error.setStackTrace(in.readStringRequireUtf8());
+                    break;
+                default:
+                    in.skipField(tag);
+                    break;
             }
-        } else if (Serializable.class.isAssignableFrom(type)) {
-            // 对于普通可序列化对象，从字节数组中反序列化
+        }
+        in.popLimit(oldLimit);
+        return error;
+    }
+
+    /**
+     * 确定值的编码方式并计算长度（Java 序列化在此完成）
+     *
+     * @param value        值
+     * @param declaredType 声明的类型，与值的类型一致时不写类名；未知时为 null
+     */
+    private static ValueField prepare(Object value, Class<?> declaredType) throws IOException {
+        if (value == null) {
+            return NULL_VALUE;
+        }
+        if (value instanceof Message.Builder) {
+            value = ((Message.Builder) value).build();
+        }
+        String type = value.getClass() == box(declaredType) ? null : value.getClass().getName();
+        int kind;
+        Object payload;
+        int payloadSize;
+        if (value instanceof Message) {
+            kind = VALUE_MESSAGE;
+            payload = value;
+            payloadSize = CodedOutputStream.computeMessageSize(kind, (Message) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof Character) {
+            kind = VALUE_INTEGER;
+            long longValue = value instanceof Character ? (Character) value : ((Number) value).longValue();
+            payload = longValue;
+            payloadSize = CodedOutputStream.computeSInt64Size(kind, longValue);
+            // 整数默认还原为 Long
+            type = value instanceof Long ? null : type;
+        } else if (value instanceof Double || value instanceof Float) {
+            kind = VALUE_DECIMAL;
+            payload = ((Number) value).doubleValue();
+            payloadSize = CodedOutputStream.computeDoubleSize(kind, 0);
+            // 小数默认还原为 Double
+            type = value instanceof Double ? null : type;
+        } else if (value instanceof Boolean) {
+            kind = VALUE_BOOL;
+            payload = value;
+            payloadSize = CodedOutputStream.computeBoolSize(kind, true);
+            type = null;
+        } else if (value instanceof String) {
+            kind = VALUE_STRING;
+            payload = value;
+            payloadSize = CodedOutputStream.computeStringSize(kind, (String) value);
+            type = null;
+        } else if (value instanceof byte[]) {
+            kind = VALUE_BYTES;
+            payload = value;
+            payloadSize = CodedOutputStream.computeByteArraySize(kind, (byte[]) value);
+            type = null;
+        } else if (value instanceof Serializable) {
+            // 对于普通可序列化对象，使用Java序列化机制（类型信息在序列化结果中）
+            kind = VALUE_JAVA;
+            payload = SerializationUtils.serialize((Serializable) value);
+            payloadSize = CodedOutputStream.computeByteArraySize(kind, (byte[]) payload);
+            type = null;
+        } else {
+            throw new IllegalArgumentException("Object must be either a Protobuf Message/Builder or Serializable");
+        }
+        return new ValueField(type, kind, payload, stringSize(VALUE_TYPE, type) + payloadSize);
+    }
+
+    private static void writeValue(CodedOutputStream out, int fieldNumber, ValueField value) throws IOException {
+        out.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        out.writeUInt32NoTag(value.size);
+        writeValueFields(out, value);
+    }
+
+    private static void writeValueFields(CodedOutputStream out, ValueField value) throws IOException {
+        writeString(out, VALUE_TYPE, value.type);
+        switch (value.kind) {
+            case VALUE_MESSAGE:
+                out.writeMessage(VALUE_MESSAGE, (Message) value.payload);
+                break;
+            case VALUE_INTEGER:
+                out.writeSInt64(VALUE_INTEGER, (Long) value.payload);
+                break;
+            case VALUE_DECIMAL:
+                out.writeDouble(VALUE_DECIMAL, (Double) value.payload);
+                break;
+            case VALUE_BOOL:
+                out.writeBool(VALUE_BOOL, (Boolean) value.payload);
+                break;
+            case VALUE_STRING:
+                out.writeString(VALUE_STRING, (String) value.payload);
+                break;
+            case VALUE_BYTES:
+            case VALUE_JAVA:
+                out.writeByteArray(value.kind, (byte[]) value.payload);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static Object readValue(CodedInputStream in, Class<?> declaredType) throws IOException {
+        int oldLimit = in.pushLimit(in.readRawVarint32());
+        Object value = readValueFields(in, declaredType);
+        in.popLimit(oldLimit);
+        return value;
+    }
+
+    /**
+     * 读取 Value 的字段，没有类名时按声明的类型还原
+     */
+    private static Object readValueFields(CodedInputStream in, Class<?> declaredType) throws IOException {
+        Class<?> type = declaredType;
+        Object value = null;
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case VALUE_TYPE:
+                    type = ClassNames.load(in.readStringRequireUtf8());
+                    break;
+                case VALUE_MESSAGE:
+                    if (type == null || !Message.class.isAssignableFrom(type)) {
+                        throw new IOException("Unknown Protobuf message type: " + type);
+                    }
+                    int oldLimit = in.pushLimit(in.readRawVarint32());
+                    value = parser(type).parseFrom(in);
+                    in.popLimit(oldLimit);
+                    break;
+                case VALUE_INTEGER:
+                    value = toInteger(in.readSInt64(), box(type));
+                    break;
+                case VALUE_DECIMAL:
+                    double doubleValue = in.readDouble();
+                    value = box(type) == Float.class ? (Object) (float) doubleValue : (Object) doubleValue;
+                    break;
+                case VALUE_BOOL:
+                    value = in.readBool();
+                    break;
+                case VALUE_STRING:
+                    value = in.readStringRequireUtf8();
+                    break;
+                case VALUE_BYTES:
+                    value = in.readByteArray();
+                    break;
+                case VALUE_JAVA:
+                    try {
+                        value = SerializationUtils.deserialize(in.readByteArray());
+                    } catch (ClassNotFoundException e) {
+                        throw new IOException("Failed to deserialize object", e);
+                    }
+                    break;
+                default:
+                    in.skipField(tag);
+                    break;
+            }
+        }
+        return value;
+    }
+
+    private static Object toInteger(long value, Class<?> type) {
+        if (type == Integer.class) {
+            return (int) value;
+        } else if (type == Short.class) {
+            return (short) value;
+        } else if (type == Byte.class) {
+            return (byte) value;
+        } else if (type == Character.class) {
+            return (char) value;
+        }
+        return value;
+    }
+
+    /**
+     * 获取消息类型的解析器（按类型缓存，只反射一次）
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Parser<T> parser(Class<T> type) {
+        return (Parser<T>) PARSER_CACHE.computeIfAbsent(type, t -> {
             try {
-                return type.cast(SerializationUtils.deserialize(bytes));
-            } catch (ClassNotFoundException e) {
-                throw new IOException("Failed to deserialize object", e);
+                return ((Message) t.getMethod("getDefaultInstance").invoke(null)).getParserForType();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Failed to get Protobuf parser: " + t.getName(), e);
             }
+        });
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (type == null || !type.isPrimitive()) {
+            return type;
+        }
+        if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else if (type == char.class) {
+            return Character.class;
+        }
+        return Void.class;
+    }
+
+    private static int stringSize(int fieldNumber, String value) {
+        return value == null ? 0 : CodedOutputStream.computeStringSize(fieldNumber, value);
+    }
+
+    private static int valueSize(int fieldNumber, ValueField value) {
+        return CodedOutputStream.computeTagSize(fieldNumber) + CodedOutputStream.computeUInt32SizeNoTag(value.size) + value.size;
+    }
+
+    private static void writeString(CodedOutputStream out, int fieldNumber, String value) throws IOException {
+        if (value != null) {
+            out.writeString(fieldNumber, value);
+        }
+    }
+
+    /**
+     * 待写入的 Value
+     */
+    private static class ValueField {
+
+        /**
+         * 类名，可由声明的类型或编码方式推断时为 null
+         */
+        final String type;
+
+        /**
+         * 编码方式（字段编号），null 值为 0
+         */
+        final int kind;
+
+        final Object payload;
+
+        /**
+         * 编码后的长度
+         */
+        final int size;
+
+        ValueField(String type, int kind, Object payload, int size) {
+            this.type = type;
+            this.kind = kind;
+            this.payload = payload;
+            this.size = size;
         }
-        throw new IllegalArgumentException("Type must be either a Protobuf Message or Serializable");
     }
 
     // 简单的序列化工具类，用于处理普通Java对象
@@ -61,11 +586,15 @@ public class ProtobufSerializer implements Serializer {
             if (obj == null) {
                 return null;
             }
-            java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-            java.io.ObjectOutputStream oos = new java.io.ObjectOutputStream(baos);
-            oos.writeObject(obj);
-            oos.close();
-            return baos.toByteArray();
+            PooledOutputStream baos = new PooledOutputStream();
+            try {
+                java.io.ObjectOutputStream oos = new java.io.ObjectOutputStream(baos);
+                oos.writeObject(obj);
+                oos.close();
+                return baos.toByteArray();
+            } finally {
+                baos.release();
+            }
         }
 
         public static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
@@ -79,4 +608,4 @@ public class ProtobufSerializer implements Serializer {
             return obj;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,461 @@
+package com.easy.simple.rpc.serializer.impl;
+
+import com.easy.simple.rpc.buffer.PooledOutputStream;
+import com.easy.simple.rpc.constant.RpcConstant;
+import com.easy.simple.rpc.enity.RpcError;
+import com.easy.simple.rpc.enity.RpcRequest;
+import com.easy.simple.rpc.enity.RpcResponse;
+import com.easy.simple.rpc.serializer.Serializer;
+import com.easy.simple.rpc.serializer.schema.SchemaCodec;
+import com.easy.simple.rpc.serializer.schema.SchemaCodecs;
+import com.easy.simple.rpc.serializer.schema.SchemaReader;
+import com.easy.simple.rpc.serializer.schema.SchemaWriter;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * schema 序列化器，使用 @RpcSchema 生成的编解码器
+ * RpcRequest / RpcResponse 以标志位字节开头，只写存在的字段；参数和返回值按值类型打标签：
+ * 有编解码器的服务类型只写 ServiceTypes 编号（不写类名），基本类型、字符串、字节数组、集合直接编码，
+ * 集合还原为 ArrayList / LinkedHashSet / LinkedHashMap，其余对象使用 Java 序列化
+ */
+public class SchemaSerializer implements Serializer {
+
+    private static final int REQUEST_SERVICE_NAME = 1;
+    private static final int REQUEST_METHOD_NAME = 1 << 1;
+    private static final int REQUEST_SERVICE_VERSION = 1 << 2;
+    private static final int REQUEST_METHOD_ID = 1 << 3;
+    private static final int REQUEST_PARAMETER_TYPES = 1 << 4;
+    private static final int REQUEST_ARGS = 1 << 5;
+
+    private static final int RESPONSE_DATA = 1;
+    private static final int RESPONSE_MESSAGE = 1 << 1;
+    private static final int RESPONSE_ERROR = 1 << 2;
+
+    private static final int VALUE_NULL = 0;
+    private static final int VALUE_TRUE = 1;
+    private static final int VALUE_FALSE = 2;
+    private static final int VALUE_BYTE = 3;
+    private static final int VALUE_SHORT = 4;
+    private static final int VALUE_INT = 5;
+    private static final int VALUE_LONG = 6;
+    private static final int VALUE_FLOAT = 7;
+    private static final int VALUE_DOUBLE = 8;
+    private static final int VALUE_CHAR = 9;
+    private static final int VALUE_STRING = 10;
+    private static final int VALUE_BYTES = 11;
+    private static final int VALUE_LIST = 12;
+    private static final int VALUE_SET = 13;
+    private static final int VALUE_MAP = 14;
+    private static final int VALUE_SCHEMA = 15;
+    private static final int VALUE_JAVA = 16;
+
+    /**
+     * 池的最大容量
+     */
+    private static final int POOL_CAPACITY = 64;
+
+    /**
+     * 输出缓冲区初始大小
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 256;
+
+    /**
+     * 超过该大小的输出缓冲区用完后不放回池中，避免偶尔的大消息长期占用内存
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 1 << 20;
+
+    private static final BlockingQueue<SchemaWriter> WRITER_POOL = new ArrayBlockingQueue<>(POOL_CAPACITY);
+
+    /**
+     * 注册编号 => 编解码器
+     */
+    private static final Map<Integer, SchemaCodec<?>> CODECS = new ConcurrentHashMap<>();
+
+    /**
+     * 有编解码器的服务类型 => 注册编号
+     */
+    private static final Map<Class<?>, Integer> TYPE_IDS = new ConcurrentHashMap<>();
+
+    /**
+     * 已查找过编解码器的服务类型个数
+     */
+    private static volatile int indexedServiceTypes;
+
+    @Override
+    public <T> byte[] serialize(T object) throws IOException {
+        SchemaWriter writer = write(object);
+        try {
+            return writer.toBytes();
+        } finally {
+            release(writer);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, Class<T> type) throws IOException {
+        return read(ByteBuffer.wrap(bytes), type);
+    }
+
+    @Override
+    public <T> void serialize(T object, Buffer buffer) throws IOException {
+        SchemaWriter writer = write(object);
+        try {
+            buffer.appendBytes(writer.getBuffer(), 0, writer.position());
+        } finally {
+            release(writer);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(Buffer buffer, Class<T> type) throws IOException {
+        // 直接读取传输缓冲区，不复制
+        return read(Buffers.readView(buffer).nioBuffer(), type);
+    }
+
+    @Override
+    public void registerService(Class<?> serviceClass) {
+        ServiceTypes.register(serviceClass);
+        indexServiceTypes();
+    }
+
+    private static SchemaWriter write(Object object) throws IOException {
+        indexServiceTypes();
+        SchemaWriter writer = WRITER_POOL.poll();
+        if (writer == null) {
+            writer = new SchemaWriter(OUTPUT_BUFFER_SIZE);
+        }
+        try {
+            if (object instanceof RpcRequest) {
+                writeRequest((RpcRequest) object, writer);
+            } else if (object instanceof RpcResponse) {
+                writeResponse((RpcResponse) object, writer);
+            } else {
+                writeValue(object, writer);
+            }
+            return writer;
+        } catch (IOException | RuntimeException e) {
+            release(writer);
+            throw e;
+        }
+    }
+
+    private static <T> T read(ByteBuffer buffer, Class<T> type) throws IOException {
+        indexServiceTypes();
+        SchemaReader reader = new SchemaReader(buffer);
+        try {
+            Object result;
+            if (type == RpcRequest.class) {
+                result = readRequest(reader);
+            } else if (type == RpcResponse.class) {
+                result = readResponse(reader);
+            } else {
+                result = readValue(reader);
+            }
+            if (reader.hasRemaining()) {
+                throw new IOException("消息体有多余的字节");
+            }
+            return type.cast(result);
+        } catch (RuntimeException e) {
+            // 截断、格式错误的消息体
+            throw new IOException("schema 反序列化失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static void release(SchemaWriter writer) {
+        if (writer.getBuffer().length <= MAX_POOLED_BUFFER_SIZE) {
+            writer.reset();
+            WRITER_POOL.offer(writer);
+        }
+    }
+
+    /**
+     * 为新注册的服务类型查找编解码器
+     */
+    private static void indexServiceTypes() {
+        List<Class<?>> serviceTypes = ServiceTypes.types();
+        if (indexedServiceTypes == serviceTypes.size()) {
+            return;
+        }
+        synchronized (CODECS) {
+            int indexed = indexedServiceTypes;
+            while (indexed < serviceTypes.size()) {
+                Class<?> type = serviceTypes.get(indexed++);
+                SchemaCodec<?> codec = SchemaCodecs.get(type);
+                if (codec != null) {
+                    int id = ServiceTypes.id(type);
+                    CODECS.put(id, codec);
+                    TYPE_IDS.put(type, id);
+                }
+            }
+            indexedServiceTypes = indexed;
+        }
+    }
+
+    private static void writeRequest(RpcRequest request, SchemaWriter writer) throws IOException {
+        String serviceVersion = request.getServiceVersion();
+        int flags = 0;
+        flags |= request.getServiceName() != null ? REQUEST_SERVICE_NAME : 0;
+        flags |= request.getMethodName() != null ? REQUEST_METHOD_NAME : 0;
+        // 默认版本不写
+        flags |= serviceVersion != null && !RpcConstant.DEFAULT_SERVICE_VERSION.equals(serviceVersion) ? REQUEST_SERVICE_VERSION : 0;
+        flags |= request.getMethodId() != 0 ? REQUEST_METHOD_ID : 0;
+        flags |= request.getParameterTypes() != null ? REQUEST_PARAMETER_TYPES : 0;
+        flags |= request.getArgs() != null ? REQUEST_ARGS : 0;
+        writer.writeByte(flags);
+        if ((flags & REQUEST_SERVICE_NAME) != 0) {
+            writer.writeString(request.getServiceName());
+        }
+        if ((flags & REQUEST_METHOD_NAME) != 0) {
+            writer.writeString(request.getMethodName());
+        }
+        if ((flags & REQUEST_SERVICE_VERSION) != 0) {
+            writer.writeString(serviceVersion);
+        }
+        if ((flags & REQUEST_METHOD_ID) != 0) {
+            writer.writeFixedLong(request.getMethodId());
+        }
+        if ((flags & REQUEST_PARAMETER_TYPES) != 0) {
+            writer.writeVarInt(request.getParameterTypes().length);
+            for (Class<?> parameterType : request.getParameterTypes()) {
+                writer.writeString(parameterType.getName());
+            }
+        }
+        if ((flags & REQUEST_ARGS) != 0) {
+            writer.writeVarInt(request.getArgs().length);
+            for (Object arg : request.getArgs()) {
+                writeValue(arg, writer);
+            }
+        }
+    }
+
+    private static RpcRequest readRequest(SchemaReader reader) throws IOException {
+        RpcRequest request = new RpcRequest();
+        int flags = reader.readByte();
+        if ((flags & REQUEST_SERVICE_NAME) != 0) {
+            request.setServiceName(reader.readString());
+        }
+        if ((flags & REQUEST_METHOD_NAME) != 0) {
+            request.setMethodName(reader.readString());
+        }
+        if ((flags & REQUEST_SERVICE_VERSION) != 0) {
+            request.setServiceVersion(reader.readString());
+        }
+        if ((flags & REQUEST_METHOD_ID) != 0) {
+            request.setMethodId(reader.readFixedLong());
+        }
+        if ((flags & REQUEST_PARAMETER_TYPES) != 0) {
+            Class<?>[] parameterTypes = new Class<?>[reader.readVarInt()];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                parameterTypes[i] = ClassNames.load(reader.readString());
+            }
+            request.setParameterTypes(parameterTypes);
+        }
+        if ((flags & REQUEST_ARGS) != 0) {
+            Object[] args = new Object[reader.readVarInt()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = readValue(reader);
+            }
+            request.setArgs(args);
+        }
+        return request;
+    }
+
+    /**
+     * 返回值的类型由值的标签确定，不写 dataType
+     */
+    private static void writeResponse(RpcResponse response, SchemaWriter writer) throws IOException {
+        int flags = 0;
+        flags |= response.getData() != null ? RESPONSE_DATA : 0;
+        flags |= response.getMessage() != null ? RESPONSE_MESSAGE : 0;
+        flags |= response.getError() != null ? RESPONSE_ERROR : 0;
+        writer.writeByte(flags);
+        if ((flags & RESPONSE_DATA) != 0) {
+            writeValue(response.getData(), writer);
+        }
+        if ((flags & RESPONSE_MESSAGE) != 0) {
+            writer.writeString(response.getMessage());
+        }
+        if ((flags & RESPONSE_ERROR) != 0) {
+            RpcError error = response.getError();
+            writer.writeVarInt(error.getCode());
+            writer.writeString(error.getType());
+            writer.writeString(error.getMessage());
+            writer.writeString(error.getStackTrace());
+        }
+    }
+
+    private static RpcResponse readResponse(SchemaReader reader) throws IOException {
+        RpcResponse response = new RpcResponse();
+        int flags = reader.readByte();
+        if ((flags & RESPONSE_DATA) != 0) {
+            Object data = readValue(reader);
+            response.setData(data);
+            response.setDataType(data == null ? null : data.getClass());
+        }
+        if ((flags & RESPONSE_MESSAGE) != 0) {
+            response.setMessage(reader.readString());
+        }
+        if ((flags & RESPONSE_ERROR) != 0) {
+            response.setError(new RpcError(reader.readVarInt(), reader.readString(), reader.readString(), reader.readString()));
+        }
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(Object value, SchemaWriter writer) throws IOException {
+        if (value == null) {
+            writer.writeByte(VALUE_NULL);
+            return;
+        }
+        Integer id = TYPE_IDS.get(value.getClass());
+        if (id != null) {
+            writer.writeByte(VALUE_SCHEMA);
+            writer.writeVarInt(id);
+            ((SchemaCodec<Object>) CODECS.get(id)).write(value, writer);
+        } else if (value instanceof String) {
+            writer.writeByte(VALUE_STRING);
+            writer.writeString((String) value);
+        } else if (value instanceof Integer) {
+            writer.writeByte(VALUE_INT);
+            writer.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            writer.writeByte(VALUE_LONG);
+            writer.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            writer.writeByte((Boolean) value ? VALUE_TRUE : VALUE_FALSE);
+        } else if (value instanceof Double) {
+            writer.writeByte(VALUE_DOUBLE);
+            writer.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            writer.writeByte(VALUE_FLOAT);
+            writer.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            writer.writeByte(VALUE_SHORT);
+            writer.writeInt((Short) value);
+        } else if (value instanceof Byte) {
+            writer.writeByte(VALUE_BYTE);
+            writer.writeByte((Byte) value);
+        } else if (value instanceof Character) {
+            writer.writeByte(VALUE_CHAR);
+            writer.writeChar((Character) value);
+        } else if (value instanceof byte[]) {
+            writer.writeByte(VALUE_BYTES);
+            writer.writeBytes((byte[]) value);
+        } else if (value instanceof List || value instanceof Set) {
+            writer.writeByte(value instanceof List ? VALUE_LIST : VALUE_SET);
+            writer.writeVarInt(((Collection<?>) value).size());
+            for (Object element : (Collection<?>) value) {
+                writeValue(element, writer);
+            }
+        } else if (value instanceof Map) {
+            writer.writeByte(VALUE_MAP);
+            writer.writeVarInt(((Map<?, ?>) value).size());
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writeValue(entry.getKey(), writer);
+                writeValue(entry.getValue(), writer);
+            }
+        } else if (value instanceof Serializable) {
+            // 没有编解码器的对象使用 Java 序列化（带类名）
+            PooledOutputStream bos = new PooledOutputStream();
+            try {
+                try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+                    oos.writeObject(value);
+                }
+                writer.writeByte(VALUE_JAVA);
+                writer.writeBytes(bos.toByteArray());
+            } finally {
+                bos.release();
+            }
+        } else {
+            throw new NotSerializableException(value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(SchemaReader reader) throws IOException {
+        int tag = reader.readByte();
+        switch (tag) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_BYTE:
+                return reader.readByte();
+            case VALUE_SHORT:
+                return (short) reader.readInt();
+            case VALUE_INT:
+                return reader.readInt();
+            case VALUE_LONG:
+                return reader.readLong();
+            case VALUE_FLOAT:
+                return reader.readFloat();
+            case VALUE_DOUBLE:
+                return reader.readDouble();
+            case VALUE_CHAR:
+                return reader.readChar();
+            case VALUE_STRING:
+                return reader.readString();
+            case VALUE_BYTES:
+                return reader.readBytes();
+            case VALUE_LIST: {
+                int size = reader.readVarInt();
+                List<Object> list = new ArrayList<>(Math.min(size, 1024));
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(reader));
+                }
+                return list;
+            }
+            case VALUE_SET: {
+                int size = reader.readVarInt();
+                Set<Object> set = new LinkedHashSet<>();
+                for (int i = 0; i < size; i++) {
+                    set.add(readValue(reader));
+                }
+                return set;
+            }
+            case VALUE_MAP: {
+                int size = reader.readVarInt();
+                Map<Object, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(reader), readValue(reader));
+                }
+                return map;
+            }
+            case VALUE_SCHEMA: {
+                int id = reader.readVarInt();
+                SchemaCodec<?> codec = CODECS.get(id);
+                if (codec == null) {
+                    throw new IOException("未注册的 schema 类型编号: " + id);
+                }
+                return codec.read(reader);
+            }
+            case VALUE_JAVA:
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(reader.readBytes()))) {
+                    return ois.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Failed to deserialize object", e);
+                }
+            default:
+                throw new IOException("未知的值标签: " + tag);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.easy.simple.rpc.serializer.impl;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 服务接口中的参数、返回值类型（及其字段类型），按类名哈希分配注册编号
+ * 消费者创建代理、提供者注册服务时注册同一接口，两端得到相同的编号（支持按编号注册类的序列化器使用）
+ */
+final class ServiceTypes {
+
+    /**
+     * 注册编号从此开始，小于该值的编号留给序列化器默认注册和框架类型
+     */
+    static final int FIRST_ID = 64;
+
+    /**
+     * 按注册顺序排列的服务类型
+     */
+    private static final List<Class<?>> TYPES = new CopyOnWriteArrayList<>();
+
+    /**
+     * 注册编号 => 服务类型（检查哈希冲突）
+     */
+    private static final Map<Integer, Class<?>> IDS = new HashMap<>();
+
+    private ServiceTypes() {
+    }
+
+    /**
+     * 注册服务接口中的类型
+     *
+     * @param serviceClass 服务接口
+     * @throws IllegalStateException 注册编号冲突
+     */
+    static void register(Class<?> serviceClass) {
+        Set<Class<?>> types = new HashSet<>();
+        for (Method method : serviceClass.getMethods()) {
+            if (Object.class.equals(method.getDeclaringClass())) {
+                continue;
+            }
+            for (Type parameterType : method.getGenericParameterTypes()) {
+                collectTypes(parameterType, types);
+            }
+            collectTypes(method.getGenericReturnType(), types);
+        }
+        synchronized (IDS) {
+            for (Class<?> type : types) {
+                if (TYPES.contains(type)) {
+                    continue;
+                }
+                int id = id(type);
+                Class<?> existing = IDS.get(id);
+                if (existing != null) {
+                    throw new IllegalStateException("序列化注册编号冲突: " + existing.getName() + " / " + type.getName());
+                }
+                IDS.put(id, type);
+                TYPES.add(type);
+            }
+        }
+    }
+
+    /**
+     * 已注册的服务类型（按注册顺序，只增不减）
+     */
+    static List<Class<?>> types() {
+        return TYPES;
+    }
+
+    /**
+     * 按类名计算注册编号（FNV-1a），两端对同一个类得到相同的编号
+     */
+    static int id(Class<?> type) {
+        int hash = 0x811c9dc5;
+        for (byte b : type.getName().getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x01000193;
+        }
+        // 变长编码最多 4 字节
+        return FIRST_ID + (hash & 0x7FFFFFF);
+    }
+
+    /**
+     * 收集需要注册的类型：具体类、枚举和数组，递归收集泛型参数和字段类型；JDK 类型由序列化器默认处理
+     */
+    private static void collectTypes(Type type, Set<Class<?>> types) {
+        if (type instanceof ParameterizedType) {
+            collectTypes(((ParameterizedType) type).getRawType(), types);
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                collectTypes(argument, types);
+            }
+        } else if (type instanceof GenericArrayType) {
+            collectTypes(((GenericArrayType) type).getGenericComponentType(), types);
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                collectTypes(bound, types);
+            }
+        } else if (type instanceof TypeVariable) {
+            for (Type bound : ((TypeVariable<?>) type).getBounds()) {
+                collectTypes(bound, types);
+            }
+        } else if (type instanceof Class) {
+            Class<?> clazz = (Class<?>) type;
+            if (clazz.isArray()) {
+                collectTypes(clazz.getComponentType(), types);
+                if (!clazz.getComponentType().isPrimitive() && !isJdkType(clazz.getComponentType())) {
+                    types.add(clazz);
+                }
+                return;
+            }
+            if (clazz.isPrimitive() || isJdkType(clazz) || !types.add(clazz)) {
+                return;
+            }
+            if (clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers())) {
+                // 接口和抽象类不会出现在消息中，只收集其泛型信息
+                types.remove(clazz);
+                return;
+            }
+            for (Class<?> current = clazz; current != null && !Object.class.equals(current); current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+                        collectTypes(field.getGenericType(), types);
+                    }
+                }
+            }
+        }
+    }
+
+    static boolean isJdkType(Class<?> clazz) {
+        String name = clazz.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.") || name.startsWith("jdk.");
+    }
+}
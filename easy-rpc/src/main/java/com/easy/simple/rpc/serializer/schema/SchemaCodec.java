@@ -0,0 +1,32 @@
+package com.easy.simple.rpc.serializer.schema;
+
+/**
+ * 数据对象的编解码器（由 SchemaProcessor 为 @RpcSchema 标注的类生成）
+ * 编码格式：[长度(varint) | 字段个数(1) | 按声明顺序的字段...]，字段个数即 schema 版本，
+ * 读取时只读本端认识的字段，其余按长度跳过
+ *
+ * @param <T> 数据对象类型
+ */
+public interface SchemaCodec<T> {
+
+    /**
+     * 数据对象类型
+     */
+    Class<T> type();
+
+    /**
+     * 写入对象（不为 null）
+     *
+     * @param value 对象
+     * @param out   输出
+     */
+    void write(T value, SchemaWriter out);
+
+    /**
+     * 读取对象
+     *
+     * @param in 输入
+     * @return 对象
+     */
+    T read(SchemaReader in);
+}
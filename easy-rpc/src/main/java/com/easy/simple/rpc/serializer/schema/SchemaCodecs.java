@@ -0,0 +1,53 @@
+package com.easy.simple.rpc.serializer.schema;
+
+import com.easy.simple.rpc.stub.RpcStubs;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 生成的编解码器的命名和加载
+ * 编解码器与数据对象同包，类名为数据对象类名（嵌套类的 $ 替换为 _）加后缀，单例保存在 INSTANCE 字段
+ */
+public class SchemaCodecs {
+
+    /**
+     * 编解码器后缀
+     */
+    public static final String CODEC_SUFFIX = "_RpcSchema";
+
+    /**
+     * 数据对象类型 => 编解码器（没有生成类时为空）
+     */
+    private static final Map<Class<?>, Optional<SchemaCodec<?>>> CODECS = new ConcurrentHashMap<>();
+
+    private SchemaCodecs() {
+    }
+
+    /**
+     * 获取生成的编解码器
+     *
+     * @param type 数据对象类型
+     * @return 编解码器，没有生成类时为 null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> SchemaCodec<T> get(Class<T> type) {
+        return (SchemaCodec<T>) CODECS.computeIfAbsent(type, key -> {
+            if (key.isPrimitive() || key.isArray() || key.getClassLoader() == null) {
+                return Optional.empty();
+            }
+            Class<?> codecClass;
+            try {
+                codecClass = Class.forName(RpcStubs.generatedClassName(key.getName(), CODEC_SUFFIX), true, key.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of((SchemaCodec<?>) codecClass.getField("INSTANCE").get(null));
+            } catch (Exception e) {
+                throw new RuntimeException("获取编解码器失败: " + codecClass.getName(), e);
+            }
+        }).orElse(null);
+    }
+}
@@ -0,0 +1,673 @@
+package com.easy.simple.rpc.serializer.schema;
+
+import com.easy.simple.rpc.stub.RpcStubs;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 为 @RpcSchema 标注的类生成编解码器
+ * 字段（含父类字段，父类在前）按声明顺序编号，生成的代码通过 getter / setter（或同包可见的字段）逐个读写，不经过反射；
+ * 访问器按 Lombok 的命名规则推断，编译时由 Lombok 生成的访问器也能使用
+ */
+@SupportedAnnotationTypes(SchemaProcessor.SCHEMA_ANNOTATION)
+public class SchemaProcessor extends AbstractProcessor {
+
+    static final String SCHEMA_ANNOTATION = "com.easy.simple.rpc.annotation.RpcSchema";
+
+    private static final String GENERATED = "@javax.annotation.processing.Generated(\"" + SchemaProcessor.class.getName() + "\")\n";
+
+    private static final String WRITER = SchemaWriter.class.getName();
+
+    private static final String READER = SchemaReader.class.getName();
+
+    /**
+     * 字段个数写在一个字节中
+     */
+    private static final int MAX_FIELDS = 255;
+
+    private Elements elements;
+
+    private Types types;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                TypeElement dataType = (TypeElement) element;
+                if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+                    error("@RpcSchema 只能标注非抽象类", element);
+                    continue;
+                }
+                if (!dataType.getTypeParameters().isEmpty()) {
+                    error("@RpcSchema 不支持泛型类", element);
+                    continue;
+                }
+                if (dataType.getNestingKind().isNested() && !dataType.getModifiers().contains(Modifier.STATIC)) {
+                    error("@RpcSchema 标注的嵌套类必须是静态类", element);
+                    continue;
+                }
+                try {
+                    new CodecSource(dataType).generate();
+                } catch (UnsupportedFieldException e) {
+                    error(e.getMessage(), e.field);
+                } catch (IOException e) {
+                    error("生成编解码器失败: " + e.getMessage(), element);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 收集参与编码的字段：父类字段在前，跳过静态字段和 transient 字段
+     */
+    private List<VariableElement> collectFields(TypeElement dataType) {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeElement current = dataType; current != null && !Object.class.getName().equals(current.getQualifiedName().toString());
+             current = superclass(current)) {
+            hierarchy.add(current);
+        }
+        Collections.reverse(hierarchy);
+        List<VariableElement> fields = new ArrayList<>();
+        for (TypeElement current : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (!modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.TRANSIENT)) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    private void error(String message, Element element) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * 一个数据对象的编解码器源码
+     */
+    private class CodecSource {
+
+        private final TypeElement dataType;
+
+        private final String dataTypeName;
+
+        private final PackageElement packageElement;
+
+        /**
+         * 枚举类型 => 缓存其全部值的静态字段名
+         */
+        private final Map<String, String> enumValues = new LinkedHashMap<>();
+
+        /**
+         * 局部变量编号
+         */
+        private int variables;
+
+        CodecSource(TypeElement dataType) {
+            this.dataType = dataType;
+            this.dataTypeName = dataType.getQualifiedName().toString();
+            this.packageElement = elements.getPackageOf(dataType);
+        }
+
+        void generate() throws IOException {
+            List<VariableElement> fields = collectFields(dataType);
+            if (fields.size() > MAX_FIELDS) {
+                throw new UnsupportedFieldException("字段个数超过 " + MAX_FIELDS, dataType);
+            }
+            StringBuilder writeMethod = new StringBuilder();
+            writeMethod.append("    @Override\n    public void write(").append(dataTypeName).append(" value, ").append(WRITER).append(" out) {\n");
+            writeMethod.append("        int start = out.beginObject();\n");
+            writeMethod.append("        out.writeByte(FIELD_COUNT);\n");
+            StringBuilder readMethod = new StringBuilder();
+            readMethod.append("    @Override\n    public ").append(dataTypeName).append(" read(").append(READER).append(" in) {\n");
+            readMethod.append("        ").append(dataTypeName).append(" value = new ").append(dataTypeName).append("();\n");
+            readMethod.append("        int end = in.beginObject();\n");
+            readMethod.append("        int fieldCount = in.readFieldCount();\n");
+            for (int i = 0; i < fields.size(); i++) {
+                VariableElement field = fields.get(i);
+                if (field.getModifiers().contains(Modifier.FINAL)) {
+                    throw new UnsupportedFieldException("@RpcSchema 不支持 final 字段: " + field.getSimpleName(), field);
+                }
+                TypeMirror type = field.asType();
+                try {
+                    appendWrite(writeMethod, "        ", type, getter(field));
+                    // 写入端的字段个数不足时，后面的字段保持默认值
+                    readMethod.append("        if (fieldCount > ").append(i).append(") {\n");
+                    String readExpression = readExpression(type);
+                    if (readExpression != null) {
+                        readMethod.append("            ").append(setter(field, readExpression)).append(";\n");
+                    } else {
+                        String variable = newVariable();
+                        readMethod.append("            ").append(type).append(' ').append(variable).append(";\n");
+                        appendRead(readMethod, "            ", type, variable);
+                        readMethod.append("            ").append(setter(field, variable)).append(";\n");
+                    }
+                    readMethod.append("        }\n");
+                } catch (UnsupportedTypeException e) {
+                    throw new UnsupportedFieldException("@RpcSchema 不支持的字段类型 " + e.type + "（字段 " + field.getSimpleName()
+                            + "），请改用基本类型、字符串、枚举、集合或 @RpcSchema 标注的类型", field);
+                }
+            }
+            writeMethod.append("        out.endObject(start);\n    }\n");
+            readMethod.append("        in.endObject(end);\n        return value;\n    }\n");
+
+            String className = RpcStubs.generatedClassName(elements.getBinaryName(dataType).toString(), SchemaCodecs.CODEC_SUFFIX);
+            String simpleName = className.substring(className.lastIndexOf('.') + 1);
+            StringBuilder source = new StringBuilder();
+            if (!packageElement.isUnnamed()) {
+                source.append("package ").append(packageElement.getQualifiedName()).append(";\n\n");
+            }
+            source.append("/**\n * ").append(dataTypeName).append(" 的编解码器（由 SchemaProcessor 生成，请勿修改）\n */\n");
+            source.append(GENERATED);
+            source.append("public class ").append(simpleName).append(" implements ").append(SchemaCodec.class.getName())
+                    .append('<').append(dataTypeName).append("> {\n\n");
+            source.append("    public static final ").append(simpleName).append(" INSTANCE = new ").append(simpleName).append("();\n\n");
+            source.append("    /**\n     * 字段个数（schema 版本）\n     */\n");
+            source.append("    private static final int FIELD_COUNT = ").append(fields.size()).append(";\n\n");
+            for (Map.Entry<String, String> entry : enumValues.entrySet()) {
+                source.append("    private static final ").append(entry.getKey()).append("[] ").append(entry.getValue())
+                        .append(" = ").append(entry.getKey()).append(".values();\n\n");
+            }
+            source.append("    @Override\n    public Class<").append(dataTypeName).append("> type() {\n        return ")
+                    .append(dataTypeName).append(".class;\n    }\n\n");
+            source.append(writeMethod).append('\n').append(readMethod).append("}\n");
+            try (Writer writer = processingEnv.getFiler().createSourceFile(className, dataType).openWriter()) {
+                writer.write(source.toString());
+            }
+        }
+
+        /**
+         * 写入一个值
+         */
+        private void appendWrite(StringBuilder source, String indent, TypeMirror type, String expression) {
+            ValueKind kind = kind(type);
+            switch (kind) {
+                case BOOLEAN:
+                case BYTE:
+                case SHORT:
+                case CHAR:
+                case INT:
+                case LONG:
+                case FLOAT:
+                case DOUBLE:
+                case STRING:
+                case BYTES:
+                case BIG_DECIMAL:
+                case BIG_INTEGER:
+                case DATE:
+                case ENUM:
+                    source.append(indent).append("out.").append(kind.writeMethod).append('(').append(expression).append(");\n");
+                    break;
+                case BOXED: {
+                    String variable = newVariable();
+                    PrimitiveType primitive = types.unboxedType(type);
+                    source.append(indent).append(type).append(' ').append(variable).append(" = ").append(expression).append(";\n");
+                    source.append(indent).append("out.writeBoolean(").append(variable).append(" != null);\n");
+                    source.append(indent).append("if (").append(variable).append(" != null) {\n");
+                    appendWrite(source, indent + "    ", primitive, variable);
+                    source.append(indent).append("}\n");
+                    break;
+                }
+                case SCHEMA:
+                    source.append(indent).append("out.writeObject(").append(expression).append(", ").append(codecName(type)).append(".INSTANCE);\n");
+                    break;
+                case ARRAY: {
+                    String variable = newVariable();
+                    TypeMirror componentType = ((ArrayType) type).getComponentType();
+                    source.append(indent).append(type).append(' ').append(variable).append(" = ").append(expression).append(";\n");
+                    source.append(indent).append("out.writeSize(").append(variable).append(" == null ? -1 : ").append(variable).append(".length);\n");
+                    source.append(indent).append("if (").append(variable).append(" != null) {\n");
+                    String element = newVariable();
+                    source.append(indent).append("    for (").append(componentType).append(' ').append(element).append(" : ").append(variable).append(") {\n");
+                    appendWrite(source, indent + "        ", componentType, element);
+                    source.append(indent).append("    }\n").append(indent).append("}\n");
+                    break;
+                }
+                case COLLECTION: {
+                    String variable = newVariable();
+                    TypeMirror elementType = typeArgument(type, 0);
+                    source.append(indent).append(type).append(' ').append(variable).append(" = ").append(expression).append(";\n");
+                    source.append(indent).append("out.writeSize(").append(variable).append(" == null ? -1 : ").append(variable).append(".size());\n");
+                    source.append(indent).append("if (").append(variable).append(" != null) {\n");
+                    String element = newVariable();
+                    source.append(indent).append("    for (").append(elementType).append(' ').append(element).append(" : ").append(variable).append(") {\n");
+                    appendWrite(source, indent + "        ", elementType, element);
+                    source.append(indent).append("    }\n").append(indent).append("}\n");
+                    break;
+                }
+                case MAP: {
+                    String variable = newVariable();
+                    TypeMirror keyType = typeArgument(type, 0);
+                    TypeMirror valueType = typeArgument(type, 1);
+                    source.append(indent).append(type).append(' ').append(variable).append(" = ").append(expression).append(";\n");
+                    source.append(indent).append("out.writeSize(").append(variable).append(" == null ? -1 : ").append(variable).append(".size());\n");
+                    source.append(indent).append("if (").append(variable).append(" != null) {\n");
+                    String entry = newVariable();
+                    source.append(indent).append("    for (java.util.Map.Entry<").append(keyType).append(", ").append(valueType).append("> ")
+                            .append(entry).append(" : ").append(variable).append(".entrySet()) {\n");
+                    appendWrite(source, indent + "        ", keyType, entry + ".getKey()");
+                    appendWrite(source, indent + "        ", valueType, entry + ".getValue()");
+                    source.append(indent).append("    }\n").append(indent).append("}\n");
+                    break;
+                }
+                default:
+                    throw new UnsupportedTypeException(type);
+            }
+        }
+
+        /**
+         * 读取一个值的表达式，需要多条语句读取的类型返回 null
+         */
+        private String readExpression(TypeMirror type) {
+            ValueKind kind = kind(type);
+            switch (kind) {
+                case BOOLEAN:
+                case BYTE:
+                case CHAR:
+                case INT:
+                case LONG:
+                case FLOAT:
+                case DOUBLE:
+                case STRING:
+                case BYTES:
+                case BIG_DECIMAL:
+                case BIG_INTEGER:
+                case DATE:
+                    return "in." + kind.readMethod + "()";
+                case SHORT:
+                    return "(short) in.readInt()";
+                case BOXED:
+                    return "in.readBoolean() ? " + types.boxedClass(types.unboxedType(type)).getQualifiedName() + ".valueOf("
+                            + readExpression(types.unboxedType(type)) + ") : null";
+                case ENUM:
+                    return "in.readEnum(" + enumValues(type) + ")";
+                case SCHEMA:
+                    return "in.readObject(" + codecName(type) + ".INSTANCE)";
+                case ARRAY:
+                case COLLECTION:
+                case MAP:
+                    return null;
+                default:
+                    throw new UnsupportedTypeException(type);
+            }
+        }
+
+        /**
+         * 读取一个值并赋给已声明的变量
+         */
+        private void appendRead(StringBuilder source, String indent, TypeMirror type, String target) {
+            String expression = readExpression(type);
+            if (expression != null) {
+                source.append(indent).append(target).append(" = ").append(expression).append(";\n");
+                return;
+            }
+            ValueKind kind = kind(type);
+            String size = newVariable();
+            String index = newVariable();
+            source.append(indent).append("int ").append(size).append(" = in.readSize();\n");
+            switch (kind) {
+                case ARRAY: {
+                    TypeMirror componentType = ((ArrayType) type).getComponentType();
+                    source.append(indent).append(target).append(" = ").append(size).append(" < 0 ? null : ")
+                            .append(newArray(componentType, size)).append(";\n");
+                    source.append(indent).append("for (int ").append(index).append(" = 0; ").append(index).append(" < ").append(size)
+                            .append("; ").append(index).append("++) {\n");
+                    appendRead(source, indent + "    ", componentType, target + "[" + index + "]");
+                    source.append(indent).append("}\n");
+                    break;
+                }
+                case COLLECTION: {
+                    TypeMirror elementType = typeArgument(type, 0);
+                    String collection = newVariable();
+                    String element = newVariable();
+                    source.append(indent).append(type).append(' ').append(collection).append(" = null;\n");
+                    source.append(indent).append("if (").append(size).append(" >= 0) {\n");
+                    source.append(indent).append("    ").append(collection).append(" = new ").append(implementation(type))
+                            .append("<>(").append(isList(type) ? size : "").append(");\n");
+                    source.append(indent).append("    for (int ").append(index).append(" = 0; ").append(index).append(" < ").append(size)
+                            .append("; ").append(index).append("++) {\n");
+                    source.append(indent).append("        ").append(elementType).append(' ').append(element).append(";\n");
+                    appendRead(source, indent + "        ", elementType, element);
+                    source.append(indent).append("        ").append(collection).append(".add(").append(element).append(");\n");
+                    source.append(indent).append("    }\n").append(indent).append("}\n");
+                    source.append(indent).append(target).append(" = ").append(collection).append(";\n");
+                    break;
+                }
+                case MAP: {
+                    TypeMirror keyType = typeArgument(type, 0);
+                    TypeMirror valueType = typeArgument(type, 1);
+                    String map = newVariable();
+                    String key = newVariable();
+                    String value = newVariable();
+                    source.append(indent).append(type).append(' ').append(map).append(" = null;\n");
+                    source.append(indent).append("if (").append(size).append(" >= 0) {\n");
+                    source.append(indent).append("    ").append(map).append(" = new ").append(implementation(type)).append("<>();\n");
+                    source.append(indent).append("    for (int ").append(index).append(" = 0; ").append(index).append(" < ").append(size)
+                            .append("; ").append(index).append("++) {\n");
+                    source.append(indent).append("        ").append(keyType).append(' ').append(key).append(";\n");
+                    appendRead(source, indent + "        ", keyType, key);
+                    source.append(indent).append("        ").append(valueType).append(' ').append(value).append(";\n");
+                    appendRead(source, indent + "        ", valueType, value);
+                    source.append(indent).append("        ").append(map).append(".put(").append(key).append(", ").append(value).append(");\n");
+                    source.append(indent).append("    }\n").append(indent).append("}\n");
+                    source.append(indent).append(target).append(" = ").append(map).append(";\n");
+                    break;
+                }
+                default:
+                    throw new UnsupportedTypeException(type);
+            }
+        }
+
+        private ValueKind kind(TypeMirror type) {
+            switch (type.getKind()) {
+                case BOOLEAN:
+                    return ValueKind.BOOLEAN;
+                case BYTE:
+                    return ValueKind.BYTE;
+                case SHORT:
+                    return ValueKind.SHORT;
+                case CHAR:
+                    return ValueKind.CHAR;
+                case INT:
+                    return ValueKind.INT;
+                case LONG:
+                    return ValueKind.LONG;
+                case FLOAT:
+                    return ValueKind.FLOAT;
+                case DOUBLE:
+                    return ValueKind.DOUBLE;
+                case ARRAY:
+                    return ((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE ? ValueKind.BYTES : ValueKind.ARRAY;
+                case DECLARED:
+                    break;
+                default:
+                    return ValueKind.UNSUPPORTED;
+            }
+            TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+            String name = element.getQualifiedName().toString();
+            switch (name) {
+                case "java.lang.String":
+                    return ValueKind.STRING;
+                case "java.math.BigDecimal":
+                    return ValueKind.BIG_DECIMAL;
+                case "java.math.BigInteger":
+                    return ValueKind.BIG_INTEGER;
+                case "java.util.Date":
+                    return ValueKind.DATE;
+                case "java.util.Collection":
+                case "java.util.List":
+                case "java.util.ArrayList":
+                case "java.util.LinkedList":
+                case "java.util.Set":
+                case "java.util.HashSet":
+                case "java.util.LinkedHashSet":
+                    return hasTypeArguments(type, 1) ? ValueKind.COLLECTION : ValueKind.UNSUPPORTED;
+                case "java.util.Map":
+                case "java.util.HashMap":
+                case "java.util.LinkedHashMap":
+                    return hasTypeArguments(type, 2) ? ValueKind.MAP : ValueKind.UNSUPPORTED;
+                default:
+                    break;
+            }
+            if (element.getKind() == ElementKind.ENUM) {
+                return ValueKind.ENUM;
+            }
+            if (isBoxed(type)) {
+                return ValueKind.BOXED;
+            }
+            for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+                if (SCHEMA_ANNOTATION.equals(((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString())) {
+                    return ValueKind.SCHEMA;
+                }
+            }
+            return ValueKind.UNSUPPORTED;
+        }
+
+        private boolean isBoxed(TypeMirror type) {
+            try {
+                types.unboxedType(type);
+                return true;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+
+        /**
+         * 泛型参数齐全且都是具体类型（不是通配符、类型变量）
+         */
+        private boolean hasTypeArguments(TypeMirror type, int count) {
+            List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+            if (arguments.size() != count) {
+                return false;
+            }
+            for (TypeMirror argument : arguments) {
+                if (argument.getKind() != TypeKind.DECLARED && argument.getKind() != TypeKind.ARRAY) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private TypeMirror typeArgument(TypeMirror type, int index) {
+            return ((DeclaredType) type).getTypeArguments().get(index);
+        }
+
+        private boolean isList(TypeMirror type) {
+            return "java.util.ArrayList".equals(implementation(type));
+        }
+
+        /**
+         * 读取集合时创建的实现类
+         */
+        private String implementation(TypeMirror type) {
+            switch (((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString()) {
+                case "java.util.LinkedList":
+                    return "java.util.LinkedList";
+                case "java.util.Set":
+                case "java.util.LinkedHashSet":
+                    return "java.util.LinkedHashSet";
+                case "java.util.HashSet":
+                    return "java.util.HashSet";
+                case "java.util.Map":
+                case "java.util.LinkedHashMap":
+                    return "java.util.LinkedHashMap";
+                case "java.util.HashMap":
+                    return "java.util.HashMap";
+                default:
+                    return "java.util.ArrayList";
+            }
+        }
+
+        /**
+         * 创建数组的表达式，多维数组的长度写在第一维，如 new int[n][]
+         */
+        private String newArray(TypeMirror componentType, String size) {
+            TypeMirror base = types.erasure(componentType);
+            StringBuilder dimensions = new StringBuilder();
+            while (base.getKind() == TypeKind.ARRAY) {
+                dimensions.append("[]");
+                base = ((ArrayType) base).getComponentType();
+            }
+            return "new " + base + "[" + size + "]" + dimensions;
+        }
+
+        private String codecName(TypeMirror type) {
+            TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+            return RpcStubs.generatedClassName(elements.getBinaryName(element).toString(), SchemaCodecs.CODEC_SUFFIX);
+        }
+
+        private String enumValues(TypeMirror type) {
+            String enumType = types.erasure(type).toString();
+            return enumValues.computeIfAbsent(enumType, key -> "ENUM_VALUES_" + enumValues.size());
+        }
+
+        private String newVariable() {
+            return "v$" + variables++;
+        }
+
+        /**
+         * 读取字段的表达式：优先使用声明的 getter，其次是同包可见的字段，否则按 Lombok 规则推断 getter
+         */
+        private String getter(VariableElement field) {
+            String name = field.getSimpleName().toString();
+            List<String> candidates = new ArrayList<>();
+            if (field.asType().getKind() == TypeKind.BOOLEAN) {
+                candidates.add(isPrefixed(name) ? name : "is" + capitalize(name));
+            }
+            candidates.add("get" + capitalize(name));
+            for (String candidate : candidates) {
+                if (hasAccessor(candidate, 0)) {
+                    return "value." + candidate + "()";
+                }
+            }
+            if (isFieldAccessible(field)) {
+                return "value." + name;
+            }
+            return "value." + candidates.get(0) + "()";
+        }
+
+        private String setter(VariableElement field, String expression) {
+            String name = field.getSimpleName().toString();
+            String setterName = "set" + capitalize(field.asType().getKind() == TypeKind.BOOLEAN && isPrefixed(name) ? name.substring(2) : name);
+            if (!hasAccessor(setterName, 1) && isFieldAccessible(field)) {
+                return "value." + name + " = " + expression;
+            }
+            return "value." + setterName + "(" + expression + ")";
+        }
+
+        private boolean hasAccessor(String methodName, int parameterCount) {
+            for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(dataType))) {
+                if (method.getSimpleName().contentEquals(methodName) && method.getParameters().size() == parameterCount
+                        && !method.getModifiers().contains(Modifier.PRIVATE) && !method.getModifiers().contains(Modifier.STATIC)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isFieldAccessible(VariableElement field) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.PUBLIC)) {
+                return true;
+            }
+            return !modifiers.contains(Modifier.PRIVATE) && elements.getPackageOf(field).equals(packageElement);
+        }
+    }
+
+    private static boolean isPrefixed(String name) {
+        return name.length() > 2 && name.startsWith("is") && Character.isUpperCase(name.charAt(2));
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * 字段值的编码方式及 SchemaWriter / SchemaReader 中对应的方法
+     */
+    private enum ValueKind {
+        BOOLEAN("writeBoolean", "readBoolean"),
+        BYTE("writeByte", "readByte"),
+        SHORT("writeInt", null),
+        CHAR("writeChar", "readChar"),
+        INT("writeInt", "readInt"),
+        LONG("writeLong", "readLong"),
+        FLOAT("writeFloat", "readFloat"),
+        DOUBLE("writeDouble", "readDouble"),
+        STRING("writeString", "readString"),
+        BYTES("writeBytes", "readBytes"),
+        BIG_DECIMAL("writeBigDecimal", "readBigDecimal"),
+        BIG_INTEGER("writeBigInteger", "readBigInteger"),
+        DATE("writeDate", "readDate"),
+        ENUM("writeEnum", null),
+        BOXED(null, null),
+        SCHEMA(null, null),
+        ARRAY(null, null),
+        COLLECTION(null, null),
+        MAP(null, null),
+        UNSUPPORTED(null, null);
+
+        private final String writeMethod;
+
+        private final String readMethod;
+
+        ValueKind(String writeMethod, String readMethod) {
+            this.writeMethod = writeMethod;
+            this.readMethod = readMethod;
+        }
+    }
+
+    /**
+     * 不支持的类型（转换为字段上的编译错误）
+     */
+    private static class UnsupportedTypeException extends RuntimeException {
+
+        private final transient TypeMirror type;
+
+        UnsupportedTypeException(TypeMirror type) {
+            super(type.toString());
+            this.type = type;
+        }
+    }
+
+    /**
+     * 字段不能生成编解码器
+     */
+    private static class UnsupportedFieldException extends RuntimeException {
+
+        private final transient Element field;
+
+        UnsupportedFieldException(String message, Element field) {
+            super(message);
+            this.field = field;
+        }
+    }
+}
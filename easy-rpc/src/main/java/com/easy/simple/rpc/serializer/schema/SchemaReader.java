@@ -0,0 +1,199 @@
+package com.easy.simple.rpc.serializer.schema;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * schema 编码的输入，直接读取传输缓冲区（堆内或堆外），格式见 SchemaWriter
+ */
+public class SchemaReader {
+
+    private final ByteBuffer buffer;
+
+    public SchemaReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public byte readByte() {
+        return buffer.get();
+    }
+
+    public boolean readBoolean() {
+        return buffer.get() != 0;
+    }
+
+    public int readVarInt() {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalStateException("变长整数格式错误");
+    }
+
+    public long readVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalStateException("变长整数格式错误");
+    }
+
+    public int readInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public char readChar() {
+        return (char) readVarInt();
+    }
+
+    public long readFixedLong() {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value |= (buffer.get() & 0xFFL) << (i * 8);
+        }
+        return value;
+    }
+
+    public float readFloat() {
+        int bits = 0;
+        for (int i = 0; i < 4; i++) {
+            bits |= (buffer.get() & 0xFF) << (i * 8);
+        }
+        return Float.intBitsToFloat(bits);
+    }
+
+    public double readDouble() {
+        return Double.longBitsToDouble(readFixedLong());
+    }
+
+    /**
+     * 集合、数组的长度，null 为 -1
+     */
+    public int readSize() {
+        int size = readVarInt() - 1;
+        // 每个元素至少占一个字节，按剩余字节数校验，避免按错误的长度分配大数组
+        checkRemaining(Math.max(size, 0));
+        return size;
+    }
+
+    public String readString() {
+        int length = readSize();
+        if (length < 0) {
+            return null;
+        }
+        checkRemaining(length);
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    public byte[] readBytes() {
+        int length = readSize();
+        if (length < 0) {
+            return null;
+        }
+        checkRemaining(length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 读取枚举
+     *
+     * @param values 枚举的全部值（按序号排列）
+     */
+    public <E extends Enum<E>> E readEnum(E[] values) {
+        int ordinal = readVarInt();
+        if (ordinal > values.length) {
+            throw new IllegalStateException("未知的枚举序号: " + (ordinal - 1));
+        }
+        return ordinal == 0 ? null : values[ordinal - 1];
+    }
+
+    /**
+     * 读取数据对象
+     */
+    public <T> T readObject(SchemaCodec<T> codec) {
+        return readBoolean() ? codec.read(this) : null;
+    }
+
+    public BigDecimal readBigDecimal() {
+        String value = readString();
+        return value == null ? null : new BigDecimal(value);
+    }
+
+    public BigInteger readBigInteger() {
+        String value = readString();
+        return value == null ? null : new BigInteger(value);
+    }
+
+    public Date readDate() {
+        return readBoolean() ? new Date(readLong()) : null;
+    }
+
+    /**
+     * 开始读取对象
+     *
+     * @return 对象的结束位置，传给 endObject
+     */
+    public int beginObject() {
+        int length = readVarInt();
+        checkRemaining(length);
+        return buffer.position() + length;
+    }
+
+    /**
+     * 读取对象的字段个数（写入端的 schema 版本）
+     */
+    public int readFieldCount() {
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * 结束读取对象，跳过本端不认识的字段
+     *
+     * @param end beginObject 返回的结束位置
+     */
+    public void endObject(int end) {
+        if (buffer.position() > end) {
+            throw new IllegalStateException("对象内容超出长度");
+        }
+        buffer.position(end);
+    }
+
+    public boolean hasRemaining() {
+        return buffer.hasRemaining();
+    }
+
+    private void checkRemaining(int length) {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+    }
+}
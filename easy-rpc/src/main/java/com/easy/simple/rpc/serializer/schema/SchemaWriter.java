@@ -0,0 +1,240 @@
+package com.easy.simple.rpc.serializer.schema;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * schema 编码的输出（可复用的字节数组）
+ * 整数使用 zigzag 变长编码，浮点数固定长度小端序，字符串为长度前缀的 UTF-8；
+ * 可为 null 的字符串、字节数组、集合长度加 1 写入，0 表示 null
+ */
+public class SchemaWriter {
+
+    private byte[] buffer;
+
+    private int position;
+
+    public SchemaWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * 无符号变长整数
+     */
+    public void writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * 无符号变长长整数
+     */
+    public void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * 有符号整数（zigzag 变长编码，绝对值小的负数也只占一个字节）
+     */
+    public void writeInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public void writeLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeChar(char value) {
+        writeVarInt(value);
+    }
+
+    public void writeFixedLong(long value) {
+        ensureCapacity(8);
+        for (int i = 0; i < 8; i++) {
+            buffer[position++] = (byte) (value >>> (i * 8));
+        }
+    }
+
+    public void writeFloat(float value) {
+        int bits = Float.floatToIntBits(value);
+        ensureCapacity(4);
+        for (int i = 0; i < 4; i++) {
+            buffer[position++] = (byte) (bits >>> (i * 8));
+        }
+    }
+
+    public void writeDouble(double value) {
+        writeFixedLong(Double.doubleToLongBits(value));
+    }
+
+    /**
+     * 集合、数组的长度，null 写 -1
+     */
+    public void writeSize(int size) {
+        writeVarInt(size + 1);
+    }
+
+    /**
+     * 可为 null 的字符串
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        int length = value.length();
+        // ASCII 字符串直接逐字符写入，不创建中间字节数组
+        int i = 0;
+        while (i < length && value.charAt(i) < 0x80) {
+            i++;
+        }
+        if (i == length) {
+            writeVarInt(length + 1);
+            ensureCapacity(length);
+            for (int j = 0; j < length; j++) {
+                buffer[position++] = (byte) value.charAt(j);
+            }
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        writeRaw(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 可为 null 的字节数组
+     */
+    public void writeBytes(byte[] value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(value.length + 1);
+        writeRaw(value, 0, value.length);
+    }
+
+    /**
+     * 可为 null 的枚举，按序号写入（新增枚举值只能追加在末尾）
+     */
+    public void writeEnum(Enum<?> value) {
+        writeVarInt(value == null ? 0 : value.ordinal() + 1);
+    }
+
+    /**
+     * 可为 null 的数据对象，使用其编解码器写入
+     */
+    public <T> void writeObject(T value, SchemaCodec<T> codec) {
+        writeBoolean(value != null);
+        if (value != null) {
+            codec.write(value, this);
+        }
+    }
+
+    public void writeBigDecimal(BigDecimal value) {
+        writeString(value == null ? null : value.toString());
+    }
+
+    public void writeBigInteger(BigInteger value) {
+        writeString(value == null ? null : value.toString());
+    }
+
+    public void writeDate(Date value) {
+        writeBoolean(value != null);
+        if (value != null) {
+            writeLong(value.getTime());
+        }
+    }
+
+    public void writeRaw(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * 开始写入对象：预留一个字节的长度，由 endObject 回填
+     *
+     * @return 对象的起始位置
+     */
+    public int beginObject() {
+        writeByte(0);
+        return position;
+    }
+
+    /**
+     * 结束写入对象，回填长度（长度超过一个字节时后移对象内容）
+     *
+     * @param start beginObject 返回的起始位置
+     */
+    public void endObject(int start) {
+        int length = position - start;
+        int lengthSize = varIntSize(length);
+        if (lengthSize > 1) {
+            ensureCapacity(lengthSize - 1);
+            System.arraycopy(buffer, start, buffer, start + lengthSize - 1, length);
+            position += lengthSize - 1;
+        }
+        int index = start - 1;
+        int value = length;
+        while ((value & ~0x7F) != 0) {
+            buffer[index++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[index] = (byte) value;
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public byte[] toBytes() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * 清空内容，复用缓冲区
+     */
+    public void reset() {
+        position = 0;
+    }
+
+    private void ensureCapacity(int required) {
+        if (buffer.length - position < required) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + required));
+        }
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
@@ -4,7 +4,15 @@ import lombok.Getter;
 
 public enum ServerType {
     HTTP(0, "http"),
-    TCP(1, "tcp");
+    TCP(1, "tcp"),
+    /**
+     * TCP + Unix 域套接字（同机消费者优先走 Unix 域套接字）
+     */
+    UDS(2, "uds"),
+    /**
+     * TCP + 共享内存（实验性，同机消费者通过共享内存环形缓冲区调用）
+     */
+    SHM(3, "shm");
 
     @Getter
     private final int key;
@@ -3,7 +3,6 @@ package com.easy.simple.rpc.server.impl;
 import com.easy.simple.rpc.RpcApplication;
 import com.easy.simple.rpc.enity.RpcRequest;
 import com.easy.simple.rpc.enity.RpcResponse;
-import com.easy.simple.rpc.registry.impl.LocalRegistry;
 import com.easy.simple.rpc.serializer.Serializer;
 import com.easy.simple.rpc.serializer.SerializerFactory;
 import io.vertx.core.Handler;
@@ -12,7 +11,6 @@ import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
 
 /**
  * HTTP 请求处理
@@ -48,20 +46,7 @@ public class HttpServerHandler implements Handler<HttpServerRequest> {
             }
             System.out.println(rpcRequest);
 
-            try {
-                // 获取要调用的服务实现类，通过反射调用
-                Class<?> implClass = LocalRegistry.get(rpcRequest.getServiceName());
-                Method method = implClass.getMethod(rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
-                Object result = method.invoke(implClass.getDeclaredConstructor().newInstance(), rpcRequest.getArgs());
-                // 封装返回结果
-                rpcResponse.setData(result);
-                rpcResponse.setDataType(method.getReturnType());
-                rpcResponse.setMessage("ok");
-            } catch (Exception e) {
-                e.printStackTrace();
-                rpcResponse.setMessage(e.getMessage());
-                rpcResponse.setException(e);
-            }
+            rpcResponse = ServiceInvoker.invoke(rpcRequest);
             // 响应
             doResponse(request, rpcResponse, serializer);
         });
@@ -0,0 +1,62 @@
+package com.easy.simple.rpc.server.impl;
+
+import com.easy.simple.rpc.RpcApplication;
+import com.easy.simple.rpc.enity.RpcError;
+import com.easy.simple.rpc.enity.RpcRequest;
+import com.easy.simple.rpc.enity.RpcResponse;
+import com.easy.simple.rpc.protocol.MessageRecycler;
+import com.easy.simple.rpc.registry.impl.LocalRegistry;
+import com.easy.simple.rpc.registry.impl.MethodDictionary;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 服务调用器（各传输层共用的服务端调用逻辑）
+ */
+public class ServiceInvoker {
+
+    /**
+     * 调用本地服务（方法签名已确定返回类型，响应不设置数据类型）
+     *
+     * @param rpcRequest 请求
+     * @return 响应（调用异常时封装在响应中）
+     */
+    public static RpcResponse invoke(RpcRequest rpcRequest) {
+        // 构造响应结果对象
+        RpcResponse rpcResponse = MessageRecycler.newResponse();
+        try {
+            // 请求携带方法编号时按编号查表定位调用目标，否则由服务名、方法名和参数类型计算编号查表
+            MethodDictionary.MethodEntry entry = MethodDictionary.resolve(rpcRequest);
+            if (entry == null) {
+                entry = MethodDictionary.lookup(rpcRequest);
+            }
+            if (entry != null) {
+                Object result = entry.invoke(entry.getImplClass().getDeclaredConstructor().newInstance(), rpcRequest.getArgs());
+                rpcResponse.setData(result);
+                rpcResponse.setMessage("ok");
+                return rpcResponse;
+            }
+            if (rpcRequest.getMethodName() == null) {
+                throw new NoSuchMethodException("未知方法编号: " + rpcRequest.getMethodId());
+            }
+            // 服务名不是接口名（如备用服务）时不在编号表中，按方法名反射调用
+            Class<?> implClass = LocalRegistry.get(rpcRequest.getServiceName());
+            Method method = implClass.getMethod(rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
+            Object result = method.invoke(implClass.getDeclaredConstructor().newInstance(), rpcRequest.getArgs());
+            rpcResponse.setData(result);
+            // 封装返回结果
+            rpcResponse.setMessage("ok");
+        } catch (Exception e) {
+            e.printStackTrace();
+            rpcResponse.setMessage(e.getMessage());
+            rpcResponse.setException(e);
+            // 按采样比例附带堆栈，异常集中出现时大多数响应只携带错误码、异常类型和信息
+            double sampleRate = RpcApplication.getRpcConfig().getErrorStackTraceSampleRate();
+            if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                rpcResponse.setError(RpcError.of(e, true));
+            }
+        }
+        return rpcResponse;
+    }
+}
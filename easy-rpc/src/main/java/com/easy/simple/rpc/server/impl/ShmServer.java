@@ -0,0 +1,169 @@
+package com.easy.simple.rpc.server.impl;
+
+import com.easy.simple.rpc.RpcApplication;
+import com.easy.simple.rpc.config.RpcConfig;
+import com.easy.simple.rpc.enity.RpcRequest;
+import com.easy.simple.rpc.enity.RpcResponse;
+import com.easy.simple.rpc.protocol.CompactProtocolCodec;
+import com.easy.simple.rpc.protocol.ProtocolMessage;
+import com.easy.simple.rpc.protocol.ProtocolMessageTypeEnum;
+import com.easy.simple.rpc.server.WebServer;
+import com.easy.simple.rpc.shm.ShmChannel;
+import com.easy.simple.rpc.shm.ShmWaitStrategy;
+import io.vertx.core.buffer.Buffer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 共享内存服务器（实验性）
+ * 同时启动 TCP 服务器供其他机器的消费者使用；同机消费者在共享内存目录下创建通道文件，
+ * 服务器为每个通道分配一个工作线程，通过环形缓冲区交换 CompactProtocolCodec 编码的帧
+ */
+@Slf4j
+public class ShmServer implements WebServer {
+
+    /**
+     * 扫描新通道的间隔（毫秒）
+     */
+    private static final long ACCEPT_INTERVAL_MILLIS = 10;
+
+    /**
+     * 空闲多少轮检查一次通道文件是否存在
+     */
+    private static final int CHANNEL_CHECK_INTERVAL = 10000;
+
+    /**
+     * 已接入的通道文件名
+     */
+    private final Set<String> acceptedChannels = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void doStart(int port) {
+        // TCP 服务器，处理跨机器请求
+        new VertxTcpServer().doStart(port);
+
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        File shmDir = new File(getShmDir(rpcConfig));
+        if (!shmDir.isDirectory() && !shmDir.mkdirs()) {
+            System.err.println("Failed to create shm dir: " + shmDir);
+            return;
+        }
+        // 清理上次残留的通道文件
+        File[] staleFiles = shmDir.listFiles();
+        if (staleFiles != null) {
+            for (File staleFile : staleFiles) {
+                staleFile.delete();
+            }
+        }
+
+        Thread acceptor = new Thread(() -> acceptLoop(shmDir, rpcConfig), "shm-acceptor-" + port);
+        acceptor.setDaemon(true);
+        acceptor.start();
+        System.out.println("Shm server started on " + shmDir);
+    }
+
+    /**
+     * 轮询共享内存目录，为新出现的通道启动工作线程
+     */
+    private void acceptLoop(File shmDir, RpcConfig rpcConfig) {
+        while (!Thread.currentThread().isInterrupted()) {
+            File[] channelFiles = shmDir.listFiles((dir, name) -> name.endsWith(ShmChannel.CHANNEL_SUFFIX));
+            if (channelFiles != null) {
+                for (File channelFile : channelFiles) {
+                    if (acceptedChannels.add(channelFile.getName())) {
+                        startWorker(channelFile, rpcConfig);
+                    }
+                }
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(ACCEPT_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 启动通道工作线程：读取请求帧、调用服务、写回响应帧
+     */
+    private void startWorker(File channelFile, RpcConfig rpcConfig) {
+        Thread worker = new Thread(() -> {
+            ShmChannel channel;
+            try {
+                channel = ShmChannel.open(channelFile);
+            } catch (Exception e) {
+                log.error("打开共享内存通道失败: {}", channelFile, e);
+                acceptedChannels.remove(channelFile.getName());
+                return;
+            }
+            ShmWaitStrategy waitStrategy = ShmWaitStrategy.of(rpcConfig.getShmWaitStrategy());
+            int idleCount = 0;
+            // 距上次检查通道文件的空闲轮数（idleCount 到上限后不再增长，不能用来取模）
+            int idleSinceCheck = 0;
+            while (!channel.isClosed()) {
+                byte[] frame = channel.getRequestRing().poll();
+                if (frame == null) {
+                    // 消费者异常退出时不会标记关闭，定期检查通道文件是否已被删除
+                    if (idleCount < Integer.MAX_VALUE) {
+                        idleCount++;
+                    }
+                    if (++idleSinceCheck >= CHANNEL_CHECK_INTERVAL) {
+                        idleSinceCheck = 0;
+                        if (!channelFile.exists()) {
+                            break;
+                        }
+                    }
+                    waitStrategy.idle(idleCount);
+                    continue;
+                }
+                idleCount = 0;
+                try {
+                    byte[] response = processFrame(frame);
+                    if (response != null) {
+                        channel.write(channel.getResponseRing(), response, waitStrategy, rpcConfig.getConnectionTimeout());
+                    }
+                } catch (Exception e) {
+                    log.error("共享内存请求处理失败: {}", channelFile, e);
+                }
+            }
+            acceptedChannels.remove(channelFile.getName());
+            channelFile.delete();
+            log.info("共享内存通道关闭: {}", channelFile);
+        }, "shm-worker-" + channelFile.getName());
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 处理一个请求帧
+     *
+     * @param frame 请求帧
+     * @return 响应帧，非请求消息返回 null
+     */
+    private byte[] processFrame(byte[] frame) throws Exception {
+        ProtocolMessage<?> protocolMessage = CompactProtocolCodec.decode(Buffer.buffer(frame));
+        if (protocolMessage.getHeader().getType() != ProtocolMessageTypeEnum.REQUEST.getKey()
+                || !(protocolMessage.getBody() instanceof RpcRequest)) {
+            System.err.println("期望请求消息，但收到类型: " + protocolMessage.getHeader().getType());
+            return null;
+        }
+        RpcResponse rpcResponse = ServiceInvoker.invoke((RpcRequest) protocolMessage.getBody());
+        ProtocolMessage.Header header = protocolMessage.getHeader();
+        header.setType((byte) ProtocolMessageTypeEnum.RESPONSE.getKey());
+        return CompactProtocolCodec.encode(new ProtocolMessage<>(header, rpcResponse)).getBytes();
+    }
+
+    /**
+     * 获取提供者的共享内存目录
+     *
+     * @param rpcConfig RPC 配置
+     * @return 目录路径
+     */
+    public static String getShmDir(RpcConfig rpcConfig) {
+        return new File(rpcConfig.getShmDir(), "easy-rpc-" + rpcConfig.getServerPort()).getPath();
+    }
+}
@@ -1,37 +1,77 @@
 package com.easy.simple.rpc.server.impl;
 
+import com.easy.simple.rpc.RpcApplication;
+import com.easy.simple.rpc.config.RpcConfig;
+import com.easy.simple.rpc.enity.RpcError;
+import com.easy.simple.rpc.enity.RpcErrorCodeEnum;
 import com.easy.simple.rpc.enity.RpcRequest;
 import com.easy.simple.rpc.enity.RpcResponse;
-import com.easy.simple.rpc.protocol.CompactProtocolCodec;
+import com.easy.simple.rpc.protocol.FrameWriter;
+import com.easy.simple.rpc.protocol.Handshake;
+import com.easy.simple.rpc.protocol.MessageRecycler;
+import com.easy.simple.rpc.protocol.ProtocolFeatureEnum;
 import com.easy.simple.rpc.protocol.ProtocolMessage;
 import com.easy.simple.rpc.protocol.ProtocolMessageTypeEnum;
+import com.easy.simple.rpc.protocol.RawBody;
 import com.easy.simple.rpc.protocol.TcpPacketDecoder;
-import com.easy.simple.rpc.registry.impl.LocalRegistry;
+import com.easy.simple.rpc.registry.impl.MethodDictionary;
+import com.easy.simple.rpc.stream.ServerStreamSender;
+import com.easy.simple.rpc.stream.ServerUploadStream;
+import com.easy.simple.rpc.stream.StreamType;
+import com.easy.simple.rpc.utils.AllocationMetric;
 import io.vertx.core.Handler;
-import io.vertx.core.buffer.Buffer;
+import io.vertx.core.Vertx;
 import io.vertx.core.net.NetSocket;
+import lombok.Getter;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TcpServerHandler implements Handler<NetSocket> {
 
+    /**
+     * 所有连接上在工作线程排队和处理中的请求个数（超过 maxPendingRequests 时拒绝新请求）
+     */
+    private static final AtomicInteger PENDING_REQUEST_COUNT = new AtomicInteger();
+
     @Override
     public void handle(NetSocket netSocket) {
-        // 使用装饰器模式处理TCP粘包/半包问题
-        TcpPacketDecoder packetDecoder = new TcpPacketDecoder(completeMessages -> {
-            // 处理所有完整的消息
-            for (ProtocolMessage<?> protocolMessage : completeMessages) {
-                processSingleMessage(protocolMessage, netSocket);
-            }
-        });
+        // 该连接上进行中的流式响应
+        Map<Long, ServerStreamSender> streamSenders = new ConcurrentHashMap<>();
+        // 该连接上进行中的客户端流式上传
+        Map<Long, ServerUploadStream> uploadStreams = new ConcurrentHashMap<>();
+        // 该连接上在工作线程反序列化、尚未得到结果的请求
+        Map<Long, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+        // 大响应分片后与其他请求的响应交错写出（握手确认消费者支持分片后启用）
+        FrameWriter frameWriter = new FrameWriter(netSocket, 0);
+
+        // 使用装饰器模式处理TCP粘包/半包问题，请求消息只解码消息头
+        TcpPacketDecoder packetDecoder = new TcpPacketDecoder(protocolMessage ->
+                processSingleMessage(protocolMessage, frameWriter, streamSenders, uploadStreams, pendingRequests), true);
         
         // 设置处理器
-        netSocket.handler(packetDecoder);
+        netSocket.handler(buffer -> {
+            long allocationStart = AllocationMetric.start();
+            packetDecoder.handle(buffer);
+            AllocationMetric.PROVIDER.record(allocationStart);
+        });
+
+        // 写缓冲区排空后继续发送流式响应
+        frameWriter.drainHandler(() -> streamSenders.values().forEach(ServerStreamSender::pump));
         
         // 连接关闭时清理资源
         netSocket.closeHandler(v -> {
             System.out.println("连接关闭: " + netSocket.remoteAddress());
+            streamSenders.values().forEach(ServerStreamSender::cancel);
+            streamSenders.clear();
+            uploadStreams.values().forEach(uploadStream -> uploadStream.onEnd(new IOException("连接已关闭")));
+            uploadStreams.clear();
+            pendingRequests.clear();
         });
         
         // 异常处理
@@ -41,48 +81,266 @@ public class TcpServerHandler implements Handler<NetSocket> {
         });
     }
     
-    private void processSingleMessage(ProtocolMessage<?> protocolMessage, NetSocket netSocket) {
+    private void processSingleMessage(ProtocolMessage<?> protocolMessage, FrameWriter frameWriter,
+                                      Map<Long, ServerStreamSender> streamSenders, Map<Long, ServerUploadStream> uploadStreams,
+                                      Map<Long, PendingRequest> pendingRequests) {
+        long requestId = protocolMessage.getHeader().getRequestId();
+        // 请求还在工作线程处理时到达的上传帧和流控制帧，等流式参数 / 流式响应建立后重放
+        byte type = protocolMessage.getHeader().getType();
+        PendingRequest pendingRequest = pendingRequests.get(requestId);
+        if (pendingRequest != null && type != ProtocolMessageTypeEnum.REQUEST.getKey()) {
+            pendingRequest.getEarlyFrames().add(protocolMessage);
+            return;
+        }
+        // 握手：按消费者的提议协商序列化器和特性
+        if (protocolMessage.getHeader().getType() == ProtocolMessageTypeEnum.HANDSHAKE.getKey()) {
+            handleHandshake(protocolMessage, frameWriter);
+            return;
+        }
+        // 上传帧：交给对应的流式参数
+        if (protocolMessage.getHeader().getType() == ProtocolMessageTypeEnum.UPLOAD.getKey()) {
+            ServerUploadStream uploadStream = uploadStreams.get(requestId);
+            if (uploadStream != null && protocolMessage.getBody() instanceof RpcRequest) {
+                uploadStream.onChunk(((RpcRequest) protocolMessage.getBody()).getArgs());
+            }
+            return;
+        }
+        if (protocolMessage.getHeader().getType() == ProtocolMessageTypeEnum.UPLOAD_END.getKey()) {
+            ServerUploadStream uploadStream = uploadStreams.get(requestId);
+            if (uploadStream != null) {
+                RpcResponse end = (RpcResponse) protocolMessage.getBody();
+                uploadStream.onEnd(end == null ? null : end.getException());
+            }
+            return;
+        }
+        // 流控制帧：消费者补充额度或取消
+        if (protocolMessage.getHeader().getType() == ProtocolMessageTypeEnum.STREAM_REQUEST_N.getKey()) {
+            ServerStreamSender streamSender = streamSenders.get(requestId);
+            if (streamSender != null && protocolMessage.getBody() instanceof Long) {
+                streamSender.request((Long) protocolMessage.getBody());
+            }
+            return;
+        }
+        if (protocolMessage.getHeader().getType() == ProtocolMessageTypeEnum.STREAM_END.getKey()) {
+            ServerStreamSender streamSender = streamSenders.remove(requestId);
+            if (streamSender != null) {
+                streamSender.cancel();
+            }
+            return;
+        }
+
         // 验证消息类型和消息体类型
         if (protocolMessage.getHeader().getType() != ProtocolMessageTypeEnum.REQUEST.getKey()) {
             System.err.println("期望请求消息，但收到类型: " + protocolMessage.getHeader().getType());
             return;
         }
         
-        if (!(protocolMessage.getBody() instanceof RpcRequest)) {
+        if (!(protocolMessage.getBody() instanceof RpcRequest) && !(protocolMessage.getBody() instanceof RawBody)) {
             System.err.println("消息体类型不匹配，期望RpcRequest，实际: " + 
                 (protocolMessage.getBody() != null ? protocolMessage.getBody().getClass().getName() : "null"));
             return;
         }
-        
-        RpcRequest rpcRequest = (RpcRequest) protocolMessage.getBody();
+        handleRequest(protocolMessage, frameWriter, streamSenders, uploadStreams, pendingRequests);
+    }
+
+    /**
+     * 处理请求：事件循环只做过载检查，反序列化和调用在工作线程执行，排队超时的请求不反序列化
+     */
+    private void handleRequest(ProtocolMessage<?> protocolMessage, FrameWriter frameWriter, Map<Long, ServerStreamSender> streamSenders,
+                               Map<Long, ServerUploadStream> uploadStreams, Map<Long, PendingRequest> pendingRequests) {
+        ProtocolMessage.Header header = protocolMessage.getHeader();
+        long requestId = header.getRequestId();
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        int maxPendingRequests = rpcConfig.getMaxPendingRequests();
+        Object body = protocolMessage.getBody();
+        // 之后只使用消息头和消息体
+        MessageRecycler.recycleMessage(protocolMessage);
+        AllocationMetric.PROVIDER.addCall();
+        if (maxPendingRequests > 0 && PENDING_REQUEST_COUNT.get() >= maxPendingRequests) {
+            if (body instanceof RawBody) {
+                ((RawBody) body).release();
+            }
+            writeResponse(header, rejectedResponse(RpcErrorCodeEnum.OVERLOADED), frameWriter, streamSenders, true);
+            return;
+        }
+        PENDING_REQUEST_COUNT.incrementAndGet();
+        PendingRequest pendingRequest = new PendingRequest();
+        pendingRequests.put(requestId, pendingRequest);
+        long receivedNanos = System.nanoTime();
+        Vertx.currentContext().owner().executeBlocking(() -> {
+            long allocationStart = AllocationMetric.start();
+            try {
+                return process(header, body, receivedNanos, frameWriter, streamSenders);
+            } finally {
+                AllocationMetric.PROVIDER.record(allocationStart);
+            }
+        }, false).onComplete(result -> {
+            long allocationStart = AllocationMetric.start();
+            PENDING_REQUEST_COUNT.decrementAndGet();
+            pendingRequests.remove(requestId);
+            // 排队超时或处理失败时消息体没有反序列化，归还帧缓冲区
+            if (body instanceof RawBody) {
+                ((RawBody) body).release();
+            }
+            if (result.failed()) {
+                System.err.println("请求处理失败: " + result.cause());
+                RpcResponse rpcResponse = MessageRecycler.newResponse();
+                rpcResponse.setMessage(result.cause().getMessage());
+                rpcResponse.setException(result.cause() instanceof Exception ? (Exception) result.cause() : new RuntimeException(result.cause()));
+                writeResponse(header, rpcResponse, frameWriter, streamSenders, true);
+            } else if (result.result() instanceof ServerStreamSender) {
+                ServerStreamSender streamSender = (ServerStreamSender) result.result();
+                streamSenders.put(requestId, streamSender);
+                // 登记前已经结束的流（如空流）不再保留
+                if (streamSender.isFinished()) {
+                    streamSenders.remove(requestId);
+                }
+            } else if (result.result() instanceof RpcRequest) {
+                startUpload(header, (RpcRequest) result.result(), frameWriter, streamSenders, uploadStreams);
+            } else {
+                writeResponse(header, (RpcResponse) result.result(), frameWriter, streamSenders, true);
+            }
+            for (ProtocolMessage<?> earlyFrame : pendingRequest.getEarlyFrames()) {
+                processSingleMessage(earlyFrame, frameWriter, streamSenders, uploadStreams, pendingRequests);
+            }
+            AllocationMetric.PROVIDER.record(allocationStart);
+        });
+    }
 
-        // 处理请求
-        // 构造响应结果对象
-        RpcResponse rpcResponse = new RpcResponse();
+    /**
+     * 在工作线程反序列化并调用请求
+     *
+     * @return 响应、需要在事件循环建立上传的请求，或已开始的流式发送器
+     */
+    private Object process(ProtocolMessage.Header header, Object body, long receivedNanos, FrameWriter frameWriter,
+                           Map<Long, ServerStreamSender> streamSenders) throws IOException {
+        long requestId = header.getRequestId();
+        // 消费者已经超时的请求不再反序列化和调用
+        long queueTimeout = RpcApplication.getRpcConfig().getRequestQueueTimeout();
+        if (queueTimeout > 0 && System.nanoTime() - receivedNanos > TimeUnit.MILLISECONDS.toNanos(queueTimeout)) {
+            return rejectedResponse(RpcErrorCodeEnum.QUEUE_TIMEOUT);
+        }
+        RpcRequest rpcRequest = (RpcRequest) (body instanceof RawBody ? ((RawBody) body).deserialize() : body);
+        // 按方法编号补全请求中的方法信息（流式参数按参数类型识别）
+        MethodDictionary.resolve(rpcRequest);
+        // 客户端流式参数需要在事件循环上建立，返回请求由回调处理；结果为请求、响应或已开始的流式发送器
+        if (StreamType.indexOfUploadParameter(rpcRequest.getParameterTypes()) >= 0 && rpcRequest.getArgs() != null) {
+            return rpcRequest;
+        }
+        RpcResponse rpcResponse = ServiceInvoker.invoke(rpcRequest);
+        // 流式结果在工作线程立即开始发送（发布者立即订阅），发送器由回调登记
+        if (rpcResponse.getException() == null && StreamType.ofValue(rpcResponse.getData()) != null) {
+            ServerStreamSender streamSender = new ServerStreamSender(frameWriter, header, () -> streamSenders.remove(requestId));
+            streamSender.start(rpcResponse.getData());
+            return streamSender;
+        }
+        return rpcResponse;
+    }
+
+    /**
+     * 客户端流式参数：服务方法边接收边消费，放到工作线程执行，避免阻塞事件循环
+     */
+    private void startUpload(ProtocolMessage.Header header, RpcRequest rpcRequest, FrameWriter frameWriter,
+                             Map<Long, ServerStreamSender> streamSenders, Map<Long, ServerUploadStream> uploadStreams) {
+        long requestId = header.getRequestId();
+        int uploadIndex = StreamType.indexOfUploadParameter(rpcRequest.getParameterTypes());
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        ServerUploadStream uploadStream = new ServerUploadStream(frameWriter, header,
+                rpcConfig.getStreamWindowSize(), rpcConfig.getConnectionTimeout());
+        uploadStreams.put(requestId, uploadStream);
+        rpcRequest.getArgs()[uploadIndex] = uploadStream.asParameter(rpcRequest.getParameterTypes()[uploadIndex]);
+        uploadStream.start();
+        Vertx.currentContext().owner()
+                .executeBlocking(() -> ServiceInvoker.invoke(rpcRequest), false)
+                .onComplete(result -> {
+                    uploadStreams.remove(requestId);
+                    RpcResponse rpcResponse = result.result();
+                    if (result.failed()) {
+                        // 服务方法抛出 Error 等 ServiceInvoker 未捕获的异常
+                        System.err.println("上传请求处理失败: " + result.cause());
+                        rpcResponse = MessageRecycler.newResponse();
+                        rpcResponse.setMessage(result.cause().getMessage());
+                        rpcResponse.setException(result.cause() instanceof Exception ? (Exception) result.cause() : new RuntimeException(result.cause()));
+                    }
+                    // 上传流仍持有消息头，不回收
+                    writeResponse(header, rpcResponse, frameWriter, streamSenders, false);
+                });
+    }
+
+    /**
+     * 未处理的请求的响应
+     */
+    private static RpcResponse rejectedResponse(RpcErrorCodeEnum code) {
+        RpcResponse rpcResponse = MessageRecycler.newResponse();
+        rpcResponse.setMessage(code.getDesc());
+        rpcResponse.setError(new RpcError(code.getCode(), null, code.getDesc(), null));
+        return rpcResponse;
+    }
+
+    /**
+     * 回复握手协商结果，之后的请求使用协商的序列化器
+     */
+    private void handleHandshake(ProtocolMessage<?> protocolMessage, FrameWriter frameWriter) {
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        Handshake result = Handshake.negotiate((Handshake) protocolMessage.getBody(), rpcConfig);
+        if (result.supports(ProtocolFeatureEnum.FRAGMENT)) {
+            frameWriter.setFragmentSize(rpcConfig.getFragmentSize());
+        }
         try {
-            // 获取要调用的服务实现类，通过反射调用
-            Class<?> implClass = LocalRegistry.get(rpcRequest.getServiceName());
-            Method method = implClass.getMethod(rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
-            Object result = method.invoke(implClass.getDeclaredConstructor().newInstance(), rpcRequest.getArgs());
-            // 封装返回结果
-            rpcResponse.setData(result);
-            rpcResponse.setDataType(method.getReturnType());
-            rpcResponse.setMessage("ok");
-        } catch (Exception e) {
-            e.printStackTrace();
-            rpcResponse.setMessage(e.getMessage());
-            rpcResponse.setException(e);
+            frameWriter.write(new ProtocolMessage<>(protocolMessage.getHeader(), result));
+        } catch (IOException e) {
+            System.err.println("握手回复发送失败: " + e.getMessage());
+        }
+        // 握手回复之后的响应才使用字典
+        if (result.supports(ProtocolFeatureEnum.STRING_DICTIONARY)) {
+            frameWriter.enableDictionary(rpcConfig.getStringDictionarySize());
+        }
+        if (result.supports(ProtocolFeatureEnum.PRIMITIVE_BODY)) {
+            frameWriter.enablePrimitiveBody();
+        }
+    }
+
+    /**
+     * 发送调用结果：流式结果按消费者额度逐个发送，其余编码为一个响应
+     *
+     * @param recycle 编码后是否回收消息头和响应（请求到此结束）
+     */
+    private void writeResponse(ProtocolMessage.Header header, RpcResponse rpcResponse, FrameWriter frameWriter,
+                               Map<Long, ServerStreamSender> streamSenders, boolean recycle) {
+        long requestId = header.getRequestId();
+        // 流式结果：按消费者额度逐个发送
+        if (rpcResponse.getException() == null && StreamType.ofValue(rpcResponse.getData()) != null) {
+            ServerStreamSender streamSender = new ServerStreamSender(frameWriter, header,
+                    () -> streamSenders.remove(requestId));
+            streamSenders.put(requestId, streamSender);
+            streamSender.start(rpcResponse.getData());
+            return;
         }
 
         // 发送响应，编码
-        ProtocolMessage.Header header = protocolMessage.getHeader();
         header.setType((byte) ProtocolMessageTypeEnum.RESPONSE.getKey());
-        ProtocolMessage<RpcResponse> responseProtocolMessage = new ProtocolMessage<>(header, rpcResponse);
+        ProtocolMessage<RpcResponse> responseProtocolMessage = MessageRecycler.newMessage(header, rpcResponse);
         try {
-            Buffer encode = CompactProtocolCodec.encode(responseProtocolMessage);
-            netSocket.write(encode);
+            frameWriter.write(responseProtocolMessage);
         } catch (IOException e) {
             System.err.println("协议消息编码错误: " + e.getMessage());
         }
+        // 响应已编码，帧不再引用这些对象
+        if (recycle) {
+            MessageRecycler.recycle(responseProtocolMessage);
+            MessageRecycler.recycleResponse(rpcResponse);
+        }
+    }
+
+    /**
+     * 在工作线程处理中的请求
+     */
+    @Getter
+    private static class PendingRequest {
+
+        /**
+         * 请求得到结果之前到达的同一请求 id 的帧（上传帧、流控制帧）
+         */
+        private final List<ProtocolMessage<?>> earlyFrames = new ArrayList<>();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package com.easy.simple.rpc.server.impl;
+
+import cn.hutool.core.util.StrUtil;
+import com.easy.simple.rpc.RpcApplication;
+import com.easy.simple.rpc.config.RpcConfig;
+import com.easy.simple.rpc.server.WebServer;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.SocketAddress;
+
+import java.io.File;
+
+/**
+ * Vertx Unix 域套接字服务器
+ * 同时监听 TCP 端口（供其他机器的消费者使用）和 Unix 域套接字（供同机消费者使用），
+ * Unix 域套接字依赖 Vert.x 原生传输（Linux epoll），不可用时仅启动 TCP 服务
+ */
+public class VertxUdsServer implements WebServer {
+
+    @Override
+    public void doStart(int port) {
+        // 创建 Vert.x 实例，优先使用原生传输
+        Vertx vertx = Vertx.vertx(new VertxOptions().setPreferNativeTransport(true));
+
+        // TCP 服务器，处理跨机器请求
+        NetServer tcpServer = vertx.createNetServer();
+        tcpServer.connectHandler(new TcpServerHandler());
+        tcpServer.listen(port, result -> {
+            if (result.succeeded()) {
+                System.out.println("TCP server started on port " + port);
+            } else {
+                System.err.println("Failed to start TCP server: " + result.cause());
+            }
+        });
+
+        if (!vertx.isNativeTransportEnabled()) {
+            System.err.println("原生传输不可用，Unix 域套接字未启动: " + vertx.unavailableNativeTransportCause());
+            return;
+        }
+
+        // Unix 域套接字服务器，处理同机请求，与 TCP 共用同一套协议处理器
+        String socketPath = getSocketPath(RpcApplication.getRpcConfig());
+        File socketFile = new File(socketPath);
+        // 清理上次异常退出残留的套接字文件，否则无法绑定
+        if (socketFile.exists() && !socketFile.delete()) {
+            System.err.println("无法删除残留的套接字文件: " + socketPath);
+        }
+        NetServer udsServer = vertx.createNetServer();
+        udsServer.connectHandler(new TcpServerHandler());
+        udsServer.listen(SocketAddress.domainSocketAddress(socketPath), result -> {
+            if (result.succeeded()) {
+                System.out.println("UDS server started on " + socketPath);
+            } else {
+                System.err.println("Failed to start UDS server: " + result.cause());
+            }
+        });
+
+        // JVM 退出时删除套接字文件
+        Runtime.getRuntime().addShutdownHook(new Thread(socketFile::delete));
+    }
+
+    /**
+     * 获取 Unix 域套接字路径
+     *
+     * @param rpcConfig RPC 配置
+     * @return 套接字路径
+     */
+    public static String getSocketPath(RpcConfig rpcConfig) {
+        if (StrUtil.isNotBlank(rpcConfig.getUnixSocketPath())) {
+            return rpcConfig.getUnixSocketPath();
+        }
+        return String.format("/tmp/easy-rpc-%d.sock", rpcConfig.getServerPort());
+    }
+}
@@ -0,0 +1,12 @@
+package com.easy.simple.rpc.shm;
+
+/**
+ * 忙等策略：始终占用 CPU，延迟最低，每个通道独占一个核
+ */
+public class BusySpinWaitStrategy implements ShmWaitStrategy {
+
+    @Override
+    public void idle(int idleCount) {
+        Thread.onSpinWait();
+    }
+}
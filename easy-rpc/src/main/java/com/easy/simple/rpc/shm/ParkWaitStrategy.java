@@ -0,0 +1,36 @@
+package com.easy.simple.rpc.shm;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 自旋后挂起策略：先短暂自旋，再让出 CPU，最后按递增间隔挂起，兼顾延迟与 CPU 占用
+ */
+public class ParkWaitStrategy implements ShmWaitStrategy {
+
+    /**
+     * 自旋次数
+     */
+    private static final int SPIN_TRIES = 1000;
+
+    /**
+     * 让出 CPU 次数
+     */
+    private static final int YIELD_TRIES = 100;
+
+    /**
+     * 最大挂起时间（纳秒）
+     */
+    private static final long MAX_PARK_NANOS = 1_000_000L;
+
+    @Override
+    public void idle(int idleCount) {
+        if (idleCount < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (idleCount < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            int parkRound = Math.min(idleCount - SPIN_TRIES - YIELD_TRIES, 10);
+            LockSupport.parkNanos(Math.min(1000L << parkRound, MAX_PARK_NANOS));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.easy.simple.rpc.shm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 共享内存通道（一对消费者/提供者独占一个通道文件）
+ * 文件布局：[控制区(64字节) | 请求环形缓冲区 | 响应环形缓冲区]
+ * 请求环由消费者写、提供者读，响应环由提供者写、消费者读，均为单生产者/单消费者
+ */
+public class ShmChannel {
+
+    /**
+     * 通道文件后缀
+     */
+    public static final String CHANNEL_SUFFIX = ".chan";
+
+    /**
+     * 通道文件魔数
+     */
+    private static final int MAGIC = 0x45525043;
+
+    /**
+     * 控制区长度
+     */
+    private static final int CONTROL_LENGTH = 64;
+
+    private static final int MAGIC_OFFSET = 0;
+
+    private static final int CAPACITY_OFFSET = 4;
+
+    private static final int CLOSED_OFFSET = 8;
+
+    private static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    /**
+     * 通道文件
+     */
+    private final File file;
+
+    /**
+     * 映射的内存
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * 请求环形缓冲区
+     */
+    private final ShmRingBuffer requestRing;
+
+    /**
+     * 响应环形缓冲区
+     */
+    private final ShmRingBuffer responseRing;
+
+    private ShmChannel(File file, MappedByteBuffer buffer, int capacity) {
+        this.file = file;
+        this.buffer = buffer;
+        this.requestRing = new ShmRingBuffer(buffer, CONTROL_LENGTH, capacity);
+        this.responseRing = new ShmRingBuffer(buffer, CONTROL_LENGTH + ShmRingBuffer.requiredLength(capacity), capacity);
+    }
+
+    /**
+     * 创建通道（消费者端）：先写临时文件并初始化控制区，再原子重命名，避免提供者读到未初始化的通道
+     *
+     * @param dir      提供者的共享内存目录
+     * @param name     通道名
+     * @param capacity 环形缓冲区容量
+     * @return 通道
+     */
+    public static ShmChannel create(File dir, String name, int capacity) throws IOException {
+        File tmpFile = new File(dir, name + ".tmp");
+        File channelFile = new File(dir, name + CHANNEL_SUFFIX);
+        long length = CONTROL_LENGTH + 2L * ShmRingBuffer.requiredLength(capacity);
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(tmpFile, "rw")) {
+            raf.setLength(length);
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+        }
+        buffer.order(ByteOrder.nativeOrder());
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        INT_VIEW.setRelease(buffer, MAGIC_OFFSET, MAGIC);
+        Files.move(tmpFile.toPath(), channelFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        return new ShmChannel(channelFile, buffer, capacity);
+    }
+
+    /**
+     * 打开通道（提供者端）
+     *
+     * @param channelFile 通道文件
+     * @return 通道
+     */
+    public static ShmChannel open(File channelFile) throws IOException {
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(channelFile, "rw")) {
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        }
+        buffer.order(ByteOrder.nativeOrder());
+        if ((int) INT_VIEW.getAcquire(buffer, MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("Invalid shm channel file: " + channelFile);
+        }
+        return new ShmChannel(channelFile, buffer, buffer.getInt(CAPACITY_OFFSET));
+    }
+
+    public ShmRingBuffer getRequestRing() {
+        return requestRing;
+    }
+
+    public ShmRingBuffer getResponseRing() {
+        return responseRing;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 标记通道关闭（任意一端调用，另一端轮询感知）
+     */
+    public void markClosed() {
+        INT_VIEW.setRelease(buffer, CLOSED_OFFSET, 1);
+    }
+
+    /**
+     * 通道是否已关闭
+     */
+    public boolean isClosed() {
+        return (int) INT_VIEW.getAcquire(buffer, CLOSED_OFFSET) != 0;
+    }
+
+    /**
+     * 写入一帧，缓冲区已满时按等待策略等待
+     *
+     * @param ring          环形缓冲区
+     * @param frame         帧数据
+     * @param waitStrategy  等待策略
+     * @param timeoutMillis 超时时间
+     */
+    public void write(ShmRingBuffer ring, byte[] frame, ShmWaitStrategy waitStrategy, long timeoutMillis) throws TimeoutException {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        int idleCount = 0;
+        while (!ring.offer(frame, 0, frame.length)) {
+            if (isClosed()) {
+                throw new IllegalStateException("Shm channel closed: " + file);
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new TimeoutException("共享内存写入超时");
+            }
+            waitStrategy.idle(idleCount++);
+        }
+    }
+
+    /**
+     * 读取一帧，缓冲区为空时按等待策略等待
+     *
+     * @param ring          环形缓冲区
+     * @param waitStrategy  等待策略
+     * @param timeoutMillis 超时时间
+     * @return 帧数据
+     */
+    public byte[] read(ShmRingBuffer ring, ShmWaitStrategy waitStrategy, long timeoutMillis) throws TimeoutException {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        int idleCount = 0;
+        byte[] frame;
+        while ((frame = ring.poll()) == null) {
+            if (isClosed()) {
+                throw new IllegalStateException("Shm channel closed: " + file);
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new TimeoutException("共享内存读取超时");
+            }
+            waitStrategy.idle(idleCount++);
+        }
+        return frame;
+    }
+}
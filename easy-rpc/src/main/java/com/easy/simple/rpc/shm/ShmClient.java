@@ -0,0 +1,127 @@
+package com.easy.simple.rpc.shm;
+
+import com.easy.simple.rpc.RpcApplication;
+import com.easy.simple.rpc.config.RpcConfig;
+import com.easy.simple.rpc.enity.RpcResponse;
+import com.easy.simple.rpc.protocol.CompactProtocolCodec;
+import com.easy.simple.rpc.protocol.ProtocolMessage;
+import com.easy.simple.rpc.protocol.ProtocolMessageTypeEnum;
+import io.vertx.core.buffer.Buffer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 共享内存客户端（消费者端，每个提供者一个通道）
+ * 环形缓冲区为单生产者/单消费者，同一通道上的调用串行执行
+ */
+@Slf4j
+public class ShmClient {
+
+    /**
+     * 提供者共享内存目录 => 客户端
+     */
+    private static final Map<String, ShmClient> CLIENTS = new ConcurrentHashMap<>();
+
+    /**
+     * 通道序号
+     */
+    private static final AtomicInteger CHANNEL_SEQ = new AtomicInteger();
+
+    /**
+     * 当前进程号，用于生成通道名
+     */
+    private static final String PID = ManagementFactory.getRuntimeMXBean().getName().split("@")[0];
+
+    static {
+        // JVM 退出时关闭所有通道，通知提供者回收工作线程
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> CLIENTS.values().forEach(ShmClient::close)));
+    }
+
+    /**
+     * 通道
+     */
+    private final ShmChannel channel;
+
+    /**
+     * 等待策略
+     */
+    private final ShmWaitStrategy waitStrategy;
+
+    private ShmClient(ShmChannel channel, ShmWaitStrategy waitStrategy) {
+        this.channel = channel;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * 判断提供者的共享内存目录是否可用
+     *
+     * @param shmDir 提供者的共享内存目录
+     * @return 是否可用
+     */
+    public static boolean isAvailable(String shmDir) {
+        return shmDir != null && new File(shmDir).isDirectory();
+    }
+
+    /**
+     * 获取到指定提供者的客户端，首次调用时创建通道
+     *
+     * @param shmDir 提供者的共享内存目录
+     * @return 客户端
+     */
+    public static ShmClient getInstance(String shmDir) {
+        return CLIENTS.computeIfAbsent(shmDir, dir -> {
+            RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+            String channelName = PID + "-" + CHANNEL_SEQ.incrementAndGet();
+            try {
+                ShmChannel channel = ShmChannel.create(new File(dir), channelName, rpcConfig.getShmRingCapacity());
+                return new ShmClient(channel, ShmWaitStrategy.of(rpcConfig.getShmWaitStrategy()));
+            } catch (IOException e) {
+                throw new RuntimeException("创建共享内存通道失败: " + dir, e);
+            }
+        });
+    }
+
+    /**
+     * 发送请求并等待响应
+     *
+     * @param protocolMessage 请求消息
+     * @param timeoutMillis   超时时间
+     * @return 响应
+     */
+    public synchronized RpcResponse call(ProtocolMessage<?> protocolMessage, long timeoutMillis) throws IOException, TimeoutException {
+        long requestId = protocolMessage.getHeader().getRequestId();
+        channel.write(channel.getRequestRing(), CompactProtocolCodec.encode(protocolMessage).getBytes(), waitStrategy, timeoutMillis);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new TimeoutException("请求超时");
+            }
+            byte[] frame = channel.read(channel.getResponseRing(), waitStrategy, remaining);
+            ProtocolMessage<?> response = CompactProtocolCodec.decode(Buffer.buffer(frame));
+            // 丢弃之前超时请求的迟到响应
+            if (response.getHeader().getRequestId() != requestId
+                    || response.getHeader().getType() != ProtocolMessageTypeEnum.RESPONSE.getKey()) {
+                continue;
+            }
+            return (RpcResponse) response.getBody();
+        }
+    }
+
+    /**
+     * 关闭通道
+     */
+    public void close() {
+        channel.markClosed();
+        if (!channel.getFile().delete()) {
+            log.warn("删除共享内存通道文件失败: {}", channel.getFile());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.easy.simple.rpc.shm;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 单生产者/单消费者环形缓冲区（基于内存映射文件，跨进程共享）
+ * 内存布局：[写指针(独占缓存行) | 读指针(独占缓存行) | 数据区(容量为 2 的幂)]
+ * 记录格式：[长度(4字节) | 数据]，按 8 字节对齐；数据区尾部放不下一条记录时写入填充记录并回绕到开头
+ */
+public class ShmRingBuffer {
+
+    /**
+     * 缓存行大小，读写指针各占一行，避免伪共享
+     */
+    private static final int CACHE_LINE = 64;
+
+    /**
+     * 写指针偏移
+     */
+    private static final int WRITE_INDEX_OFFSET = 0;
+
+    /**
+     * 读指针偏移
+     */
+    private static final int READ_INDEX_OFFSET = CACHE_LINE;
+
+    /**
+     * 控制区长度
+     */
+    public static final int HEADER_LENGTH = CACHE_LINE * 2;
+
+    /**
+     * 记录头长度
+     */
+    private static final int RECORD_HEADER_LENGTH = 4;
+
+    /**
+     * 记录对齐字节数
+     */
+    private static final int ALIGNMENT = 8;
+
+    /**
+     * 填充记录标记
+     */
+    private static final int PADDING = -1;
+
+    /**
+     * 以 long 视图访问缓冲区，提供 acquire/release 语义
+     */
+    private static final VarHandle LONG_VIEW = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    /**
+     * 整个环形缓冲区（含控制区）
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * 数据区起始偏移
+     */
+    private final int dataOffset;
+
+    /**
+     * 数据区容量
+     */
+    private final int capacity;
+
+    /**
+     * 容量掩码
+     */
+    private final int mask;
+
+    /**
+     * 写指针在映射区中的偏移
+     */
+    private final int writeIndexOffset;
+
+    /**
+     * 读指针在映射区中的偏移
+     */
+    private final int readIndexOffset;
+
+    /**
+     * 生产者视图（仅生产者线程使用）
+     */
+    private final ByteBuffer producerView;
+
+    /**
+     * 消费者视图（仅消费者线程使用）
+     */
+    private final ByteBuffer consumerView;
+
+    /**
+     * @param buffer   映射的缓冲区（需为直接缓冲区）
+     * @param offset   环形缓冲区在映射区中的起始偏移（需按缓存行对齐）
+     * @param capacity 数据区容量（2 的幂）
+     */
+    public ShmRingBuffer(ByteBuffer buffer, int offset, int capacity) {
+        if (Integer.bitCount(capacity) != 1 || capacity < ALIGNMENT) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.buffer = buffer;
+        this.dataOffset = offset + HEADER_LENGTH;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.writeIndexOffset = offset + WRITE_INDEX_OFFSET;
+        this.readIndexOffset = offset + READ_INDEX_OFFSET;
+        this.producerView = buffer.duplicate().order(ByteOrder.nativeOrder());
+        this.consumerView = buffer.duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * 计算环形缓冲区（含控制区）占用的字节数
+     *
+     * @param capacity 数据区容量
+     * @return 字节数
+     */
+    public static int requiredLength(int capacity) {
+        return HEADER_LENGTH + capacity;
+    }
+
+    /**
+     * 写入一条记录（仅生产者线程调用）
+     *
+     * @param src    数据
+     * @param offset 起始位置
+     * @param length 长度
+     * @return 空间不足时返回 false
+     */
+    public boolean offer(byte[] src, int offset, int length) {
+        int recordLength = align(RECORD_HEADER_LENGTH + length);
+        if (recordLength > capacity) {
+            throw new IllegalArgumentException("Record too large for ring buffer: " + length);
+        }
+        long tail = (long) LONG_VIEW.getOpaque(buffer, writeIndexOffset);
+        long head = (long) LONG_VIEW.getAcquire(buffer, readIndexOffset);
+        int index = (int) (tail & mask);
+        int toEnd = capacity - index;
+        int required = toEnd < recordLength ? recordLength + toEnd : recordLength;
+        if (capacity - (tail - head) < required) {
+            return false;
+        }
+        if (toEnd < recordLength) {
+            // 尾部空间不足，写入填充记录并回绕
+            producerView.putInt(dataOffset + index, PADDING);
+            tail += toEnd;
+            index = 0;
+        }
+        producerView.position(dataOffset + index + RECORD_HEADER_LENGTH);
+        producerView.put(src, offset, length);
+        producerView.putInt(dataOffset + index, length);
+        // release 语义保证数据先于写指针对消费者可见
+        LONG_VIEW.setRelease(buffer, writeIndexOffset, tail + recordLength);
+        return true;
+    }
+
+    /**
+     * 读取一条记录（仅消费者线程调用）
+     *
+     * @return 记录数据，缓冲区为空时返回 null
+     */
+    public byte[] poll() {
+        long head = (long) LONG_VIEW.getOpaque(buffer, readIndexOffset);
+        while (true) {
+            long tail = (long) LONG_VIEW.getAcquire(buffer, writeIndexOffset);
+            if (head == tail) {
+                return null;
+            }
+            int index = (int) (head & mask);
+            int length = consumerView.getInt(dataOffset + index);
+            if (length == PADDING) {
+                // 跳过填充记录
+                head += capacity - index;
+                LONG_VIEW.setRelease(buffer, readIndexOffset, head);
+                continue;
+            }
+            byte[] bytes = new byte[length];
+            consumerView.position(dataOffset + index + RECORD_HEADER_LENGTH);
+            consumerView.get(bytes);
+            LONG_VIEW.setRelease(buffer, readIndexOffset, head + align(RECORD_HEADER_LENGTH + length));
+            return bytes;
+        }
+    }
+
+    /**
+     * 数据区容量
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    private static int align(int length) {
+        return (length + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+}
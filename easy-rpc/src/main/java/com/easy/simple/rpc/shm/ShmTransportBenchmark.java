@@ -0,0 +1,93 @@
+package com.easy.simple.rpc.shm;
+
+import com.easy.simple.rpc.RpcApplication;
+import com.easy.simple.rpc.config.RpcConfig;
+import com.easy.simple.rpc.enity.RpcRequest;
+import com.easy.simple.rpc.enity.ServiceMetaInfo;
+import com.easy.simple.rpc.proxy.RequestSender;
+import com.easy.simple.rpc.registry.impl.LocalRegistry;
+import com.easy.simple.rpc.serializer.Serializer;
+import com.easy.simple.rpc.serializer.SerializerFactory;
+import com.easy.simple.rpc.server.ServerType;
+import com.easy.simple.rpc.server.impl.ShmServer;
+
+import java.util.Arrays;
+
+/**
+ * 共享内存传输与 TCP 传输的延迟对比
+ * 同一进程内启动 ShmServer（同时监听 TCP），分别走两种传输调用同一服务
+ * 用法：java ShmTransportBenchmark [调用次数] [等待策略 busySpin/park]
+ */
+public class ShmTransportBenchmark {
+
+    private static final int WARMUP_CALLS = 2000;
+
+    /**
+     * 压测用的回显服务
+     */
+    public static class EchoService {
+        public String echo(String message) {
+            return message;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        RpcConfig rpcConfig = new RpcConfig();
+        rpcConfig.setServerType(ServerType.SHM.getType());
+        rpcConfig.setServerPort(18090);
+        if (args.length > 1) {
+            rpcConfig.setShmWaitStrategy(args[1]);
+        }
+        RpcApplication.init(rpcConfig);
+
+        LocalRegistry.register(EchoService.class.getName(), EchoService.class);
+        new ShmServer().doStart(rpcConfig.getServerPort());
+        // 等待服务器启动
+        Thread.sleep(1000);
+
+        ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
+        serviceMetaInfo.setServiceHost("localhost");
+        serviceMetaInfo.setServicePort(rpcConfig.getServerPort());
+        Serializer serializer = SerializerFactory.getInstance(rpcConfig.getSerializerType());
+
+        RpcRequest rpcRequest = RpcRequest.builder()
+                .serviceName(EchoService.class.getName())
+                .methodName("echo")
+                .parameterTypes(new Class[]{String.class})
+                .args(new Object[]{"ping"})
+                .build();
+
+        // TCP：不设置共享内存目录
+        report("tcp", run(rpcRequest, serviceMetaInfo, serializer, calls));
+        // 共享内存
+        serviceMetaInfo.setServiceShmPath(ShmServer.getShmDir(rpcConfig));
+        report("shm", run(rpcRequest, serviceMetaInfo, serializer, calls));
+        System.exit(0);
+    }
+
+    /**
+     * 执行调用并记录每次调用的耗时（纳秒）
+     */
+    private static long[] run(RpcRequest rpcRequest, ServiceMetaInfo serviceMetaInfo, Serializer serializer, int calls) throws Exception {
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            RequestSender.sendRequest(rpcRequest, serviceMetaInfo, serializer);
+        }
+        long[] latencies = new long[calls];
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            RequestSender.sendRequest(rpcRequest, serviceMetaInfo, serializer);
+            latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    private static void report(String transport, long[] latencies) {
+        Arrays.sort(latencies);
+        double avg = Arrays.stream(latencies).average().orElse(0);
+        System.out.printf("%s: calls=%d avg=%.1fus p50=%.1fus p99=%.1fus%n",
+                transport, latencies.length, avg / 1000,
+                latencies[latencies.length / 2] / 1000.0,
+                latencies[(int) (latencies.length * 0.99)] / 1000.0);
+    }
+}
@@ -0,0 +1,37 @@
+package com.easy.simple.rpc.shm;
+
+/**
+ * 共享内存等待策略（环形缓冲区为空或已满时的等待方式）
+ */
+public interface ShmWaitStrategy {
+
+    /**
+     * 忙等
+     */
+    String BUSY_SPIN = "busySpin";
+
+    /**
+     * 自旋后挂起
+     */
+    String PARK = "park";
+
+    /**
+     * 空闲等待一次
+     *
+     * @param idleCount 连续空闲次数（取到数据后由调用方清零）
+     */
+    void idle(int idleCount);
+
+    /**
+     * 根据类型获取等待策略，未知类型使用 park
+     *
+     * @param type 策略类型
+     * @return 等待策略
+     */
+    static ShmWaitStrategy of(String type) {
+        if (BUSY_SPIN.equals(type)) {
+            return new BusySpinWaitStrategy();
+        }
+        return new ParkWaitStrategy();
+    }
+}
@@ -0,0 +1,158 @@
+package com.easy.simple.rpc.stream;
+
+import com.easy.simple.rpc.enity.RpcRequest;
+import com.easy.simple.rpc.enity.RpcResponse;
+import com.easy.simple.rpc.protocol.ProtocolMessage;
+import com.easy.simple.rpc.proxy.RpcConnection;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消费者端的流式响应迭代器
+ * 启动时向提供者授予 window 个额度，每消费半个窗口再补充一次，
+ * 因此缓冲的元素不会超过 window 个，内存占用与结果集大小无关
+ */
+public class ClientStream implements Iterator<Object>, StreamListener, AutoCloseable {
+
+    /**
+     * 流结束标记
+     */
+    private static final Object END = new Object();
+
+    /**
+     * null 元素占位（阻塞队列不允许 null）
+     */
+    private static final Object NULL_ELEMENT = new Object();
+
+    private final RpcConnection connection;
+
+    /**
+     * 额度窗口
+     */
+    private final int window;
+
+    /**
+     * 等待单个元素的超时时间（毫秒）
+     */
+    private final long timeoutMillis;
+
+    /**
+     * 已到达、尚未消费的元素
+     */
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+
+    private long requestId;
+
+    /**
+     * 预取的下一个元素
+     */
+    private Object next;
+
+    /**
+     * 自上次补充额度以来消费的元素数
+     */
+    private int consumed;
+
+    private boolean finished;
+
+    private volatile Throwable error;
+
+    public ClientStream(RpcConnection connection, int window, long timeoutMillis) {
+        this.connection = connection;
+        this.window = window;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 发送请求并授予初始额度
+     *
+     * @param protocolMessage 请求消息
+     */
+    public void start(ProtocolMessage<RpcRequest> protocolMessage) throws IOException {
+        requestId = connection.openStream(protocolMessage, this);
+        connection.requestN(requestId, window);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+        Object element;
+        try {
+            element = queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new RuntimeException("等待流式响应被中断", e);
+        }
+        if (element == null) {
+            close();
+            throw new RuntimeException("流式响应超时");
+        }
+        if (element == END) {
+            finished = true;
+            if (error != null) {
+                throw new RuntimeException(error.getMessage(), error);
+            }
+            return false;
+        }
+        next = element;
+        // 消费过半窗口后补充额度
+        if (++consumed >= Math.max(1, window / 2)) {
+            connection.requestN(requestId, consumed);
+            consumed = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object element = next;
+        next = null;
+        return element == NULL_ELEMENT ? null : element;
+    }
+
+    @Override
+    public void onNext(RpcResponse element) {
+        queue.offer(element.getData() == null ? NULL_ELEMENT : element.getData());
+    }
+
+    @Override
+    public void onEnd(RpcResponse end) {
+        if (end != null && end.getException() != null) {
+            error = end.getException();
+        }
+        queue.offer(END);
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        error = e;
+        queue.offer(END);
+    }
+
+    /**
+     * 提前结束消费，通知提供者停止发送
+     */
+    @Override
+    public void close() {
+        if (!finished) {
+            finished = true;
+            next = null;
+            queue.clear();
+            connection.cancelStream(requestId);
+        }
+    }
+}
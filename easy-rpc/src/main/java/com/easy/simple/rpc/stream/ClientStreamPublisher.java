@@ -0,0 +1,142 @@
+package com.easy.simple.rpc.stream;
+
+import com.easy.simple.rpc.enity.RpcRequest;
+import com.easy.simple.rpc.enity.RpcResponse;
+import com.easy.simple.rpc.protocol.ProtocolMessage;
+import com.easy.simple.rpc.proxy.RpcConnection;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 消费者端的流式响应发布者
+ * 订阅时才发送请求，订阅者 request(n) 的需求原样作为额度转发给提供者
+ */
+public class ClientStreamPublisher implements Flow.Publisher<Object> {
+
+    private final RpcConnection connection;
+
+    private final ProtocolMessage<RpcRequest> protocolMessage;
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    public ClientStreamPublisher(RpcConnection connection, ProtocolMessage<RpcRequest> protocolMessage) {
+        this.connection = connection;
+        this.protocolMessage = protocolMessage;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Object> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            // 一次远程调用只能被消费一次
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Remote stream supports a single subscriber"));
+            return;
+        }
+        StreamSubscription subscription = new StreamSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscription.start();
+    }
+
+    /**
+     * 订阅关系，同时作为连接上的流监听器
+     */
+    private class StreamSubscription implements Flow.Subscription, StreamListener {
+
+        private final Flow.Subscriber<? super Object> subscriber;
+
+        /**
+         * 请求发出前累积的需求
+         */
+        private long pendingDemand;
+
+        private long requestId = -1;
+
+        private volatile boolean done;
+
+        StreamSubscription(Flow.Subscriber<? super Object> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void start() {
+            if (done) {
+                return;
+            }
+            try {
+                long id = connection.openStream(protocolMessage, this);
+                synchronized (this) {
+                    requestId = id;
+                    if (pendingDemand > 0) {
+                        connection.requestN(id, pendingDemand);
+                        pendingDemand = 0;
+                    }
+                }
+            } catch (Exception e) {
+                onError(e);
+            }
+        }
+
+        @Override
+        public synchronized void request(long n) {
+            if (done) {
+                return;
+            }
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Demand must be positive: " + n));
+                return;
+            }
+            if (requestId < 0) {
+                pendingDemand += n;
+            } else {
+                connection.requestN(requestId, n);
+            }
+        }
+
+        @Override
+        public synchronized void cancel() {
+            if (!done) {
+                done = true;
+                if (requestId >= 0) {
+                    connection.cancelStream(requestId);
+                }
+            }
+        }
+
+        @Override
+        public void onNext(RpcResponse element) {
+            if (!done) {
+                subscriber.onNext(element.getData());
+            }
+        }
+
+        @Override
+        public void onEnd(RpcResponse end) {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (end != null && end.getException() != null) {
+                subscriber.onError(end.getException());
+            } else {
+                subscriber.onComplete();
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            if (!done) {
+                done = true;
+                subscriber.onError(e);
+            }
+        }
+    }
+}
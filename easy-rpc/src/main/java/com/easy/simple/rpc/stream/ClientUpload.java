@@ -0,0 +1,115 @@
+package com.easy.simple.rpc.stream;
+
+import com.easy.simple.rpc.enity.RpcRequest;
+import com.easy.simple.rpc.enity.RpcResponse;
+import com.easy.simple.rpc.protocol.ProtocolMessage;
+import com.easy.simple.rpc.proxy.RpcConnection;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * 消费者端的客户端流式上传
+ * 调用线程从参数迭代器中按提供者授予的额度拉取元素，分块以 UPLOAD 帧发送，
+ * 额度用完时等待提供者补充，因此两端都不需要持有完整的参数
+ */
+public class ClientUpload {
+
+    private final RpcConnection connection;
+
+    /**
+     * 每帧携带的元素个数
+     */
+    private final int chunkSize;
+
+    /**
+     * 等待额度和响应的超时时间（毫秒）
+     */
+    private final long timeoutMillis;
+
+    /**
+     * 剩余额度
+     */
+    private long credits;
+
+    public ClientUpload(RpcConnection connection, int chunkSize, long timeoutMillis) {
+        this.connection = connection;
+        this.chunkSize = chunkSize;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 发送请求并上传流式参数
+     *
+     * @param protocolMessage 请求消息（流式参数位置为 null）
+     * @param source          流式参数（Iterator 或 Stream）
+     * @return 响应
+     */
+    public RpcResponse send(ProtocolMessage<RpcRequest> protocolMessage, Object source) throws Exception {
+        Iterator<?> iterator = source instanceof Stream ? ((Stream<?>) source).iterator() : (Iterator<?>) source;
+        CompletableFuture<RpcResponse> responseFuture = connection.openUpload(protocolMessage, this::onCredit);
+        // 提供者提前返回时唤醒等待额度的线程
+        responseFuture.whenComplete((response, e) -> {
+            synchronized (this) {
+                notifyAll();
+            }
+        });
+        long requestId = protocolMessage.getHeader().getRequestId();
+        try {
+            while (!responseFuture.isDone()) {
+                if (iterator == null || !iterator.hasNext()) {
+                    connection.endUpload(requestId, null);
+                    break;
+                }
+                int n = awaitCredits(responseFuture);
+                List<Object> chunk = new ArrayList<>(n);
+                while (chunk.size() < n && iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                }
+                if (!chunk.isEmpty()) {
+                    connection.sendUploadChunk(requestId, chunk.toArray());
+                }
+            }
+        } catch (Exception e) {
+            connection.endUpload(requestId, e);
+            throw e;
+        } finally {
+            if (source instanceof AutoCloseable) {
+                ((AutoCloseable) source).close();
+            }
+        }
+        return responseFuture.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void onCredit(long n) {
+        credits += n;
+        notifyAll();
+    }
+
+    /**
+     * 等待额度
+     *
+     * @return 本次可发送的元素个数，提供者已返回响应时为 0
+     */
+    private synchronized int awaitCredits(CompletableFuture<RpcResponse> responseFuture) throws InterruptedException, TimeoutException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (credits <= 0) {
+            if (responseFuture.isDone()) {
+                return 0;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new TimeoutException("等待上传额度超时");
+            }
+            wait(remaining);
+        }
+        int n = (int) Math.min(credits, chunkSize);
+        credits -= n;
+        return n;
+    }
+}
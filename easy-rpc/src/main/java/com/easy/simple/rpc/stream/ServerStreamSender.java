@@ -0,0 +1,245 @@
+package com.easy.simple.rpc.stream;
+
+import com.easy.simple.rpc.enity.RpcResponse;
+import com.easy.simple.rpc.protocol.FrameWriter;
+import com.easy.simple.rpc.protocol.ProtocolMessage;
+import com.easy.simple.rpc.protocol.ProtocolMessageTypeEnum;
+
+import java.util.Iterator;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
+
+/**
+ * 提供者端的流式结果发送器
+ * 只在消费者授予额度（STREAM_REQUEST_N）时从迭代器拉取元素并发送 STREAM 帧，
+ * 写缓冲区满时暂停，等连接 drain 后继续；发布者类型的结果直接把额度转为 request(n)
+ */
+public class ServerStreamSender {
+
+    private final FrameWriter frameWriter;
+
+    /**
+     * 请求消息头（复用序列化器和请求 id）
+     */
+    private final ProtocolMessage.Header requestHeader;
+
+    /**
+     * 结束或取消时的回调
+     */
+    private final Runnable onFinish;
+
+    private Iterator<?> iterator;
+
+    /**
+     * 需要在结束时关闭的资源（Stream）
+     */
+    private AutoCloseable resource;
+
+    private boolean publisherMode;
+
+    private Flow.Subscription subscription;
+
+    /**
+     * 剩余额度
+     */
+    private long credits;
+
+    private boolean finished;
+
+    public ServerStreamSender(FrameWriter frameWriter, ProtocolMessage.Header requestHeader, Runnable onFinish) {
+        this.frameWriter = frameWriter;
+        this.requestHeader = requestHeader;
+        this.onFinish = onFinish;
+    }
+
+    /**
+     * 开始发送服务方法返回的流式结果
+     *
+     * @param result 迭代器 / Stream / 发布者
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void start(Object result) {
+        StreamType streamType = StreamType.ofValue(result);
+        if (streamType == StreamType.PUBLISHER) {
+            publisherMode = true;
+            ((Flow.Publisher<Object>) result).subscribe(new PublisherSubscriber());
+            return;
+        }
+        if (streamType == StreamType.STREAM) {
+            Stream<?> stream = (Stream<?>) result;
+            resource = stream;
+            iterator = stream.iterator();
+        } else {
+            iterator = (Iterator<?>) result;
+        }
+        pump();
+    }
+
+    /**
+     * 消费者补充额度
+     *
+     * @param n 额度
+     */
+    public synchronized void request(long n) {
+        if (finished || n <= 0) {
+            return;
+        }
+        if (publisherMode && subscription != null) {
+            subscription.request(n);
+            return;
+        }
+        credits += n;
+        pump();
+    }
+
+    /**
+     * 在额度和写缓冲区允许的范围内发送元素
+     */
+    public synchronized void pump() {
+        if (publisherMode || iterator == null) {
+            return;
+        }
+        while (!finished) {
+            Object element;
+            try {
+                if (!iterator.hasNext()) {
+                    finish(null);
+                    return;
+                }
+                if (credits <= 0 || frameWriter.writeQueueFull()) {
+                    return;
+                }
+                element = iterator.next();
+            } catch (Exception e) {
+                finish(e);
+                return;
+            }
+            send(element);
+            credits--;
+        }
+    }
+
+    /**
+     * 是否已结束或取消
+     */
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * 消费者取消或连接关闭
+     */
+    public synchronized void cancel() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        closeResource();
+    }
+
+    private void send(Object element) {
+        RpcResponse rpcResponse = new RpcResponse();
+        rpcResponse.setData(element);
+        rpcResponse.setDataType(element == null ? null : element.getClass());
+        rpcResponse.setMessage("ok");
+        try {
+            frameWriter.write(new ProtocolMessage<>(header(requestHeader, ProtocolMessageTypeEnum.STREAM), rpcResponse));
+        } catch (Exception e) {
+            finish(e);
+        }
+    }
+
+    /**
+     * 发送 STREAM_END 帧并释放资源
+     *
+     * @param exception 异常结束时的异常，正常结束为 null
+     */
+    private void finish(Exception exception) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        closeResource();
+        RpcResponse rpcResponse = new RpcResponse();
+        rpcResponse.setMessage(exception == null ? "ok" : exception.getMessage());
+        rpcResponse.setException(exception);
+        try {
+            frameWriter.write(new ProtocolMessage<>(header(requestHeader, ProtocolMessageTypeEnum.STREAM_END), rpcResponse));
+        } catch (Exception e) {
+            System.err.println("流结束帧编码错误: " + e.getMessage());
+        }
+        onFinish.run();
+    }
+
+    private void closeResource() {
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                System.err.println("关闭流失败: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 构造与请求同一 id、同一序列化器的消息头
+     */
+    static ProtocolMessage.Header header(ProtocolMessage.Header requestHeader, ProtocolMessageTypeEnum type) {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(requestHeader.getMagic());
+        header.setVersion(requestHeader.getVersion());
+        header.setSerializer(requestHeader.getSerializer());
+        header.setType((byte) type.getKey());
+        header.setRequestId(requestHeader.getRequestId());
+        return header;
+    }
+
+    /**
+     * 订阅服务方法返回的发布者，元素直接转发为 STREAM 帧
+     */
+    private class PublisherSubscriber implements Flow.Subscriber<Object> {
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            synchronized (ServerStreamSender.this) {
+                if (finished) {
+                    s.cancel();
+                    return;
+                }
+                subscription = s;
+                // 订阅前已收到的额度
+                if (credits > 0) {
+                    long n = credits;
+                    credits = 0;
+                    s.request(n);
+                }
+            }
+        }
+
+        @Override
+        public void onNext(Object item) {
+            synchronized (ServerStreamSender.this) {
+                if (!finished) {
+                    send(item);
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            synchronized (ServerStreamSender.this) {
+                finish(throwable instanceof Exception ? (Exception) throwable : new RuntimeException(throwable));
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            synchronized (ServerStreamSender.this) {
+                finish(null);
+            }
+        }
+    }
+}
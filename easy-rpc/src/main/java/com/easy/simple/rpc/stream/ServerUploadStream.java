@@ -0,0 +1,167 @@
+package com.easy.simple.rpc.stream;
+
+import com.easy.simple.rpc.protocol.FrameWriter;
+import com.easy.simple.rpc.protocol.ProtocolMessage;
+import com.easy.simple.rpc.protocol.ProtocolMessageTypeEnum;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 提供者端的客户端流式参数
+ * 事件循环线程收到 UPLOAD 分块后放入队列，服务方法在工作线程中逐个消费；
+ * 每消费半个窗口向消费者补充一次额度，因此缓冲的元素不会超过 window 个
+ */
+public class ServerUploadStream implements Iterator<Object> {
+
+    /**
+     * 上传结束标记
+     */
+    private static final Object END = new Object();
+
+    /**
+     * null 元素占位（阻塞队列不允许 null）
+     */
+    private static final Object NULL_ELEMENT = new Object();
+
+    private final FrameWriter frameWriter;
+
+    /**
+     * 请求消息头（复用序列化器和请求 id）
+     */
+    private final ProtocolMessage.Header requestHeader;
+
+    /**
+     * 额度窗口
+     */
+    private final int window;
+
+    /**
+     * 等待单个元素的超时时间（毫秒）
+     */
+    private final long timeoutMillis;
+
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+
+    private Object next;
+
+    /**
+     * 自上次补充额度以来消费的元素数
+     */
+    private int consumed;
+
+    private boolean finished;
+
+    private volatile Exception error;
+
+    public ServerUploadStream(FrameWriter frameWriter, ProtocolMessage.Header requestHeader, int window, long timeoutMillis) {
+        this.frameWriter = frameWriter;
+        this.requestHeader = requestHeader;
+        this.window = window;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 授予消费者初始额度
+     */
+    public void start() {
+        grant(window);
+    }
+
+    /**
+     * 按参数声明类型适配
+     *
+     * @param parameterType Iterator 或 Stream
+     * @return 传给服务方法的参数
+     */
+    public Object asParameter(Class<?> parameterType) {
+        if (Stream.class.equals(parameterType)) {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false);
+        }
+        return this;
+    }
+
+    /**
+     * 收到一个分块（事件循环线程）
+     *
+     * @param elements 分块中的元素
+     */
+    public void onChunk(Object[] elements) {
+        if (elements == null) {
+            return;
+        }
+        for (Object element : elements) {
+            queue.offer(element == null ? NULL_ELEMENT : element);
+        }
+    }
+
+    /**
+     * 上传结束（事件循环线程）
+     *
+     * @param exception 消费者端异常，正常结束为 null
+     */
+    public void onEnd(Exception exception) {
+        error = exception;
+        queue.offer(END);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+        Object element;
+        try {
+            element = queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待上传数据被中断", e);
+        }
+        if (element == null) {
+            throw new RuntimeException("等待上传数据超时");
+        }
+        if (element == END) {
+            finished = true;
+            if (error != null) {
+                throw new RuntimeException("上传中断: " + error.getMessage(), error);
+            }
+            return false;
+        }
+        next = element;
+        // 消费过半窗口后补充额度
+        if (++consumed >= Math.max(1, window / 2)) {
+            grant(consumed);
+            consumed = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object element = next;
+        next = null;
+        return element == NULL_ELEMENT ? null : element;
+    }
+
+    private void grant(long n) {
+        ProtocolMessage.Header header = ServerStreamSender.header(requestHeader, ProtocolMessageTypeEnum.STREAM_REQUEST_N);
+        try {
+            frameWriter.write(new ProtocolMessage<>(header, n));
+        } catch (Exception e) {
+            System.err.println("上传额度帧发送失败: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.easy.simple.rpc.stream;
+
+import com.easy.simple.rpc.enity.RpcResponse;
+
+/**
+ * 消费者端流式响应监听器（由连接的事件循环线程回调）
+ */
+public interface StreamListener {
+
+    /**
+     * 收到一个流式元素
+     *
+     * @param element 元素（data 为元素值）
+     */
+    void onNext(RpcResponse element);
+
+    /**
+     * 流结束（正常结束或提供者返回异常）
+     *
+     * @param end 结束帧（exception 不为空表示异常结束）
+     */
+    void onEnd(RpcResponse end);
+
+    /**
+     * 连接异常中断
+     *
+     * @param e 异常
+     */
+    void onError(Throwable e);
+}
@@ -0,0 +1,86 @@
+package com.easy.simple.rpc.stream;
+
+import java.util.Iterator;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
+
+/**
+ * 流式返回类型枚举
+ * 服务方法返回以下类型时，结果以 STREAM 帧逐个推送，由消费者的额度控制发送速度；
+ * 参数为 Iterator / Stream 时，该参数以 UPLOAD 帧分块上传，由提供者的额度控制发送速度
+ */
+public enum StreamType {
+
+    /**
+     * 迭代器
+     */
+    ITERATOR(Iterator.class),
+
+    /**
+     * Java 8 Stream
+     */
+    STREAM(Stream.class),
+
+    /**
+     * 回调式发布者（java.util.concurrent.Flow）
+     */
+    PUBLISHER(Flow.Publisher.class);
+
+    private final Class<?> type;
+
+    StreamType(Class<?> type) {
+        this.type = type;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * 根据方法声明的返回类型判断是否为流式方法
+     *
+     * @param returnType 方法返回类型
+     * @return 流式类型，非流式方法返回 null
+     */
+    public static StreamType of(Class<?> returnType) {
+        for (StreamType streamType : values()) {
+            if (streamType.type.equals(returnType)) {
+                return streamType;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 根据服务方法的实际返回值判断是否需要流式发送
+     *
+     * @param result 返回值
+     * @return 流式类型，非流式结果返回 null
+     */
+    public static StreamType ofValue(Object result) {
+        for (StreamType streamType : values()) {
+            if (streamType.type.isInstance(result)) {
+                return streamType;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 查找客户端流式参数（Iterator / Stream），该参数的元素以 UPLOAD 帧分块发送
+     *
+     * @param parameterTypes 方法参数类型
+     * @return 参数下标，没有时返回 -1
+     */
+    public static int indexOfUploadParameter(Class<?>[] parameterTypes) {
+        if (parameterTypes == null) {
+            return -1;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (ITERATOR.type.equals(parameterTypes[i]) || STREAM.type.equals(parameterTypes[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,35 @@
+package com.easy.simple.rpc.stub;
+
+/**
+ * 服务端分发器（由 RpcStubProcessor 为每个服务接口生成）
+ * 按分发序号直接调用服务实现，不经过反射；请求中的方法编号（MethodDictionary）在注册服务时换算为分发序号
+ */
+public interface RpcDispatcher {
+
+    /**
+     * 将请求中的方法编号换算为分发序号
+     *
+     * @param methodId 方法编号（MethodDictionary.methodId）
+     * @return 分发序号，不存在时为 -1
+     */
+    int dispatchIndex(long methodId);
+
+    /**
+     * 方法返回类型
+     *
+     * @param dispatchIndex 分发序号
+     * @return 返回类型
+     */
+    Class<?> returnType(int dispatchIndex);
+
+    /**
+     * 调用服务方法
+     *
+     * @param service       服务实现
+     * @param dispatchIndex 分发序号
+     * @param args          参数
+     * @return 返回值，void 方法为 null
+     * @throws Throwable 服务方法抛出的异常
+     */
+    Object dispatch(Object service, int dispatchIndex, Object[] args) throws Throwable;
+}
@@ -0,0 +1,366 @@
+package com.easy.simple.rpc.stub;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * 为 @RpcInterface 标注的接口生成客户端存根和服务端分发器
+ * 存根是接口的普通实现类，参数装箱为数组后交给 ServiceProxy 发送（请求携带 MethodDictionary 方法编号，
+ * 参数编码仍由序列化器或基本类型消息体完成），替代动态代理；
+ * 分发器记录每个方法的方法编号，按签名排序后的分发序号 switch 调用服务实现，替代反射
+ */
+@SupportedAnnotationTypes("com.easy.simple.rpc.annotation.RpcInterface")
+public class RpcStubProcessor extends AbstractProcessor {
+
+    private static final String GENERATED = "@javax.annotation.processing.Generated(\"" + RpcStubProcessor.class.getName() + "\")\n";
+
+    /**
+     * Object 的公开方法签名
+     */
+    private static final Set<String> OBJECT_METHODS = Set.of("equals(java.lang.Object)", "hashCode()", "toString()");
+
+    private Elements elements;
+
+    private Types types;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.INTERFACE) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@RpcInterface 只能标注接口", element);
+                    continue;
+                }
+                TypeElement serviceInterface = (TypeElement) element;
+                try {
+                    List<MethodInfo> methods = collectMethods(serviceInterface);
+                    generateStub(serviceInterface, methods);
+                    generateDispatcher(serviceInterface, methods);
+                } catch (IOException e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "生成 RPC 存根失败: " + e.getMessage(), element);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 收集接口（含父接口）的抽象方法，按签名排序
+     */
+    private List<MethodInfo> collectMethods(TypeElement serviceInterface) {
+        DeclaredType interfaceType = (DeclaredType) serviceInterface.asType();
+        Map<String, MethodInfo> sorted = new TreeMap<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(serviceInterface))) {
+            if (method.getEnclosingElement().getKind() != ElementKind.INTERFACE
+                    || !method.getModifiers().contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+            MethodInfo methodInfo = new MethodInfo(method, (ExecutableType) types.asMemberOf(interfaceType, method));
+            // 接口中重新声明的 Object 方法在本地执行
+            if (OBJECT_METHODS.contains(methodInfo.signature())) {
+                continue;
+            }
+            sorted.putIfAbsent(methodInfo.signature(), methodInfo);
+        }
+        return new ArrayList<>(sorted.values());
+    }
+
+    private void generateStub(TypeElement serviceInterface, List<MethodInfo> methods) throws IOException {
+        String className = RpcStubs.generatedClassName(elements.getBinaryName(serviceInterface).toString(), RpcStubs.STUB_SUFFIX);
+        String interfaceName = serviceInterface.getQualifiedName().toString();
+        String rawInterface = types.erasure(serviceInterface.asType()).toString();
+        StringBuilder source = new StringBuilder();
+        appendHeader(source, serviceInterface, interfaceName + " 的客户端存根");
+        source.append("@SuppressWarnings(\"unchecked\")\n");
+        source.append("public class ").append(simpleName(className))
+                .append(typeParameters(serviceInterface.getTypeParameters()))
+                .append(" implements ").append(serviceInterface.asType()).append(" {\n\n");
+        source.append("    private final com.easy.simple.rpc.proxy.ServiceProxy serviceProxy;\n\n");
+        source.append("    /**\n     * 方法序号（按签名排序） => 调用描述\n     */\n");
+        source.append("    private final com.easy.simple.rpc.proxy.InvocationDescriptor[] descriptors;\n\n");
+        source.append("    public ").append(simpleName(className))
+                .append("(com.easy.simple.rpc.proxy.ServiceProxy serviceProxy) throws NoSuchMethodException {\n");
+        source.append("        this.serviceProxy = serviceProxy;\n");
+        source.append("        this.descriptors = new com.easy.simple.rpc.proxy.InvocationDescriptor[]{\n");
+        for (MethodInfo method : methods) {
+            source.append("                serviceProxy.getDescriptor(").append(rawInterface).append(".class.getMethod(\"")
+                    .append(method.name()).append('"');
+            for (TypeMirror parameterType : method.declaredParameterTypes()) {
+                source.append(", ").append(classLiteral(parameterType));
+            }
+            source.append(")),\n");
+        }
+        source.append("        };\n    }\n");
+        for (int i = 0; i < methods.size(); i++) {
+            appendStubMethod(source, i, methods.get(i));
+        }
+        source.append("}\n");
+        write(className, source, serviceInterface);
+    }
+
+    private void appendStubMethod(StringBuilder source, int index, MethodInfo method) {
+        ExecutableElement element = method.element;
+        TypeMirror returnType = method.type.getReturnType();
+        List<? extends VariableElement> parameters = element.getParameters();
+        List<? extends TypeMirror> parameterTypes = method.type.getParameterTypes();
+        source.append("\n    @Override\n    public ");
+        String methodTypeParameters = typeParameters(element.getTypeParameters());
+        if (!methodTypeParameters.isEmpty()) {
+            source.append(methodTypeParameters).append(' ');
+        }
+        source.append(returnType).append(' ').append(method.name()).append('(');
+        StringJoiner args = new StringJoiner(", ");
+        for (int i = 0; i < parameters.size(); i++) {
+            String parameterName = parameters.get(i).getSimpleName().toString();
+            if (i > 0) {
+                source.append(", ");
+            }
+            if (element.isVarArgs() && i == parameters.size() - 1) {
+                source.append(((ArrayType) parameterTypes.get(i)).getComponentType()).append("... ");
+            } else {
+                source.append(parameterTypes.get(i)).append(' ');
+            }
+            source.append(parameterName);
+            args.add(parameterName);
+        }
+        source.append(')');
+        List<? extends TypeMirror> thrownTypes = method.type.getThrownTypes();
+        if (!thrownTypes.isEmpty()) {
+            StringJoiner throwsClause = new StringJoiner(", ", " throws ", "");
+            thrownTypes.forEach(thrownType -> throwsClause.add(thrownType.toString()));
+            source.append(throwsClause);
+        }
+        source.append(" {\n        try {\n            ");
+        // 与动态代理一致，无参方法的参数为 null
+        String argsArray = parameters.isEmpty() ? "null" : "new Object[]{" + args + "}";
+        String call = "this.serviceProxy.invoke(this.descriptors[" + index + "], " + argsArray + ")";
+        if (returnType.getKind() == TypeKind.VOID) {
+            source.append(call).append(";\n");
+        } else {
+            source.append("return (").append(boxed(returnType)).append(") ").append(call).append(";\n");
+        }
+        source.append("        } catch (RuntimeException | Error $e) {\n            throw $e;\n        }");
+        boolean throwsThrowable = false;
+        for (TypeMirror thrownType : checkedExceptions(thrownTypes)) {
+            if (Throwable.class.getName().equals(thrownType.toString())) {
+                throwsThrowable = true;
+            }
+            source.append(" catch (").append(thrownType).append(" $e) {\n            throw $e;\n        }");
+        }
+        if (!throwsThrowable) {
+            source.append(" catch (Throwable $e) {\n            throw new RuntimeException($e);\n        }");
+        }
+        source.append("\n    }\n");
+    }
+
+    private void generateDispatcher(TypeElement serviceInterface, List<MethodInfo> methods) throws IOException {
+        String className = RpcStubs.generatedClassName(elements.getBinaryName(serviceInterface).toString(), RpcStubs.DISPATCHER_SUFFIX);
+        String rawInterface = types.erasure(serviceInterface.asType()).toString();
+        StringBuilder source = new StringBuilder();
+        appendHeader(source, serviceInterface, serviceInterface.getQualifiedName() + " 的服务端分发器");
+        source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        source.append("public class ").append(simpleName(className))
+                .append(" implements com.easy.simple.rpc.stub.RpcDispatcher {\n\n");
+        for (int i = 0; i < methods.size(); i++) {
+            StringJoiner parameterTypes = new StringJoiner(", ");
+            methods.get(i).declaredParameterTypes().forEach(type -> parameterTypes.add(classLiteral(type)));
+            source.append("    private static final Class<?>[] PARAMETER_TYPES_").append(i)
+                    .append(" = {").append(parameterTypes).append("};\n\n");
+        }
+        StringJoiner returnTypes = new StringJoiner(", ");
+        methods.forEach(method -> returnTypes.add(classLiteral(method.element.getReturnType())));
+        source.append("    private static final Class<?>[] RETURN_TYPES = {").append(returnTypes).append("};\n\n");
+
+        // 分发序号 => 方法编号，与消费者请求中的编号按同一规则计算（方法所在接口名 + 方法名 + 参数类型）
+        source.append("    private static final long[] METHOD_IDS = {\n");
+        for (int i = 0; i < methods.size(); i++) {
+            MethodInfo method = methods.get(i);
+            source.append("            com.easy.simple.rpc.registry.impl.MethodDictionary.methodId(\"")
+                    .append(elements.getBinaryName((TypeElement) method.element.getEnclosingElement()))
+                    .append("\", \"").append(method.name()).append("\", PARAMETER_TYPES_").append(i).append("),\n");
+        }
+        source.append("    };\n\n");
+
+        source.append("    @Override\n    public int dispatchIndex(long methodId) {\n");
+        source.append("        for (int i = 0; i < METHOD_IDS.length; i++) {\n");
+        source.append("            if (METHOD_IDS[i] == methodId) {\n                return i;\n            }\n        }\n");
+        source.append("        return -1;\n    }\n\n");
+
+        source.append("    @Override\n    public Class<?> returnType(int dispatchIndex) {\n        return RETURN_TYPES[dispatchIndex];\n    }\n\n");
+
+        source.append("    @Override\n    public Object dispatch(Object service, int dispatchIndex, Object[] args) throws Throwable {\n");
+        source.append("        ").append(rawInterface).append(" target = (").append(rawInterface).append(") service;\n");
+        source.append("        switch (dispatchIndex) {\n");
+        for (int i = 0; i < methods.size(); i++) {
+            MethodInfo method = methods.get(i);
+            StringJoiner args = new StringJoiner(", ");
+            List<? extends TypeMirror> parameterTypes = method.type.getParameterTypes();
+            for (int j = 0; j < parameterTypes.size(); j++) {
+                args.add("(" + types.erasure(parameterTypes.get(j)) + ") args[" + j + "]");
+            }
+            String call = "target." + method.name() + "(" + args + ")";
+            source.append("            case ").append(i).append(":\n");
+            if (method.type.getReturnType().getKind() == TypeKind.VOID) {
+                source.append("                ").append(call).append(";\n                return null;\n");
+            } else {
+                source.append("                return ").append(call).append(";\n");
+            }
+        }
+        source.append("            default:\n                throw new NoSuchMethodException(\"未知分发序号: \" + dispatchIndex);\n");
+        source.append("        }\n    }\n}\n");
+        write(className, source, serviceInterface);
+    }
+
+    private void appendHeader(StringBuilder source, TypeElement serviceInterface, String description) {
+        PackageElement packageElement = elements.getPackageOf(serviceInterface);
+        if (!packageElement.isUnnamed()) {
+            source.append("package ").append(packageElement.getQualifiedName()).append(";\n\n");
+        }
+        source.append("/**\n * ").append(description).append("（由 RpcStubProcessor 生成，请勿修改）\n */\n");
+        source.append(GENERATED);
+    }
+
+    private void write(String className, StringBuilder source, TypeElement originatingElement) throws IOException {
+        try (Writer writer = processingEnv.getFiler().createSourceFile(className, originatingElement).openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    /**
+     * 类型参数声明，如 &lt;T extends Number&gt;
+     */
+    private String typeParameters(List<? extends TypeParameterElement> typeParameters) {
+        if (typeParameters.isEmpty()) {
+            return "";
+        }
+        StringJoiner joiner = new StringJoiner(", ", "<", ">");
+        for (TypeParameterElement typeParameter : typeParameters) {
+            StringJoiner bounds = new StringJoiner(" & ", " extends ", "").setEmptyValue("");
+            for (TypeMirror bound : typeParameter.getBounds()) {
+                if (!Object.class.getName().equals(bound.toString())) {
+                    bounds.add(bound.toString());
+                }
+            }
+            joiner.add(typeParameter.getSimpleName() + bounds.toString());
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * 声明的受检异常，去掉已被其他声明异常覆盖的子类
+     */
+    private List<TypeMirror> checkedExceptions(List<? extends TypeMirror> thrownTypes) {
+        TypeMirror runtimeException = elements.getTypeElement(RuntimeException.class.getName()).asType();
+        TypeMirror error = elements.getTypeElement(Error.class.getName()).asType();
+        List<TypeMirror> checked = new ArrayList<>();
+        for (TypeMirror thrownType : thrownTypes) {
+            if (types.isSubtype(thrownType, runtimeException) || types.isSubtype(thrownType, error)) {
+                continue;
+            }
+            boolean covered = false;
+            for (TypeMirror other : thrownTypes) {
+                if (other != thrownType && types.isSubtype(thrownType, other) && !types.isSameType(thrownType, other)) {
+                    covered = true;
+                    break;
+                }
+            }
+            if (!covered) {
+                checked.add(thrownType);
+            }
+        }
+        return checked;
+    }
+
+    private String classLiteral(TypeMirror type) {
+        return types.erasure(type) + ".class";
+    }
+
+    private String boxed(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return types.boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * 接口方法及其在接口上的实际类型（解析父接口的类型参数）
+     */
+    private class MethodInfo {
+
+        private final ExecutableElement element;
+
+        private final ExecutableType type;
+
+        MethodInfo(ExecutableElement element, ExecutableType type) {
+            this.element = element;
+            this.type = type;
+        }
+
+        String name() {
+            return element.getSimpleName().toString();
+        }
+
+        /**
+         * 声明的参数类型（与反射得到的 Method.getParameterTypes() 一致）
+         */
+        List<TypeMirror> declaredParameterTypes() {
+            List<TypeMirror> parameterTypes = new ArrayList<>();
+            element.getParameters().forEach(parameter -> parameterTypes.add(parameter.asType()));
+            return parameterTypes;
+        }
+
+        /**
+         * 方法签名：方法名和参数类型的擦除
+         */
+        String signature() {
+            StringJoiner joiner = new StringJoiner(",", name() + "(", ")");
+            declaredParameterTypes().forEach(parameterType -> joiner.add(types.erasure(parameterType).toString()));
+            return joiner.toString();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.easy.simple.rpc.stub;
+
+import com.easy.simple.rpc.proxy.ServiceProxy;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 生成类的命名和加载
+ * 生成类与服务接口同包，类名为接口名（嵌套接口的 $ 替换为 _）加后缀
+ */
+public class RpcStubs {
+
+    /**
+     * 客户端存根后缀
+     */
+    public static final String STUB_SUFFIX = "_RpcStub";
+
+    /**
+     * 服务端分发器后缀
+     */
+    public static final String DISPATCHER_SUFFIX = "_RpcDispatcher";
+
+    /**
+     * 服务名 => 分发器（没有生成类时为空）
+     */
+    private static final Map<String, Optional<RpcDispatcher>> DISPATCHERS = new ConcurrentHashMap<>();
+
+    private RpcStubs() {
+    }
+
+    /**
+     * 生成类的全限定名
+     *
+     * @param interfaceName 接口的二进制名（Class.getName()）
+     * @param suffix        后缀
+     * @return 生成类的全限定名
+     */
+    public static String generatedClassName(String interfaceName, String suffix) {
+        int packageEnd = interfaceName.lastIndexOf('.');
+        return interfaceName.substring(0, packageEnd + 1) + interfaceName.substring(packageEnd + 1).replace('$', '_') + suffix;
+    }
+
+    /**
+     * 创建生成的客户端存根
+     *
+     * @param serviceClass 服务接口
+     * @param serviceProxy 存根委托的调用逻辑
+     * @return 存根，没有生成类时为 null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T newStub(Class<T> serviceClass, ServiceProxy serviceProxy) {
+        Class<?> stubClass = load(serviceClass.getName(), STUB_SUFFIX, serviceClass.getClassLoader());
+        if (stubClass == null) {
+            return null;
+        }
+        try {
+            return (T) stubClass.getConstructor(ServiceProxy.class).newInstance(serviceProxy);
+        } catch (Exception e) {
+            throw new RuntimeException("创建客户端存根失败: " + stubClass.getName(), e);
+        }
+    }
+
+    /**
+     * 获取生成的服务端分发器
+     *
+     * @param serviceName 服务名（接口名）
+     * @param classLoader 加载服务实现的类加载器
+     * @return 分发器，没有生成类时为 null
+     */
+    public static RpcDispatcher getDispatcher(String serviceName, ClassLoader classLoader) {
+        return DISPATCHERS.computeIfAbsent(serviceName, key -> {
+            Class<?> dispatcherClass = load(key, DISPATCHER_SUFFIX, classLoader);
+            if (dispatcherClass == null) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of((RpcDispatcher) dispatcherClass.getDeclaredConstructor().newInstance());
+            } catch (Exception e) {
+                throw new RuntimeException("创建服务端分发器失败: " + dispatcherClass.getName(), e);
+            }
+        }).orElse(null);
+    }
+
+    private static Class<?> load(String interfaceName, String suffix, ClassLoader classLoader) {
+        try {
+            return Class.forName(generatedClassName(interfaceName, suffix), true, classLoader);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+}
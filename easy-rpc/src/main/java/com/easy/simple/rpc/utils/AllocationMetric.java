@@ -0,0 +1,116 @@
+package com.easy.simple.rpc.utils;
+
+import com.easy.simple.rpc.RpcApplication;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 每次调用的内存分配量统计（allocationMetricEnabled 开启时统计）
+ * 按线程分配字节数（ThreadMXBean）累计请求处理各阶段在事件循环、工作线程和调用线程上的分配量，除以调用次数，
+ * 用于验证对象回收、缓冲区池等优化的效果
+ */
+public class AllocationMetric {
+
+    /**
+     * 提供者：请求解码、反序列化和调用、响应编码
+     */
+    public static final AllocationMetric PROVIDER = new AllocationMetric("provider");
+
+    /**
+     * 消费者：请求构造和编码、响应解码和分发
+     */
+    public static final AllocationMetric CONSUMER = new AllocationMetric("consumer");
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = threadMXBean();
+
+    private static volatile Boolean enabled;
+
+    private final String name;
+
+    private final LongAdder bytes = new LongAdder();
+
+    private final LongAdder calls = new LongAdder();
+
+    private AllocationMetric(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 开始统计一个阶段
+     *
+     * @return 当前线程已分配的字节数，未开启或不支持时为 -1
+     */
+    public static long start() {
+        if (THREAD_MX_BEAN == null || !isEnabled()) {
+            return -1;
+        }
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * 结束统计一个阶段，累计该阶段在当前线程上的分配量
+     *
+     * @param start start 的返回值
+     */
+    public void record(long start) {
+        if (start >= 0) {
+            bytes.add(THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) - start);
+        }
+    }
+
+    /**
+     * 累计一次调用
+     */
+    public void addCall() {
+        if (THREAD_MX_BEAN != null && isEnabled()) {
+            calls.increment();
+        }
+    }
+
+    /**
+     * 平均每次调用分配的字节数
+     */
+    public double getBytesPerCall() {
+        long count = calls.sum();
+        return count == 0 ? 0 : (double) bytes.sum() / count;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * 清零（如预热之后）
+     */
+    public void reset() {
+        bytes.reset();
+        calls.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d calls, %.0f bytes/call", name, getCalls(), getBytesPerCall());
+    }
+
+    private static boolean isEnabled() {
+        Boolean value = enabled;
+        if (value == null) {
+            value = RpcApplication.getRpcConfig().isAllocationMetricEnabled();
+            enabled = value;
+        }
+        return value;
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean;
+            }
+        }
+        return null;
+    }
+}
@@ -1,5 +1,6 @@
 package com.easy.example.common.enity;
 
+import com.easy.simple.rpc.annotation.RpcSchema;
 import lombok.Data;
 
 import java.io.Serializable;
@@ -8,6 +9,7 @@ import java.io.Serializable;
  * 用户
  */
 @Data
+@RpcSchema
 public class User implements Serializable {
 
     private String name;
@@ -2,10 +2,12 @@ package com.easy.example.common.service;
 
 
 import com.easy.example.common.enity.User;
+import com.easy.simple.rpc.annotation.RpcInterface;
 
 /**
  * 用户服务
  */
+@RpcInterface
 public interface UserService {
 
     /**